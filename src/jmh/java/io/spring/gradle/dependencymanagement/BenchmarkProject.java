@@ -0,0 +1,137 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.dependencymanagement;
+
+import io.spring.gradle.dependencymanagement.maven.EffectiveModelBuilder;
+import org.gradle.api.Action;
+import org.gradle.api.Project;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.artifacts.repositories.MavenArtifactRepository;
+import org.gradle.testfixtures.ProjectBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+
+/**
+ * A project, backed by a {@link SyntheticMavenRepository}, whose global dependency
+ * management imports the repository's bom. The plugin's components are created directly
+ * so that benchmarks can use them without applying the plugin.
+ *
+ * @author Andy Wilkinson
+ */
+public final class BenchmarkProject {
+
+    private final File directory;
+
+    private final SyntheticMavenRepository repository;
+
+    private final Project project;
+
+    private final Configuration configuration;
+
+    private final DependencyManagementConfigurationContainer configurationContainer;
+
+    private final EffectiveModelBuilder effectiveModelBuilder;
+
+    private final DependencyManagementContainer dependencyManagementContainer;
+
+    private final DependencyManagementExtension dependencyManagementExtension;
+
+    /**
+     * Creates a new project whose bom manages {@code size} modules.
+     *
+     * @param size the number of managed modules
+     * @throws IOException if the repository cannot be generated
+     */
+    public BenchmarkProject(int size) throws IOException {
+        this.directory = File.createTempFile("dependency-management-benchmark", "");
+        this.directory.delete();
+        this.repository = new SyntheticMavenRepository(new File(this.directory, "repository"),
+                size);
+        this.repository.generate();
+        this.project = ProjectBuilder.builder()
+                .withProjectDir(new File(this.directory, "project")).build();
+        this.project.getRepositories().maven(new Action<MavenArtifactRepository>() {
+
+            @Override
+            public void execute(MavenArtifactRepository repository) {
+                repository.setUrl(BenchmarkProject.this.repository.getRoot().toURI());
+            }
+
+        });
+        this.configuration = this.project.getConfigurations().create("benchmark");
+        this.configurationContainer = new DependencyManagementConfigurationContainer(
+                this.project);
+        this.effectiveModelBuilder = new EffectiveModelBuilder(this.project,
+                this.configurationContainer);
+        this.dependencyManagementContainer = new DependencyManagementContainer(this.project,
+                this.configurationContainer, this.effectiveModelBuilder);
+        this.dependencyManagementExtension = new DependencyManagementExtension(
+                this.dependencyManagementContainer, this.configurationContainer, this.project);
+        this.dependencyManagementContainer.importBom(null,
+                this.repository.getBomCoordinates(), Collections.<String, String>emptyMap());
+        this.dependencyManagementContainer.getManagedVersion(this.configuration,
+                this.repository.group(0), this.repository.name(0));
+    }
+
+    public SyntheticMavenRepository getRepository() {
+        return this.repository;
+    }
+
+    public Project getProject() {
+        return this.project;
+    }
+
+    public Configuration getConfiguration() {
+        return this.configuration;
+    }
+
+    public DependencyManagementConfigurationContainer getConfigurationContainer() {
+        return this.configurationContainer;
+    }
+
+    public EffectiveModelBuilder getEffectiveModelBuilder() {
+        return this.effectiveModelBuilder;
+    }
+
+    public DependencyManagementContainer getDependencyManagementContainer() {
+        return this.dependencyManagementContainer;
+    }
+
+    public DependencyManagementExtension getDependencyManagementExtension() {
+        return this.dependencyManagementExtension;
+    }
+
+    /**
+     * Deletes the project and its repository.
+     */
+    public void delete() {
+        delete(this.directory);
+    }
+
+    private void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+}
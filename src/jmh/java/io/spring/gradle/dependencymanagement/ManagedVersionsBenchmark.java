@@ -0,0 +1,157 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.dependencymanagement;
+
+import org.gradle.api.artifacts.DependencyResolveDetails;
+import org.gradle.api.artifacts.ModuleVersionIdentifier;
+import org.gradle.api.artifacts.ModuleVersionSelector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the lookup and application of managed versions.
+ *
+ * @author Andy Wilkinson
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ManagedVersionsBenchmark {
+
+    @Param({ "100", "1000", "5000" })
+    private int managedEntries;
+
+    private BenchmarkProject project;
+
+    private VersionConfiguringAction versionConfiguringAction;
+
+    private StubDependencyResolveDetails[] details;
+
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        this.project = new BenchmarkProject(this.managedEntries);
+        this.versionConfiguringAction = new VersionConfiguringAction(this.project.getProject(),
+                this.project.getDependencyManagementContainer(),
+                this.project.getConfiguration());
+        SyntheticMavenRepository repository = this.project.getRepository();
+        this.details = new StubDependencyResolveDetails[this.managedEntries];
+        for (int i = 0; i < this.managedEntries; i++) {
+            this.details[i] = new StubDependencyResolveDetails(repository.group(i),
+                    repository.name(i));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.project.delete();
+    }
+
+    @Benchmark
+    public String getManagedVersion() {
+        StubDependencyResolveDetails details = next();
+        return this.project.getDependencyManagementContainer().getManagedVersion(
+                this.project.getConfiguration(), details.requested.getGroup(),
+                details.requested.getName());
+    }
+
+    @Benchmark
+    public String versionConfiguringAction() {
+        StubDependencyResolveDetails details = next();
+        details.version = null;
+        this.versionConfiguringAction.execute(details);
+        return details.version;
+    }
+
+    private StubDependencyResolveDetails next() {
+        StubDependencyResolveDetails details = this.details[this.next];
+        this.next = (this.next + 1) % this.details.length;
+        return details;
+    }
+
+    private static final class StubDependencyResolveDetails implements DependencyResolveDetails {
+
+        private final ModuleVersionSelector requested;
+
+        private String version;
+
+        private StubDependencyResolveDetails(final String group, final String name) {
+            this.requested = new ModuleVersionSelector() {
+
+                @Override
+                public String getGroup() {
+                    return group;
+                }
+
+                @Override
+                public String getName() {
+                    return name;
+                }
+
+                @Override
+                public String getVersion() {
+                    return "";
+                }
+
+                @Override
+                public boolean matchesStrictly(ModuleVersionIdentifier identifier) {
+                    return false;
+                }
+
+            };
+        }
+
+        @Override
+        public ModuleVersionSelector getRequested() {
+            return this.requested;
+        }
+
+        @Override
+        public void useVersion(String version) {
+            this.version = version;
+        }
+
+        @Override
+        public void useTarget(Object notation) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ModuleVersionSelector getTarget() {
+            return this.requested;
+        }
+
+    }
+
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.spring.gradle.dependencymanagement;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.gradle.tooling.GradleConnector;
+import org.gradle.tooling.ProjectConnection;
+
+/**
+ * End-to-end benchmark that measures how configuration time, resolution time, and peak
+ * heap usage scale with the number of projects in a build. For each requested size, a
+ * {@link SyntheticMavenRepository} and a {@link SyntheticBuild} are generated and the
+ * build is run repeatedly using the Tooling API. The results are written as JSON so that
+ * they can be compared across runs.
+ * <p>
+ * The benchmark is configured using the following system properties:
+ * <ul>
+ * <li>{@code benchmark.sizes} - comma-separated project counts, default
+ * {@code 10,100,1000}</li>
+ * <li>{@code benchmark.bomSize} - modules in the repository, default {@code 500}</li>
+ * <li>{@code benchmark.boms} - boms imported by every project, default {@code 5}</li>
+ * <li>{@code benchmark.parentDepth} - depth of the boms' parent hierarchy, default
+ * {@code 3}</li>
+ * <li>{@code benchmark.configurations} - configurations per project, default
+ * {@code 5}</li>
+ * <li>{@code benchmark.warmups} and {@code benchmark.iterations} - unmeasured and
+ * measured builds per size, default {@code 1} and {@code 3}</li>
+ * <li>{@code benchmark.maxHeap} - maximum heap of the build, default {@code 2g}</li>
+ * <li>{@code benchmark.gradleHome} - the Gradle installation used to run the builds</li>
+ * <li>{@code benchmark.pluginClasspath} - the classpath from which the plugin is
+ * loaded</li>
+ * <li>{@code benchmark.results} - the file to which the results are written</li>
+ * </ul>
+ *
+ * @author Andy Wilkinson
+ */
+public final class ScalingBenchmark {
+
+    private final List<File> pluginClasspath;
+
+    private final File gradleHome;
+
+    private final int bomSize = Integer.getInteger("benchmark.bomSize", 500);
+
+    private final int boms = Integer.getInteger("benchmark.boms", 5);
+
+    private final int parentDepth = Integer.getInteger("benchmark.parentDepth", 3);
+
+    private final int configurations = Integer.getInteger("benchmark.configurations", 5);
+
+    private final int warmups = Integer.getInteger("benchmark.warmups", 1);
+
+    private final int iterations = Integer.getInteger("benchmark.iterations", 3);
+
+    private final String maxHeap = System.getProperty("benchmark.maxHeap", "2g");
+
+    private ScalingBenchmark(File gradleHome, List<File> pluginClasspath) {
+        this.gradleHome = gradleHome;
+        this.pluginClasspath = pluginClasspath;
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<File> pluginClasspath = new ArrayList<File>();
+        for (String entry : requiredProperty("benchmark.pluginClasspath")
+                .split(File.pathSeparator)) {
+            pluginClasspath.add(new File(entry).getAbsoluteFile());
+        }
+        ScalingBenchmark benchmark = new ScalingBenchmark(
+                new File(requiredProperty("benchmark.gradleHome")), pluginClasspath);
+        List<Result> results = new ArrayList<Result>();
+        for (String size : System.getProperty("benchmark.sizes", "10,100,1000").split(",")) {
+            results.add(benchmark.run(Integer.parseInt(size.trim())));
+        }
+        File output = new File(System.getProperty("benchmark.results",
+                "build/reports/scaling/results.json"));
+        benchmark.write(results, output);
+        System.out.println("Results written to " + output.getAbsolutePath());
+    }
+
+    private static String requiredProperty(String name) {
+        String value = System.getProperty(name);
+        if (value == null) {
+            throw new IllegalStateException("System property '" + name + "' is required");
+        }
+        return value;
+    }
+
+    private Result run(int projects) throws IOException {
+        File workDir = File.createTempFile("scaling-benchmark", "");
+        workDir.delete();
+        try {
+            SyntheticMavenRepository repository = new SyntheticMavenRepository(
+                    new File(workDir, "repository"), this.bomSize, this.boms,
+                    this.parentDepth);
+            repository.generate();
+            SyntheticBuild build = new SyntheticBuild(new File(workDir, "build"),
+                    repository, projects, this.configurations, this.pluginClasspath);
+            build.generate();
+            ProjectConnection connection = GradleConnector.newConnector()
+                    .forProjectDirectory(build.getRoot())
+                    .useInstallation(this.gradleHome)
+                    .useGradleUserHomeDir(new File(workDir, "gradle-user-home"))
+                    .connect();
+            try {
+                Result result = new Result(projects);
+                for (int i = 0; i < this.warmups + this.iterations; i++) {
+                    build.getResultsFile().delete();
+                    connection.newBuild()
+                            .forTasks(SyntheticBuild.TASK_NAME)
+                            .withArguments("--offline", "--quiet")
+                            .setJvmArguments("-Xmx" + this.maxHeap)
+                            .run();
+                    if (i >= this.warmups) {
+                        result.add(load(build.getResultsFile()));
+                    }
+                }
+                System.out.println(result);
+                return result;
+            }
+            finally {
+                connection.close();
+            }
+        }
+        finally {
+            delete(workDir);
+        }
+    }
+
+    private Properties load(File file) throws IOException {
+        Properties properties = new Properties();
+        InputStream input = new FileInputStream(file);
+        try {
+            properties.load(input);
+        }
+        finally {
+            input.close();
+        }
+        return properties;
+    }
+
+    private void write(List<Result> results, File output) throws IOException {
+        output.getAbsoluteFile().getParentFile().mkdirs();
+        Writer writer = new OutputStreamWriter(new FileOutputStream(output), "UTF-8");
+        try {
+            writer.write("{\n");
+            writer.write("  \"bomSize\": " + this.bomSize + ",\n");
+            writer.write("  \"boms\": " + this.boms + ",\n");
+            writer.write("  \"parentDepth\": " + this.parentDepth + ",\n");
+            writer.write("  \"configurations\": " + this.configurations + ",\n");
+            writer.write("  \"iterations\": " + this.iterations + ",\n");
+            writer.write("  \"maxHeap\": \"" + this.maxHeap + "\",\n");
+            writer.write("  \"results\": [\n");
+            for (int i = 0; i < results.size(); i++) {
+                writer.write(results.get(i).toJson());
+                writer.write(i < results.size() - 1 ? ",\n" : "\n");
+            }
+            writer.write("  ]\n}\n");
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    /**
+     * The measurements taken for builds with a particular number of projects.
+     */
+    private static final class Result {
+
+        private final int projects;
+
+        private final List<Long> configurationMillis = new ArrayList<Long>();
+
+        private final List<Long> resolutionMillis = new ArrayList<Long>();
+
+        private final List<Long> peakHeapBytes = new ArrayList<Long>();
+
+        private Result(int projects) {
+            this.projects = projects;
+        }
+
+        private void add(Properties measurements) {
+            this.configurationMillis.add(
+                    Long.valueOf(measurements.getProperty("configurationMillis")));
+            this.resolutionMillis.add(
+                    Long.valueOf(measurements.getProperty("resolutionMillis")));
+            this.peakHeapBytes.add(Long.valueOf(measurements.getProperty("peakHeapBytes")));
+        }
+
+        private String toJson() {
+            return "    {\n"
+                    + "      \"projects\": " + this.projects + ",\n"
+                    + "      \"configurationMillis\": " + summarize(this.configurationMillis)
+                    + ",\n"
+                    + "      \"resolutionMillis\": " + summarize(this.resolutionMillis) + ",\n"
+                    + "      \"peakHeapBytes\": " + summarize(this.peakHeapBytes) + "\n"
+                    + "    }";
+        }
+
+        private String summarize(List<Long> values) {
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            long total = 0;
+            for (long value : values) {
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+                total += value;
+            }
+            return "{ \"min\": " + min + ", \"mean\": " + (total / values.size())
+                    + ", \"max\": " + max + ", \"raw\": " + values + " }";
+        }
+
+        @Override
+        public String toString() {
+            return this.projects + " projects: configuration " + this.configurationMillis
+                    + " ms, resolution " + this.resolutionMillis + " ms, peak heap "
+                    + this.peakHeapBytes + " bytes";
+        }
+
+    }
+
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.spring.gradle.dependencymanagement;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Generates a synthetic multi-project build that applies the plugin to every subproject.
+ * Each subproject imports every bom in a {@link SyntheticMavenRepository}, has a chain of
+ * configurations that extend from one another, and declares unversioned dependencies on
+ * some of the repository's modules. Every fifth subproject also declares
+ * dependency management that is specific to one of its configurations. Running the {@value #TASK_NAME} task resolves
+ * every configuration of every subproject.
+ * <p>
+ * The build records the time taken to configure it, the time taken by the
+ * {@value #TASK_NAME} tasks, and the peak heap usage of the build in
+ * {@value #RESULTS_FILE_NAME} in its root directory.
+ *
+ * @author Andy Wilkinson
+ */
+public final class SyntheticBuild {
+
+    /**
+     * The name of the task that resolves every configuration of a subproject.
+     */
+    public static final String TASK_NAME = "resolveDependencyManagement";
+
+    /**
+     * The name of the file, in the build's root directory, to which its results are
+     * written.
+     */
+    public static final String RESULTS_FILE_NAME = "benchmark-results.properties";
+
+    private final File root;
+
+    private final SyntheticMavenRepository repository;
+
+    private final int projects;
+
+    private final int configurations;
+
+    private final List<File> pluginClasspath;
+
+    /**
+     * Creates a new build in the given {@code root} directory.
+     *
+     * @param root the root directory of the build
+     * @param repository the repository that provides the boms and modules
+     * @param projects the number of subprojects
+     * @param configurations the number of configurations in each subproject
+     * @param pluginClasspath the classpath from which the plugin is loaded
+     */
+    public SyntheticBuild(File root, SyntheticMavenRepository repository, int projects,
+            int configurations, List<File> pluginClasspath) {
+        this.root = root;
+        this.repository = repository;
+        this.projects = projects;
+        this.configurations = configurations;
+        this.pluginClasspath = pluginClasspath;
+    }
+
+    public File getRoot() {
+        return this.root;
+    }
+
+    public int getProjects() {
+        return this.projects;
+    }
+
+    public int getConfigurations() {
+        return this.configurations;
+    }
+
+    public File getResultsFile() {
+        return new File(this.root, RESULTS_FILE_NAME);
+    }
+
+    /**
+     * Writes the build's settings and build scripts.
+     *
+     * @throws IOException if a script cannot be written
+     */
+    public void generate() throws IOException {
+        writeSettings();
+        writeRootBuildScript();
+        for (int i = 0; i < this.projects; i++) {
+            writeProjectBuildScript(i);
+        }
+    }
+
+    private void writeSettings() throws IOException {
+        StringBuilder settings = new StringBuilder()
+                .append("import java.lang.management.ManagementFactory\n")
+                .append("import java.lang.management.MemoryType\n\n")
+                .append("System.gc()\n")
+                .append("ManagementFactory.memoryPoolMXBeans.each { it.resetPeakUsage() }\n")
+                .append("long start = System.nanoTime()\n")
+                .append("long configured = start\n")
+                .append("long resolution = 0\n")
+                .append("Map<Object, Long> taskStarts = [:]\n\n")
+                .append("gradle.projectsEvaluated { configured = System.nanoTime() }\n")
+                .append("gradle.taskGraph.beforeTask { taskStarts[it] = System.nanoTime() }\n")
+                .append("gradle.taskGraph.afterTask {\n")
+                .append("    if (it.name == '").append(TASK_NAME).append("') {\n")
+                .append("        resolution += System.nanoTime() - taskStarts[it]\n")
+                .append("    }\n")
+                .append("}\n")
+                .append("gradle.buildFinished {\n")
+                .append("    long peakHeap = ManagementFactory.memoryPoolMXBeans.findAll {\n")
+                .append("        it.type == MemoryType.HEAP\n")
+                .append("    }.sum(0L) { it.peakUsage.used }\n")
+                .append("    Properties results = new Properties()\n")
+                .append("    results.configurationMillis = ")
+                .append("String.valueOf((long) ((configured - start) / 1000000))\n")
+                .append("    results.resolutionMillis = ")
+                .append("String.valueOf((long) (resolution / 1000000))\n")
+                .append("    results.peakHeapBytes = String.valueOf(peakHeap)\n")
+                .append("    new File(rootDir, '").append(RESULTS_FILE_NAME)
+                .append("').withOutputStream { results.store(it, null) }\n")
+                .append("}\n\n");
+        for (int i = 0; i < this.projects; i++) {
+            settings.append("include '").append(projectName(i)).append("'\n");
+        }
+        write(new File(this.root, "settings.gradle"), settings.toString());
+    }
+
+    private void writeRootBuildScript() throws IOException {
+        StringBuilder script = new StringBuilder("buildscript {\n")
+                .append("    dependencies {\n")
+                .append("        classpath files(");
+        for (int i = 0; i < this.pluginClasspath.size(); i++) {
+            script.append(i == 0 ? "" : ", ").append(quote(this.pluginClasspath.get(i)));
+        }
+        script.append(")\n    }\n}\n\n")
+                .append("subprojects {\n")
+                .append("    apply plugin: 'io.spring.dependency-management'\n\n")
+                .append("    repositories {\n")
+                .append("        maven { url ").append(quote(this.repository.getRoot().toURI()))
+                .append(" }\n    }\n\n")
+                .append("    configurations {\n");
+        for (int i = 0; i < this.configurations; i++) {
+            script.append("        ").append(configurationName(i));
+            if (i > 0) {
+                script.append(" { extendsFrom ").append(configurationName(i - 1)).append(" }");
+            }
+            script.append("\n");
+        }
+        script.append("    }\n\n")
+                .append("    dependencyManagement {\n")
+                .append("        imports {\n");
+        for (int i = 0; i < this.repository.getBoms(); i++) {
+            script.append("            mavenBom '").append(this.repository.getBomCoordinates(i))
+                    .append("'\n");
+        }
+        script.append("        }\n    }\n\n")
+                .append("    task ").append(TASK_NAME).append(" << {\n")
+                .append("        configurations.each {\n")
+                .append("            it.incoming.resolutionResult.allComponents\n")
+                .append("        }\n")
+                .append("    }\n}\n");
+        write(new File(this.root, "build.gradle"), script.toString());
+    }
+
+    private void writeProjectBuildScript(int project) throws IOException {
+        StringBuilder script = new StringBuilder();
+        if (project % 5 == 0 && this.configurations > 1) {
+            int overridden = project % this.repository.getSize();
+            script.append("dependencyManagement {\n")
+                    .append("    ").append(configurationName(1)).append(" {\n")
+                    .append("        dependencies {\n")
+                    .append("            dependency '").append(coordinates(overridden))
+                    .append(":1.0'\n")
+                    .append("        }\n    }\n}\n\n");
+        }
+        script.append("dependencies {\n");
+        for (int i = 0; i < this.configurations; i++) {
+            int module = (project * 7 + i * 13) % this.repository.getSize();
+            script.append("    ").append(configurationName(i)).append(" '")
+                    .append(coordinates(module)).append("'\n");
+        }
+        script.append("}\n");
+        write(new File(new File(this.root, projectName(project)), "build.gradle"),
+                script.toString());
+    }
+
+    private String projectName(int project) {
+        return "project-" + project;
+    }
+
+    private String configurationName(int configuration) {
+        return "configuration" + configuration;
+    }
+
+    private String coordinates(int module) {
+        return this.repository.group(module) + ":" + this.repository.name(module);
+    }
+
+    private String quote(Object value) {
+        return "'" + value.toString().replace("\\", "\\\\").replace("'", "\\'") + "'";
+    }
+
+    private void write(File file, String content) throws IOException {
+        file.getParentFile().mkdirs();
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(content);
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.dependencymanagement;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * Generates a synthetic Maven repository containing one or more boms and the modules that
+ * they manage. Each module depends on up to three modules with a higher index so that every
+ * module can be reached from module zero, and some of those dependencies, and some of the
+ * boms' managed dependencies, declare exclusions. The boms and modules can optionally
+ * inherit from a chain of parent poms, the root of which provides the version that the boms
+ * use for their managed dependencies.
+ *
+ * @author Andy Wilkinson
+ */
+public final class SyntheticMavenRepository {
+
+    private static final int GROUPS = 20;
+
+    private static final String VERSION = "1.0";
+
+    private final File root;
+
+    private final int size;
+
+    private final int boms;
+
+    private final int parentDepth;
+
+    /**
+     * Creates a new repository with the given {@code root} containing a bom that manages
+     * {@code size} modules.
+     *
+     * @param root the root directory of the repository
+     * @param size the number of modules
+     */
+    public SyntheticMavenRepository(File root, int size) {
+        this(root, size, 1, 0);
+    }
+
+    /**
+     * Creates a new repository with the given {@code root} containing {@code boms} boms
+     * that, between them, manage {@code size} modules. The boms and modules inherit from a
+     * chain of {@code parentDepth} parent poms.
+     *
+     * @param root the root directory of the repository
+     * @param size the number of modules
+     * @param boms the number of boms
+     * @param parentDepth the length of the chain of parent poms
+     */
+    public SyntheticMavenRepository(File root, int size, int boms, int parentDepth) {
+        this.root = root;
+        this.size = size;
+        this.boms = boms;
+        this.parentDepth = parentDepth;
+    }
+
+    public File getRoot() {
+        return this.root;
+    }
+
+    public int getSize() {
+        return this.size;
+    }
+
+    public int getBoms() {
+        return this.boms;
+    }
+
+    public int getParentDepth() {
+        return this.parentDepth;
+    }
+
+    public String getBomCoordinates() {
+        return getBomCoordinates(0);
+    }
+
+    public File getBomFile() {
+        return pomFile("benchmark", bomName(0));
+    }
+
+    /**
+     * Returns the coordinates of the bom with the given index. The bom manages the modules
+     * whose index modulo the number of boms is equal to the bom's index.
+     *
+     * @param bom the index of the bom
+     * @return the coordinates of the bom
+     */
+    public String getBomCoordinates(int bom) {
+        return "benchmark:" + bomName(bom) + ":" + VERSION;
+    }
+
+    private String bomName(int bom) {
+        return this.boms == 1 ? "bom-" + this.size : "bom-" + this.size + "-" + bom;
+    }
+
+    public String getRootModuleCoordinates() {
+        return group(0) + ":" + name(0) + ":" + VERSION;
+    }
+
+    public String group(int module) {
+        return "benchmark.group" + (module % GROUPS);
+    }
+
+    public String name(int module) {
+        return "module-" + module;
+    }
+
+    /**
+     * Writes the bom and the modules' poms to the repository.
+     *
+     * @throws IOException if a pom cannot be written
+     */
+    public void generate() throws IOException {
+        for (int i = 0; i < this.parentDepth; i++) {
+            writeParent(i);
+        }
+        for (int i = 0; i < this.boms; i++) {
+            writeBom(i);
+        }
+        for (int i = 0; i < this.size; i++) {
+            writeModule(i);
+        }
+    }
+
+    private void writeParent(int depth) throws IOException {
+        StringBuilder pom = startPom("benchmark", "parent-" + depth, "pom", depth - 1);
+        if (depth == 0) {
+            pom.append("    <properties>\n        <benchmark.version>").append(VERSION)
+                    .append("</benchmark.version>\n    </properties>\n");
+        }
+        write(pomFile("benchmark", "parent-" + depth), endPom(pom));
+    }
+
+    private void writeBom(int bom) throws IOException {
+        StringBuilder pom = startPom("benchmark", bomName(bom), "pom", this.parentDepth - 1);
+        pom.append("    <dependencyManagement>\n        <dependencies>\n");
+        String version = this.parentDepth > 0 ? "${benchmark.version}" : VERSION;
+        for (int i = bom; i < this.size; i += this.boms) {
+            appendDependency(pom, "            ", i, version, i % 10 == 0 ? 3 * i + 2 : -1);
+        }
+        pom.append("        </dependencies>\n    </dependencyManagement>\n");
+        write(pomFile("benchmark", bomName(bom)), endPom(pom));
+    }
+
+    private void writeModule(int module) throws IOException {
+        StringBuilder pom = startPom(group(module), name(module), "jar", this.parentDepth - 1);
+        pom.append("    <dependencies>\n");
+        int[] dependencies = { 2 * module + 1, 2 * module + 2, 3 * module + 1 };
+        for (int i = 0; i < dependencies.length; i++) {
+            if (dependencies[i] < this.size && (i < 2 || dependencies[i] > dependencies[1])) {
+                int exclusion = i == 0 && module % 7 == 0 ? 2 * dependencies[i] + 2 : -1;
+                appendDependency(pom, "        ", dependencies[i], VERSION, exclusion);
+            }
+        }
+        pom.append("    </dependencies>\n");
+        write(pomFile(group(module), name(module)), endPom(pom));
+    }
+
+    private StringBuilder startPom(String groupId, String artifactId, String packaging,
+            int parent) {
+        StringBuilder pom = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+                .append("<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n")
+                .append("    <modelVersion>4.0.0</modelVersion>\n");
+        if (parent >= 0) {
+            pom.append("    <parent>\n")
+                    .append("        <groupId>benchmark</groupId>\n")
+                    .append("        <artifactId>parent-").append(parent).append("</artifactId>\n")
+                    .append("        <version>").append(VERSION).append("</version>\n")
+                    .append("    </parent>\n");
+        }
+        return pom.append("    <groupId>").append(groupId).append("</groupId>\n")
+                .append("    <artifactId>").append(artifactId).append("</artifactId>\n")
+                .append("    <version>").append(VERSION).append("</version>\n")
+                .append("    <packaging>").append(packaging).append("</packaging>\n");
+    }
+
+    private String endPom(StringBuilder pom) {
+        return pom.append("</project>\n").toString();
+    }
+
+    private void appendDependency(StringBuilder pom, String indent, int module, String version,
+            int exclusion) {
+        pom.append(indent).append("<dependency>\n")
+                .append(indent).append("    <groupId>").append(group(module))
+                .append("</groupId>\n")
+                .append(indent).append("    <artifactId>").append(name(module))
+                .append("</artifactId>\n")
+                .append(indent).append("    <version>").append(version).append("</version>\n");
+        if (exclusion >= 0 && exclusion < this.size) {
+            pom.append(indent).append("    <exclusions>\n")
+                    .append(indent).append("        <exclusion>\n")
+                    .append(indent).append("            <groupId>").append(group(exclusion))
+                    .append("</groupId>\n")
+                    .append(indent).append("            <artifactId>").append(name(exclusion))
+                    .append("</artifactId>\n")
+                    .append(indent).append("        </exclusion>\n")
+                    .append(indent).append("    </exclusions>\n");
+        }
+        pom.append(indent).append("</dependency>\n");
+    }
+
+    private File pomFile(String groupId, String artifactId) {
+        File directory = new File(this.root, groupId.replace('.', '/') + "/" + artifactId +
+                "/" + VERSION);
+        return new File(directory, artifactId + "-" + VERSION + ".pom");
+    }
+
+    private void write(File file, String content) throws IOException {
+        file.getParentFile().mkdirs();
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(content);
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.dependencymanagement.exclusions;
+
+import io.spring.gradle.dependencymanagement.BenchmarkProject;
+import io.spring.gradle.dependencymanagement.SyntheticMavenRepository;
+import io.spring.gradle.dependencymanagement.VersionConfiguringAction;
+import io.spring.gradle.dependencymanagement.maven.PomProcessingExecutor;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.artifacts.result.ResolutionResult;
+import org.gradle.api.artifacts.result.ResolvedComponentResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the merging of {@link Exclusions} and the walk of a dependency graph that
+ * determines which of its components are not excluded.
+ *
+ * @author Andy Wilkinson
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExclusionsBenchmark {
+
+    @Param({ "100", "1000", "5000" })
+    private int managedEntries;
+
+    private BenchmarkProject project;
+
+    private Exclusions exclusions;
+
+    private ExclusionConfiguringAction exclusionConfiguringAction;
+
+    private ResolvedComponentResult root;
+
+    private Map<String, Exclusions> pomExclusions;
+
+    @Setup
+    public void setUp() throws IOException {
+        this.project = new BenchmarkProject(this.managedEntries);
+        SyntheticMavenRepository repository = this.project.getRepository();
+        this.exclusions = new Exclusions();
+        for (int i = 0; i < this.managedEntries; i++) {
+            this.exclusions.add(repository.group(i) + ":" + repository.name(i),
+                    Arrays.asList(repository.group(i + 1) + ":" + repository.name(i + 1),
+                            repository.group(i + 2) + ":" + repository.name(i + 2)));
+        }
+        Configuration configuration = this.project.getConfigurationContainer()
+                .newConfiguration(this.project.getProject().getDependencies()
+                        .create(repository.getRootModuleCoordinates()));
+        ResolutionResult resolutionResult = configuration.getIncoming().getResolutionResult();
+        this.root = resolutionResult.getRoot();
+        ExclusionResolver exclusionResolver = new ExclusionResolver(
+                this.project.getProject().getDependencies(),
+                this.project.getConfigurationContainer(),
+                this.project.getEffectiveModelBuilder(),
+                PomProcessingExecutor.forProject(this.project.getProject()));
+        this.pomExclusions = exclusionResolver.resolveExclusions(
+                resolutionResult.getAllComponents());
+        this.exclusionConfiguringAction = new ExclusionConfiguringAction(
+                this.project.getDependencyManagementExtension(),
+                this.project.getDependencyManagementContainer(),
+                this.project.getConfigurationContainer(), this.project.getConfiguration(),
+                exclusionResolver, new VersionConfiguringAction(this.project.getProject(),
+                        this.project.getDependencyManagementContainer(),
+                        this.project.getConfiguration()),
+                new ExcludedDependenciesCache(),
+                CoordinateInterner.forProject(this.project.getProject()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.project.delete();
+    }
+
+    @Benchmark
+    public Exclusions addAll() {
+        Exclusions merged = new Exclusions();
+        merged.addAll(this.exclusions);
+        return merged;
+    }
+
+    @Benchmark
+    public BitSet determineIncludedComponents() {
+        return this.exclusionConfiguringAction.determineIncludedComponents(this.root,
+                this.pomExclusions);
+    }
+
+}
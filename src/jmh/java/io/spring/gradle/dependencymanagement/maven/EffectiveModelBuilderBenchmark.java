@@ -0,0 +1,74 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.dependencymanagement.maven;
+
+import io.spring.gradle.dependencymanagement.BenchmarkProject;
+import io.spring.gradle.dependencymanagement.org.apache.maven.model.Model;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for building the effective model of a bom.
+ *
+ * @author Andy Wilkinson
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EffectiveModelBuilderBenchmark {
+
+    @Param({ "100", "1000", "5000" })
+    private int managedEntries;
+
+    private BenchmarkProject project;
+
+    private File bom;
+
+    @Setup
+    public void setUp() throws IOException {
+        this.project = new BenchmarkProject(this.managedEntries);
+        this.bom = this.project.getRepository().getBomFile();
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.project.delete();
+    }
+
+    @Benchmark
+    public Model buildModel() {
+        return this.project.getEffectiveModelBuilder().buildModel(this.bom);
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.dependencymanagement;
+
+import org.gradle.api.Project;
+import org.gradle.api.plugins.ExtraPropertiesExtension;
+
+/**
+ * Provides access to objects that are shared by every project in a build. The objects are
+ * held as extra properties of the root project so that they live exactly as long as the
+ * build does.
+ *
+ * @author Andy Wilkinson
+ */
+public final class BuildScope {
+
+    private static final String KEY_PREFIX = BuildScope.class.getName() + "@"
+            + Integer.toHexString(System.identityHashCode(BuildScope.class)) + ":";
+
+    private BuildScope() {
+
+    }
+
+    /**
+     * Returns the build-scoped object of the given {@code type}, using the given
+     * {@code factory} to create it if the build does not have one yet.
+     *
+     * @param project any project in the build
+     * @param type the type of the object
+     * @param factory the factory used to create the object
+     * @param <T> the type of the object
+     * @return the build-scoped object
+     */
+    public static <T> T get(Project project, Class<T> type, Factory<T> factory) {
+        Project rootProject = project.getRootProject();
+        String key = KEY_PREFIX + type.getName();
+        synchronized (rootProject) {
+            ExtraPropertiesExtension extraProperties = rootProject.getExtensions()
+                    .getExtraProperties();
+            if (extraProperties.has(key)) {
+                return type.cast(extraProperties.get(key));
+            }
+            T object = factory.create(rootProject);
+            extraProperties.set(key, object);
+            return object;
+        }
+    }
+
+    /**
+     * A factory for a build-scoped object.
+     *
+     * @param <T> the type of the object
+     */
+    public interface Factory<T> {
+
+        /**
+         * Creates the object for the build of the given {@code rootProject}.
+         *
+         * @param rootProject the root project of the build
+         * @return the object
+         */
+        T create(Project rootProject);
+
+    }
+
+}
@@ -16,16 +16,31 @@
 
 package io.spring.gradle.dependencymanagement
 
+import io.spring.gradle.dependencymanagement.exclusions.CoordinateInterner
 import io.spring.gradle.dependencymanagement.exclusions.Exclusions
+import io.spring.gradle.dependencymanagement.instrumentation.Instrumentation
+import io.spring.gradle.dependencymanagement.instrumentation.Phase
+import io.spring.gradle.dependencymanagement.lock.DependencyManagementLockFile
+import io.spring.gradle.dependencymanagement.lock.DependencyManagementLockTask
+import io.spring.gradle.dependencymanagement.lock.LockMode
 import io.spring.gradle.dependencymanagement.maven.EffectiveModelBuilder
-import io.spring.gradle.dependencymanagement.maven.ModelExclusionCollector
-import io.spring.gradle.dependencymanagement.org.apache.maven.model.Model
+import io.spring.gradle.dependencymanagement.maven.EffectivePom
+import io.spring.gradle.dependencymanagement.maven.ModelNotPrefetchedException
+import io.spring.gradle.dependencymanagement.maven.PomProcessingExecutor
 import org.gradle.api.GradleException
 import org.gradle.api.Project
 import org.gradle.api.artifacts.Configuration
 import org.gradle.api.artifacts.Dependency
+import org.gradle.api.artifacts.ModuleVersionIdentifier
+import org.gradle.api.artifacts.ResolvedArtifact
 import org.slf4j.Logger
 import org.slf4j.LoggerFactory
+
+import java.security.MessageDigest
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Future
+
 /**
  * Encapsulates dependency management information for a particular configuration in a Gradle project
  *
@@ -33,6 +48,7 @@ import org.slf4j.LoggerFactory
  */
 class DependencyManagement {
 
+
     private final Logger log = LoggerFactory.getLogger(DependencyManagement)
 
     private final Project project
@@ -43,19 +59,60 @@ class DependencyManagement {
 
     private final EffectiveModelBuilder effectiveModelBuilder
 
-    private boolean resolved
+    private final Instrumentation.Recorder recorder
+
+    private final CoordinateInterner interner
+
+    /**
+     * The lock file from which imported boms may be loaded, or {@code null}
+     */
+    DependencyManagementLockFile lockFile
+
+    /**
+     * The container of the configuration used to resolve the imported boms, or {@code null}
+     * if the imported boms should not be shared with other projects
+     */
+    DependencyManagementConfigurationContainer configurationContainer
 
-    private Map<String, String> versions = [:]
+    /**
+     * The number of imported boms that have been resolved, or {@code -1} if resolution has
+     * not happened. Written while holding the {@link #resolutionLock} and read without it,
+     * so that resolution happens once however many threads race to trigger it and threads
+     * that find it complete do not contend on the lock.
+     */
+    private volatile int resolvedBoms = -1
 
-    private Map<String, String> explicitVersions = [:]
+    private final Object resolutionLock = new Object()
 
-    private Exclusions explicitExclusions = new Exclusions()
+    /**
+     * The imports, possibly shared with other projects, or {@code null} if they have not
+     * been resolved
+     */
+    private ResolvedImports imports
 
-    private Exclusions allExclusions = new Exclusions()
+    /**
+     * Guards updates to the managed versions and exclusions. Rather than being modified, they
+     * are replaced with an updated copy while holding the lock so that configurations that
+     * are being resolved concurrently can read them without locking.
+     */
+    private final Object updateLock = new Object()
 
-    private Map bomDependencyManagement = [:] as LinkedHashMap
+    /**
+     * The explicit managed versions, which take precedence over those of the imports
+     */
+    private volatile Map<String, String> versions = [:]
 
-    private Properties bomProperties = new Properties()
+    /**
+     * The implicit managed versions, taken from the versions of declared dependencies,
+     * which take precedence over the explicit managed versions and those of the imports
+     */
+    private volatile Map<String, String> implicitVersions = [:]
+
+    private volatile Map<String, String> explicitVersions = [:]
+
+    private volatile Exclusions explicitExclusions = new Exclusions()
+
+    private volatile Exclusions allExclusions = new Exclusions()
 
     private List<ImportedBom> importedBoms = [];
 
@@ -70,53 +127,126 @@ class DependencyManagement {
         this.configuration = dependencyManagementConfiguration
         this.targetConfiguration = targetConfiguration
         this.effectiveModelBuilder = effectiveModelBuilder
+        this.recorder = Instrumentation.forProject(project).recorder(project.path,
+                targetConfiguration?.name)
+        this.interner = CoordinateInterner.forProject(project)
     }
 
     void importBom(String coordinates, Map<String, String> properties) {
         importedBoms << new ImportedBom(project.dependencies.create(coordinates + '@pom'), properties)
+        if (resolvedBoms >= 0) {
+            log.debug("Bom '{}' imported after resolution will be resolved incrementally",
+                    coordinates)
+        }
     }
 
     Map getImportedBoms() {
         resolveIfNecessary()
-        bomDependencyManagement
+        imports ? imports.bomDependencyManagement : [:]
     }
 
     Properties getImportedProperties() {
         resolveIfNecessary()
-        bomProperties
+        imports ? imports.bomProperties : new Properties()
     }
 
     void addManagedVersion(String group, String name, String version) {
-        versions[createKey(group, name)] = version
+        synchronized (updateLock) {
+            versions = copyWith(versions, createKey(group, name), version)
+        }
     }
 
-    void addImplicitManagedVersion(String group, String name, String version) {
-        addManagedVersion(group, name, version)
+    /**
+     * Adds an implicit managed version, returning {@code true} if it changed the managed
+     * versions. An implicit managed version takes precedence over an explicit managed
+     * version for the same dependency, irrespective of the order in which they were added.
+     *
+     * @param group the group of the dependency
+     * @param name the name of the dependency
+     * @param version the version of the dependency
+     * @return {@code true} if the managed versions changed, otherwise {@code false}
+     */
+    boolean addImplicitManagedVersion(String group, String name, String version) {
+        String key = createKey(group, name)
+        synchronized (updateLock) {
+            if (implicitVersions[key] == version) {
+                return false
+            }
+            implicitVersions = copyWith(implicitVersions, key, version)
+        }
+        true
     }
 
     void addExplicitManagedVersion(String group, String name, String version, List<String>
             exclusions) {
         def key = createKey(group, name)
-        explicitVersions[key] = version
-        explicitExclusions.add(key, exclusions)
-        allExclusions.add(key, exclusions)
-        addManagedVersion(group, name, version)
+        synchronized (updateLock) {
+            explicitExclusions = copyWith(explicitExclusions, key, exclusions)
+            allExclusions = copyWith(allExclusions, key, exclusions)
+            explicitVersions = copyWith(explicitVersions, key, version)
+            versions = copyWith(versions, key, version)
+        }
+    }
+
+    private static Map<String, String> copyWith(Map<String, String> versions, String key,
+            String version) {
+        Map<String, String> copy = new LinkedHashMap<String, String>(versions)
+        copy[key] = version
+        copy
+    }
+
+    private static Exclusions copyWith(Exclusions exclusions, String key,
+            Collection<String> exclusionsForKey) {
+        Exclusions copy = new Exclusions()
+        copy.addAll(exclusions)
+        copy.add(key, exclusionsForKey)
+        copy
     }
 
     String getManagedVersion(String group, String name) {
         resolveIfNecessary()
-        versions[createKey(group, name)]
+        String key = createKey(group, name)
+        Map<String, String> currentImplicitVersions = implicitVersions
+        if (currentImplicitVersions.containsKey(key)) {
+            return currentImplicitVersions[key]
+        }
+        Map<String, String> currentVersions = versions
+        currentVersions.containsKey(key) ? currentVersions[key] :
+                imports?.versionTable?.get(group, name)
     }
 
     Map getManagedVersions() {
+        managedVersionTable.asMap()
+    }
+
+    /**
+     * Returns a table of the managed versions in which the explicit and implicit versions
+     * are layered on top of the versions of the imported boms, sharing the latter rather
+     * than copying them.
+     *
+     * @return the table of managed versions
+     */
+    ManagedVersionTable getManagedVersionTable() {
         resolveIfNecessary()
-        return new HashMap(versions)
+        buildManagedVersionTable()
+    }
+
+    private ManagedVersionTable buildManagedVersionTable() {
+        Map<String, String> overrides = versions
+        Map<String, String> currentImplicitVersions = implicitVersions
+        if (currentImplicitVersions) {
+            overrides = new LinkedHashMap<String, String>(overrides)
+            overrides.putAll(currentImplicitVersions)
+        }
+        (imports?.versionTable ?: ManagedVersionTable.empty(interner)).withOverrides(overrides)
     }
 
     void explicitManagedVersions(Closure closure) {
-        explicitVersions.each { key, value ->
+        Map<String, String> currentVersions = explicitVersions
+        Exclusions currentExclusions = explicitExclusions
+        currentVersions.each { key, value ->
             def (groupId, artifactId) = key.split(':')
-            closure.call(groupId, artifactId, value, explicitExclusions.exclusionsForDependency(key))
+            closure.call(groupId, artifactId, value, currentExclusions.exclusionsForDependency(key))
         }
     }
 
@@ -130,13 +260,31 @@ class DependencyManagement {
     }
 
     private void resolveIfNecessary() {
-        if (!resolved) {
+        if (resolvedBoms == importedBoms.size()) {
+            return
+        }
+        synchronized (resolutionLock) {
+            int resolvedCount = resolvedBoms
+            int importedCount = importedBoms.size()
+            if (resolvedCount == importedCount) {
+                return
+            }
+            long start = recorder.start()
             try {
-                resolved = true
-                resolve()
+                if (!resolveFromLockFile()) {
+                    if (resolvedCount < 0) {
+                        resolve()
+                    }
+                    else {
+                        resolveIncrementally(importedBoms.subList(resolvedCount, importedCount))
+                    }
+                }
             } catch (Exception ex) {
                 throw new GradleException("Failed to resolve imported Maven boms:" +
                         " ${getRootCause(ex).message}", ex)
+            } finally {
+                resolvedBoms = importedCount
+                recorder.record(Phase.BOM_RESOLUTION, start)
             }
         }
     }
@@ -157,37 +305,284 @@ class DependencyManagement {
         else {
             log.info("Resolving global dependency management for project '{}'", project.name)
         }
-        def existingVersions = [:]
-        existingVersions << versions
+        String key = sharedImportsKey()
+        if (key) {
+            boolean shared = true
+            apply(ImportsRegistry.forProject(project).get(key, { int index, String name ->
+                effectiveModelBuilder.interpolationValue(name, importedBoms[index].bomProperties)
+            } as ImportsRegistry.PropertySource, { List<Map<String, String>> interpolationInputs ->
+                shared = false
+                resolveImports(interpolationInputs)
+            } as ImportsRegistry.Resolver))
+            if (shared) {
+                log.debug("Using imports shared by another project for '{}'", key)
+                recorder.count(Phase.BOM_RESOLUTION, 'shared')
+            }
+        }
+        else {
+            apply(resolveImports().asUnmodifiable(interner))
+        }
+    }
 
-        log.debug("Preserving existing versions: {}", existingVersions)
+    /**
+     * Resolves the given boms, which were imported after the existing imports were resolved,
+     * and layers them on top of the existing imports so that only the new boms are
+     * processed and their versions take precedence as if they had been imported with the
+     * others.
+     */
+    private void resolveIncrementally(List<ImportedBom> boms) {
+        log.info("Resolving {} bom(s) imported after dependency management was resolved",
+                boms.size())
+        ResolvedImports added = resolveImports(new ArrayList(boms), newBomConfiguration(boms),
+                null)
+        apply(imports ? imports.layeredWith(added, interner) : added.asUnmodifiable(interner))
+        recorder.count(Phase.BOM_RESOLUTION, 'incremental')
+    }
 
-        importedBoms.each { configuration.dependencies.add(it.dependency) }
+    private Configuration newBomConfiguration(List<ImportedBom> boms) {
+        Dependency[] dependencies = boms.collect { it.dependency } as Dependency[]
+        configurationContainer ? configurationContainer.newConfiguration(dependencies) :
+                project.configurations.detachedConfiguration(dependencies)
+    }
 
-        Map<String, File> artifacts = configuration.resolvedConfiguration.resolvedArtifacts.collectEntries {
-            [("${it.moduleVersion.id.group}:${it.moduleVersion.id.name}" as String) : it.file]}
+    /**
+     * Returns the key with which the imports are shared with other projects using the
+     * {@link ImportsRegistry}, or {@code null} if they cannot be shared. Imports cannot be
+     * shared when a bom's version is dynamic or when a resolution strategy may change the
+     * boms to which the imports resolve.
+     */
+    private String sharedImportsKey() {
+        if (!importedBoms || !configurationContainer ||
+                configurationContainer.resolutionStrategyConfigured ||
+                !ImportsRegistry.forProject(project).enabled) {
+            return null
+        }
+        if (importedBoms.any { !it.dependency.version || Versions.isDynamic(it.dependency.version) }) {
+            return null
+        }
+        importedBoms.collect { ImportedBom bom ->
+            "${bom.dependency.group}:${bom.dependency.name}:${bom.dependency.version}" +
+                    new TreeMap(bom.bomProperties ?: [:])
+        }.join(' ')
+    }
 
-        importedBoms.each {
-            File file = artifacts["${it.dependency.group}:${it.dependency.name}" as String]
-            log.debug("Processing '{}'", file)
-            Model effectiveModel = this.effectiveModelBuilder.buildModel(file, it.bomProperties)
-            if (effectiveModel.dependencyManagement?.dependencies) {
-                String bomCoordinates = "${effectiveModel.groupId}:${effectiveModel.artifactId}:${effectiveModel.version}"
-                effectiveModel.dependencyManagement.dependencies.each { dependency ->
-                    versions["$dependency.groupId:$dependency.artifactId" as String] = dependency.version
-                }
-                bomDependencyManagement[bomCoordinates] = effectiveModel.dependencyManagement.dependencies
-                allExclusions.addAll(
-                        new ModelExclusionCollector().collectExclusions(effectiveModel))
+    private boolean resolveFromLockFile() {
+        LockMode lockMode = project.extensions.findByType(DependencyManagementExtension)?.lockMode
+        if (!lockMode || lockMode == LockMode.DISABLED || !lockFile || !importedBoms) {
+            return false
+        }
+        String description = targetConfiguration ?
+                "configuration '${targetConfiguration.name}' of project '${project.name}'" :
+                "project '${project.name}'"
+        ResolvedImports imports = lockFile.get(targetConfiguration?.name)
+        String problem = null
+        if (imports == null) {
+            problem = "does not contain the imported boms of $description"
+        }
+        else if (imports.fingerprint != lockFingerprint(imports.interpolationInputs != null ?
+                imports.interpolationInputs : imports.bomProperties.stringPropertyNames())) {
+            problem = "is out of date for $description"
+        }
+        if (problem) {
+            String message = "Lock file ${lockFile.file} $problem. Run the " +
+                    "${DependencyManagementLockTask.NAME} task to update it"
+            if (lockMode == LockMode.STRICT) {
+                throw new GradleException(message)
             }
-            if (effectiveModel.properties) {
-                bomProperties.putAll(effectiveModel.properties)
+            log.warn("{}. Resolving the imported boms instead", message)
+            return false
+        }
+        log.info("Using the imported boms of {} from {}", description, lockFile.file)
+        recorder.count(Phase.BOM_RESOLUTION, 'locked')
+        apply(imports.asUnmodifiable(interner))
+        true
+    }
+
+    private void apply(ResolvedImports imports) {
+        log.debug("Preserving existing versions: {}", versions)
+
+        this.imports = imports
+        synchronized (updateLock) {
+            Exclusions exclusions = new Exclusions()
+            exclusions.addAll(allExclusions)
+            exclusions.addAll(imports.exclusions)
+            allExclusions = exclusions
+        }
+
+        if (log.infoEnabled) {
+            log.info("Resolved versions: {}", buildManagedVersionTable().asMap())
+        }
+    }
+
+    boolean hasImportedBoms() {
+        !importedBoms.empty
+    }
+
+    /**
+     * Resolves the imported boms, returning the dependency management that they provide
+     * merged in the order in which they were imported. Any lock file is ignored.
+     *
+     * @return the resolved imports
+     */
+    ResolvedImports resolveImports() {
+        resolveImports(null)
+    }
+
+    private ResolvedImports resolveImports(List<Map<String, String>> interpolationInputs) {
+        Configuration bomConfiguration = configuration
+        if (configuration.state == Configuration.State.UNRESOLVED) {
+            importedBoms.each { configuration.dependencies.add(it.dependency) }
+        }
+        else if (configuration.dependencies.size() != importedBoms.size()) {
+            bomConfiguration = newBomConfiguration(importedBoms)
+        }
+        resolveImports(importedBoms, bomConfiguration, interpolationInputs)
+    }
+
+    private ResolvedImports resolveImports(List<ImportedBom> boms, Configuration configuration,
+            List<Map<String, String>> interpolationInputs) {
+        Map<String, ResolvedArtifact> artifacts = configuration.resolvedConfiguration.resolvedArtifacts.collectEntries {
+            [("${it.moduleVersion.id.group}:${it.moduleVersion.id.name}" as String) : it]}
+
+        List<ResolvedArtifact> bomArtifacts = boms.collect {
+            artifacts["${it.dependency.group}:${it.dependency.name}" as String]
+        }
+        effectiveModelBuilder.prefetchReferencedPoms(bomArtifacts.findAll().collectEntries {
+            ModuleVersionIdentifier id = it.moduleVersion.id
+            [("${id.group}:${id.name}:${id.version}" as String): it.file]
+        })
+
+        List<EffectivePom> effectivePoms = buildEffectivePoms(boms, bomArtifacts,
+                interpolationInputs)
+
+        ResolvedImports imports = new ResolvedImports()
+        effectivePoms.each { EffectivePom effectivePom ->
+            imports.boms << effectivePom.coordinates
+            if (effectivePom.managedDependencies) {
+                imports.versions.putAll(effectivePom.managedVersions)
+                imports.bomDependencyManagement[effectivePom.coordinates] =
+                        effectivePom.managedDependencies
+                imports.exclusions.addAll(effectivePom.exclusions)
             }
+            imports.bomProperties.putAll(effectivePom.properties)
         }
+        imports
+    }
 
-        versions << existingVersions
+    /**
+     * Resolves the imported boms for writing to a lock file, fingerprinting the declarations
+     * from which they were resolved and the properties that were consulted when they were
+     * interpolated so that a stale lock file can be detected.
+     *
+     * @return the resolved imports with their fingerprint
+     */
+    ResolvedImports lockImports() {
+        List<Map<String, String>> interpolationInputs = []
+        ResolvedImports imports = resolveImports(interpolationInputs)
+        imports.interpolationInputs = new TreeSet<String>()
+        interpolationInputs.each { Map<String, String> inputs ->
+            imports.interpolationInputs.addAll(inputs.keySet())
+        }
+        imports.fingerprint = lockFingerprint(imports.interpolationInputs)
+        imports
+    }
+
+    /**
+     * Returns a fingerprint of the imported boms, the properties with which they are
+     * imported, the explicitly managed versions, and the current values of the project or
+     * system properties with the given names that can override the boms' properties.
+     */
+    private String lockFingerprint(Collection<String> propertyNames) {
+        MessageDigest digest = MessageDigest.getInstance('SHA-256')
+        Closure update = { String value ->
+            digest.update(value.getBytes('UTF-8'))
+            digest.update((byte) 0)
+        }
+        importedBoms.each { ImportedBom bom ->
+            update("import ${bom.dependency.group}:${bom.dependency.name}:${bom.dependency.version}")
+            new TreeMap(bom.bomProperties ?: [:]).each { name, value -> update("$name=$value") }
+        }
+        Map<String, String> currentVersions = explicitVersions
+        Exclusions currentExclusions = explicitExclusions
+        new TreeMap(currentVersions).each { String key, String version ->
+            update("version $key:$version ${currentExclusions.exclusionsForDependency(key)?.sort()}")
+        }
+        new TreeSet(propertyNames).each { String name ->
+            update("property $name=${propertyValue(name)}")
+        }
+        digest.digest().encodeHex().toString()
+    }
+
+    private String propertyValue(String name) {
+        project.hasProperty(name) ? "'${project.property(name)}'" :
+                System.getProperty(name) != null ? "'${System.getProperty(name)}'" : 'unset'
+    }
+
+    /**
+     * Builds the effective poms of the given boms, returning them in the order in which
+     * the boms were imported. When the project's {@code pomProcessingParallelism} allows it,
+     * the effective poms are built concurrently so that resolving the parents of one bom
+     * does not delay the processing of the others. The build's pom processing threads do
+     * not use the project, with a bom that needs a pom that has not been prefetched, such
+     * as a bom that it imports using a property for the version, being processed again on
+     * the calling thread. When {@code interpolationInputs} is not
+     * {@code null}, the interpolation inputs of each bom are added to it in the same order.
+     */
+    private List<EffectivePom> buildEffectivePoms(List<ImportedBom> boms,
+            List<ResolvedArtifact> artifacts, List<Map<String, String>> interpolationInputs) {
+        List<Map<String, String>> inputs = artifacts.collect { [:] as Map<String, String> }
+        interpolationInputs?.addAll(inputs)
+        List<List> tasks = [boms, artifacts, inputs].transpose()
+        int parallelism = Math.min(determinePomProcessingParallelism(), artifacts.size())
+        if (parallelism <= 1) {
+            return tasks.collect { ImportedBom bom, ResolvedArtifact artifact,
+                    Map<String, String> bomInputs ->
+                buildEffectivePom(effectiveModelBuilder, bom, artifact, bomInputs)
+            }
+        }
+        log.debug("Processing {} boms using {} threads", artifacts.size(), parallelism)
+        EffectiveModelBuilder concurrentModelBuilder = effectiveModelBuilder.forConcurrentUse()
+        List<Callable<EffectivePom>> callables = tasks.collect { ImportedBom bom,
+                ResolvedArtifact artifact, Map<String, String> bomInputs ->
+            ({
+                buildEffectivePom(concurrentModelBuilder, bom, artifact, bomInputs)
+            } as Callable<EffectivePom>)
+        }
+        List<Future<EffectivePom>> futures = PomProcessingExecutor.forProject(project)
+                .submit(callables, parallelism)
+        try {
+            [futures, tasks].transpose().collect { Future<EffectivePom> future, List task ->
+                try {
+                    concurrentModelBuilder.await(future)
+                } catch (ExecutionException ex) {
+                    if (!(ex.cause instanceof ModelNotPrefetchedException)) {
+                        throw ex.cause
+                    }
+                    log.debug("Processing '{}' on the calling thread: {}", task[1].file,
+                            ex.cause.message)
+                    buildEffectivePom(effectiveModelBuilder, task[0], task[1], task[2])
+                }
+            }
+        } finally {
+            futures*.cancel(true)
+        }
+    }
+
+    private EffectivePom buildEffectivePom(EffectiveModelBuilder effectiveModelBuilder,
+            ImportedBom bom, ResolvedArtifact artifact, Map<String, String> interpolationInputs) {
+        log.debug("Processing '{}'", artifact.file)
+        ModuleVersionIdentifier id = artifact.moduleVersion.id
+        EffectivePom effectivePom = effectiveModelBuilder.buildEffectivePom(
+                "${id.group}:${id.name}:${id.version}", artifact.file, bom.bomProperties,
+                interpolationInputs)
+        if (effectivePom == null) {
+            throw new GradleException("Processing of ${artifact.file} failed")
+        }
+        effectivePom
+    }
 
-        log.info("Resolved versions: {}", versions)
+    private int determinePomProcessingParallelism() {
+        project.extensions.findByType(DependencyManagementExtension)?.pomProcessingParallelism ?: 1
     }
 
     private class ImportedBom {
@@ -24,7 +24,8 @@ import org.gradle.api.artifacts.Dependency
 
 /**
  * A container for {@link Configuration Configurations} created by the dependency management plugin
- * that aren't part of the project's configurations.
+ * that aren't part of the project's configurations. Configurations can be created by
+ * concurrent threads.
  *
  * @author Andy Wilkinson
  */
@@ -34,6 +35,8 @@ class DependencyManagementConfigurationContainer {
 
     private final ConfigurationContainer delegate
 
+    private boolean resolutionStrategyConfigured
+
     DependencyManagementConfigurationContainer(Project project) {
         this.delegate = project.configurations
         this.configurations = project.container(Configuration)
@@ -43,7 +46,8 @@ class DependencyManagementConfigurationContainer {
         return this.newConfiguration(null, dependencies)
     }
 
-    Configuration newConfiguration(ConfigurationConfigurer configurer, Dependency... dependencies) {
+    synchronized Configuration newConfiguration(ConfigurationConfigurer configurer,
+            Dependency... dependencies) {
         Configuration configuration = delegate.detachedConfiguration(dependencies)
         if (configurer) {
             configurer.configure(configuration)
@@ -52,12 +56,24 @@ class DependencyManagementConfigurationContainer {
         return configuration
     }
 
-    void resolutionStrategy(Closure closure) {
+    synchronized void resolutionStrategy(Closure closure) {
+        this.resolutionStrategyConfigured = true
         this.configurations.all { Configuration configuration ->
             configuration.resolutionStrategy closure
         }
     }
 
+    /**
+     * Returns whether a resolution strategy has been configured for the configurations in
+     * this container, in which case the artifacts that they resolve to may differ from those
+     * of another project's configurations with the same dependencies
+     *
+     * @return {@code true} if a resolution strategy has been configured
+     */
+    boolean isResolutionStrategyConfigured() {
+        this.resolutionStrategyConfigured
+    }
+
     static interface ConfigurationConfigurer {
 
         void configure(Configuration configuration)
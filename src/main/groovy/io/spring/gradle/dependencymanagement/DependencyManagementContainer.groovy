@@ -17,12 +17,17 @@
 package io.spring.gradle.dependencymanagement
 
 import io.spring.gradle.dependencymanagement.exclusions.Exclusions
+import io.spring.gradle.dependencymanagement.lock.DependencyManagementLockFile
 import io.spring.gradle.dependencymanagement.maven.EffectiveModelBuilder
 import org.gradle.api.Project
 import org.gradle.api.artifacts.Configuration
+import org.gradle.api.artifacts.ModuleDependency
 import org.slf4j.Logger
 import org.slf4j.LoggerFactory
 
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentMap
+
 /**
  * Container object for a Gradle build project's dependency management, handling the project's global and
  * configuration-specific dependency management
@@ -40,58 +45,97 @@ class DependencyManagementContainer {
 
     final Project project
 
-    private final Map<Configuration, DependencyManagement> configurationDependencyManagement = [:]
+    final DependencyManagementLockFile lockFile
+
+    private final ConcurrentMap<Configuration, DependencyManagement> configurationDependencyManagement =
+            new ConcurrentHashMap<Configuration, DependencyManagement>()
+
+    private final ConcurrentMap<Configuration, HierarchyTable> managedVersionTables =
+            new ConcurrentHashMap<Configuration, HierarchyTable>()
+
+    private volatile ManagedVersionTable globalManagedVersionTable
 
     DependencyManagementContainer(Project project,
             DependencyManagementConfigurationContainer configurationContainer,
             EffectiveModelBuilder effectiveModelBuilder) {
         this.project = project
         this.configurationContainer = configurationContainer
+        this.lockFile = new DependencyManagementLockFile(project.file(
+                DependencyManagementLockFile.FILE_NAME))
         this.globalDependencyManagement = new DependencyManagement(this.project,
                 configurationContainer.newConfiguration(), effectiveModelBuilder)
+        this.globalDependencyManagement.lockFile = this.lockFile
+        this.globalDependencyManagement.configurationContainer = configurationContainer
         this.effectiveModelBuilder = effectiveModelBuilder
     }
 
     void addImplicitManagedVersion(configuration, String group, String name, String version) {
-        dependencyManagementForConfiguration(configuration).addImplicitManagedVersion(group,
-                name, version)
+        if (dependencyManagementForConfiguration(configuration).addImplicitManagedVersion(group,
+                name, version)) {
+            invalidateManagedVersionTables(configuration)
+        }
+    }
+
+    /**
+     * Adds the versions of the given {@code dependencies} as implicit managed versions of
+     * the given {@code configuration}. The managed version tables that use the
+     * configuration are invalidated once, and only if the managed versions changed.
+     *
+     * @param configuration the configuration
+     * @param dependencies the dependencies
+     */
+    void addImplicitManagedVersions(Configuration configuration,
+            Collection<ModuleDependency> dependencies) {
+        DependencyManagement dependencyManagement =
+                dependencyManagementForConfiguration(configuration)
+        boolean changed = false
+        dependencies.each { ModuleDependency dependency ->
+            changed = dependencyManagement.addImplicitManagedVersion(dependency.group,
+                    dependency.name, dependency.version) || changed
+        }
+        if (changed) {
+            invalidateManagedVersionTables(configuration)
+        }
     }
 
     void addExplicitManagedVersion(configuration, String group, String name, String version,
             List<String> exclusions) {
         dependencyManagementForConfiguration(configuration).addExplicitManagedVersion(group,
                 name, version, exclusions)
+        invalidateManagedVersionTables(configuration)
     }
 
     void importBom(Configuration configuration, String coordinates, Map<String, String> properties) {
         dependencyManagementForConfiguration(configuration).importBom(coordinates, properties)
+        invalidateManagedVersionTables(configuration)
     }
 
     String getManagedVersion(Configuration configuration, String group, String name) {
-        String version = null
-        if (configuration) {
-            version = configuration.hierarchy.findResult {
-                def managedVersion =
-                        dependencyManagementForConfiguration(it).getManagedVersion(group, name)
-                if (managedVersion) {
-                    log.debug(
-                            "Found managed version '{}' for dependency '{}:{}' in dependency management for configuration '{}'",
-                            managedVersion, group, name, it.name)
-                }
-                managedVersion
-            }
-        }
-        if (version == null) {
-            version = globalDependencyManagement.getManagedVersion(group, name)
-            if (version) {
-                log.debug(
-                        "Found managed version '{}' for dependency '{}:{}' in global dependency management",
-                        version, group, name)
-            }
+        String version = managedVersionTable(configuration).get(group, name)
+        if (version != null) {
+            log.debug(
+                    "Found managed version '{}' for dependency '{}:{}' in dependency management for configuration '{}'",
+                    version, group, name, configuration ? configuration.name : 'global')
         }
         version
     }
 
+    /**
+     * Discards the flattened view of the managed versions for the given {@code configuration}
+     * if the configuration's hierarchy has changed since the view was built, so that it is
+     * rebuilt from the current hierarchy when it is next used. Changes to the dependency
+     * management of the configurations in the hierarchy invalidate the view as they are
+     * made.
+     *
+     * @param configuration the configuration
+     */
+    void configurationResolving(Configuration configuration) {
+        HierarchyTable table = managedVersionTables.get(configuration)
+        if (table != null && table.hierarchy != new ArrayList(configuration.hierarchy)) {
+            managedVersionTables.remove(configuration, table)
+        }
+    }
+
     Exclusions getExclusions(Configuration configuration) {
         Exclusions exclusions = new Exclusions()
         if (configuration) {
@@ -114,23 +158,73 @@ class DependencyManagementContainer {
         properties
     }
 
-    def managedVersionsForConfiguration(Configuration configuration) {
+    Map<String, String> managedVersionsForConfiguration(Configuration configuration) {
         managedVersionsForConfiguration(configuration, true)
     }
 
-    def managedVersionsForConfiguration(Configuration configuration, boolean inherited) {
+    Map<String, String> managedVersionsForConfiguration(Configuration configuration, boolean inherited) {
         if (inherited) {
-            def managedVersions = dependencyManagementForConfiguration(null).managedVersions
-            if (configuration) {
-                new ArrayList(configuration.hierarchy).reverseEach { Configuration c ->
-                    managedVersions.putAll(dependencyManagementForConfiguration(c).managedVersions)
-                }
-            }
-            return managedVersions
+            return managedVersionTable(configuration).asMap()
         }
         dependencyManagementForConfiguration(configuration).managedVersions
     }
 
+    /**
+     * Calls the given {@code closure} with a {@code null} configuration and the global
+     * dependency management and then with each configuration that has its own dependency
+     * management and that dependency management
+     *
+     * @param closure the closure to call
+     */
+    void eachDependencyManagement(Closure closure) {
+        closure.call(null, globalDependencyManagement)
+        configurationDependencyManagement.each { configuration, dependencyManagement ->
+            closure.call(configuration, dependencyManagement)
+        }
+    }
+
+    private ManagedVersionTable managedVersionTable(Configuration configuration) {
+        if (!configuration) {
+            ManagedVersionTable globalTable = globalManagedVersionTable
+            if (globalTable == null) {
+                globalTable = globalDependencyManagement.managedVersionTable
+                globalManagedVersionTable = globalTable
+            }
+            return globalTable
+        }
+        HierarchyTable hierarchyTable = managedVersionTables.get(configuration)
+        if (hierarchyTable == null) {
+            List<Configuration> hierarchy = new ArrayList(configuration.hierarchy)
+            ManagedVersionTable table = managedVersionTable(null)
+            hierarchy.reverseEach { Configuration c ->
+                table = table.withOverrides(dependencyManagementForConfiguration(c).managedVersions)
+            }
+            hierarchyTable = new HierarchyTable(table, hierarchy)
+            hierarchyTable = managedVersionTables.putIfAbsent(configuration, hierarchyTable) ?:
+                    hierarchyTable
+        }
+        hierarchyTable.table
+    }
+
+    /**
+     * Discards the managed version tables that are affected by a change to the dependency
+     * management of the given {@code configuration}: every table when the global dependency
+     * management has changed, otherwise only the tables of the configurations whose
+     * hierarchy contains the configuration.
+     */
+    private void invalidateManagedVersionTables(Configuration configuration) {
+        if (!configuration) {
+            globalManagedVersionTable = null
+            managedVersionTables.clear()
+            return
+        }
+        Iterator<HierarchyTable> tables = managedVersionTables.values().iterator()
+        while (tables.hasNext()) {
+            if (tables.next().hierarchy.contains(configuration)) {
+                tables.remove()
+            }
+        }
+    }
 
     private DependencyManagement dependencyManagementForConfiguration(
             Configuration configuration) {
@@ -139,14 +233,38 @@ class DependencyManagementContainer {
         }
         else {
             DependencyManagement dependencyManagement = configurationDependencyManagement.get(configuration)
-            if (!dependencyManagement) {
-                Configuration dependencyManagementConfiguration = this.configurationContainer.newConfiguration()
-                dependencyManagement = new DependencyManagement(project, configuration,
-                        dependencyManagementConfiguration, effectiveModelBuilder)
-                configurationDependencyManagement.put(configuration, dependencyManagement)
-            }
-            dependencyManagement
+            dependencyManagement ?: createDependencyManagement(configuration)
         }
     }
 
+    private synchronized DependencyManagement createDependencyManagement(
+            Configuration configuration) {
+        DependencyManagement dependencyManagement = configurationDependencyManagement.get(configuration)
+        if (!dependencyManagement) {
+            Configuration dependencyManagementConfiguration = this.configurationContainer.newConfiguration()
+            dependencyManagement = new DependencyManagement(project, configuration,
+                    dependencyManagementConfiguration, effectiveModelBuilder)
+            dependencyManagement.lockFile = lockFile
+            dependencyManagement.configurationContainer = configurationContainer
+            configurationDependencyManagement.put(configuration, dependencyManagement)
+        }
+        dependencyManagement
+    }
+
+    /**
+     * A configuration's managed version table and the hierarchy from which it was built
+     */
+    private static final class HierarchyTable {
+
+        private final ManagedVersionTable table
+
+        private final List<Configuration> hierarchy
+
+        private HierarchyTable(ManagedVersionTable table, List<Configuration> hierarchy) {
+            this.table = table
+            this.hierarchy = hierarchy
+        }
+
+    }
+
 }
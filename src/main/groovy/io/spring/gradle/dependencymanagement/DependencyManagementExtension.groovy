@@ -16,7 +16,10 @@
 
 package io.spring.gradle.dependencymanagement
 
+import io.spring.gradle.dependencymanagement.exclusions.ExclusionApplicationStrategy
+import io.spring.gradle.dependencymanagement.lock.LockMode
 import io.spring.gradle.dependencymanagement.maven.PomDependencyManagementConfigurer
+import io.spring.gradle.dependencymanagement.maven.PomFragmentCache
 import org.gradle.api.Project
 import org.gradle.api.artifacts.Configuration
 
@@ -37,6 +40,33 @@ class DependencyManagementExtension {
 
 	boolean overriddenByDependencies = true
 
+    /**
+     * Whether the dependencies removed by Maven exclusions should be determined once and
+     * then shared by every configuration with the same dependencies and dependency
+     * management, rather than being determined separately for each configuration
+     */
+    boolean shareExclusionsBetweenConfigurations = false
+
+    /**
+     * The maximum number of poms whose effective models are built concurrently while
+     * resolving imported boms and Maven exclusions. A value of {@code 1} processes the poms
+     * one at a time.
+     */
+    int pomProcessingParallelism = 1
+
+    /**
+     * The strategy used to apply the exclusions gleaned from Maven metadata to a
+     * configuration's dependencies
+     */
+    ExclusionApplicationStrategy exclusionApplicationStrategy =
+            ExclusionApplicationStrategy.ALL_DEPENDENCIES
+
+    /**
+     * How the project's dependency management lock file is used when resolving imported
+     * boms
+     */
+    LockMode lockMode = LockMode.DISABLED
+
     PomCustomizationConfiguration generatedPomCustomization = new PomCustomizationConfiguration()
 
     DependencyManagementExtension(DependencyManagementContainer dependencyManagementContainer,
@@ -59,6 +89,10 @@ class DependencyManagementExtension {
         configurationContainer.resolutionStrategy closure
     }
 
+    void setLockMode(String lockMode) {
+        this.lockMode = LockMode.valueOf(lockMode.toUpperCase())
+    }
+
     void generatedPomCustomization(Closure closure) {
         closure.delegate = this.generatedPomCustomization
         closure.resolveStrategy = Closure.DELEGATE_FIRST
@@ -66,12 +100,13 @@ class DependencyManagementExtension {
     }
 
     def getManagedVersions() {
-        dependencyManagementContainer.managedVersionsForConfiguration(null)
+        new HashMap(dependencyManagementContainer.managedVersionsForConfiguration(null))
     }
 
     def getPomConfigurer() {
         new PomDependencyManagementConfigurer(dependencyManagementContainer
-                .globalDependencyManagement, generatedPomCustomization)
+                .globalDependencyManagement, generatedPomCustomization,
+                PomFragmentCache.forProject(project))
     }
 
     Properties getImportedProperties() {
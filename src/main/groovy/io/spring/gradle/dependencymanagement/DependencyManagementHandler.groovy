@@ -64,6 +64,6 @@ class DependencyManagementHandler {
     }
 
     private def managedVersions(boolean inherited) {
-        this.container.managedVersionsForConfiguration(configuration, inherited)
+        new HashMap(this.container.managedVersionsForConfiguration(configuration, inherited))
     }
 }
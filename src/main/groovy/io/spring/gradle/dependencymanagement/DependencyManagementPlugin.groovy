@@ -16,15 +16,19 @@
 
 package io.spring.gradle.dependencymanagement
 
+import io.spring.gradle.dependencymanagement.exclusions.CoordinateInterner
+import io.spring.gradle.dependencymanagement.exclusions.ExcludedDependenciesCache
 import io.spring.gradle.dependencymanagement.exclusions.ExclusionConfiguringAction
 import io.spring.gradle.dependencymanagement.exclusions.ExclusionResolver
+import io.spring.gradle.dependencymanagement.lock.DependencyManagementLockTask
 import io.spring.gradle.dependencymanagement.maven.EffectiveModelBuilder
+import io.spring.gradle.dependencymanagement.maven.PomCacheMaintenanceTask
 import io.spring.gradle.dependencymanagement.maven.PomDependencyManagementConfigurer
+import io.spring.gradle.dependencymanagement.maven.PomProcessingExecutor
 import io.spring.gradle.dependencymanagement.report.DependencyManagementReportTask
 import org.gradle.api.Plugin
 import org.gradle.api.Project
 import org.gradle.api.artifacts.Configuration
-import org.gradle.api.artifacts.ModuleDependency
 import org.gradle.api.artifacts.maven.PomFilterContainer
 import org.gradle.api.internal.ClosureBackedAction
 import org.gradle.api.publish.PublishingExtension
@@ -62,34 +66,37 @@ class DependencyManagementPlugin implements Plugin<Project> {
             task.dependencyManagement = dependencyManagementContainer
         }
 
+        project.tasks.create(DependencyManagementLockTask.NAME, DependencyManagementLockTask) { task ->
+            task.dependencyManagement = dependencyManagementContainer
+        }
+
+        project.tasks.create("clearDependencyManagementPomCache", PomCacheMaintenanceTask) { task ->
+            task.clear = true
+        }
+
+        project.tasks.create("verifyDependencyManagementPomCache", PomCacheMaintenanceTask) { task ->
+            task.clear = false
+        }
+
+        ImplicitManagedVersions implicitManagedVersions = new ImplicitManagedVersions(
+                dependencyManagementContainer)
+
         project.configurations.all { Configuration root ->
             root.incoming.beforeResolve {
-				if (extension.overriddenByDependencies) {
-	                root.hierarchy.each { Configuration configuration ->
-	                    configuration.incoming.dependencies.findAll {
-	                        it in ModuleDependency && it.version
-	                    }.each {
-                            if (Versions.isDynamic(it.version)) {
-                                log.debug("Dependency '{}' in configuration '{}' has a dynamic " +
-                                        "version. The version will not be added to the managed " +
-                                        "versions", it, configuration.name);
-                            } else {
-                                log.debug(
-                                        "Adding managed version in configuration '{}' for " +
-                                                "dependency '{}'",
-                                        configuration.name, it)
-                                dependencyManagementContainer.
-                                        addImplicitManagedVersion(configuration, it.group, it.name,
-                                                it.version)
-                            }
-	                    }
-	                }
-				}
+                dependencyManagementContainer.configurationResolving(root)
+                if (extension.overriddenByDependencies) {
+                    implicitManagedVersions.register(root)
+                }
             }
         }
 
         ExclusionResolver exclusionResolver = new ExclusionResolver(project.dependencies,
-                configurationContainer, effectiveModelBuilder)
+                configurationContainer, effectiveModelBuilder,
+                PomProcessingExecutor.forProject(project))
+
+        ExcludedDependenciesCache excludedDependenciesCache = new ExcludedDependenciesCache()
+
+        CoordinateInterner coordinateInterner = CoordinateInterner.forProject(project)
 
         project.configurations.all { Configuration c ->
             log.info("Applying dependency management to configuration '{}' in project '{}'",
@@ -101,7 +108,8 @@ class DependencyManagementPlugin implements Plugin<Project> {
             c.incoming.beforeResolve(new ExclusionConfiguringAction(
                     project.extensions.findByType(DependencyManagementExtension),
                     dependencyManagementContainer, configurationContainer, c, exclusionResolver,
-                    versionConfiguringAction))
+                    versionConfiguringAction, excludedDependenciesCache,
+                    coordinateInterner))
 
             resolutionStrategy.eachDependency(versionConfiguringAction)
         }
@@ -122,7 +130,7 @@ class DependencyManagementPlugin implements Plugin<Project> {
     }
 
     private void configurePom(def pom, PomDependencyManagementConfigurer configurer) {
-        pom.withXml { xml -> configurer.configurePom(xml.asNode()) }
+        pom.withXml { xml -> configurer.configurePom(xml) }
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.dependencymanagement
+
+import org.gradle.api.artifacts.Configuration
+import org.gradle.api.artifacts.ModuleDependency
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+
+/**
+ * Registers the versions of the dependencies declared in a project's configurations as
+ * implicit managed versions. A configuration's implicit managed versions are registered
+ * the first time that it, or a configuration that extends from it, is resolved and are
+ * only registered again once the dependencies declared in its hierarchy, or their
+ * versions, have changed.
+ *
+ * @author Andy Wilkinson
+ */
+class ImplicitManagedVersions {
+
+    private final Logger log = LoggerFactory.getLogger(ImplicitManagedVersions)
+
+    private final DependencyManagementContainer dependencyManagementContainer
+
+    /**
+     * A snapshot of the versioned dependencies declared by each configuration in the
+     * hierarchy of each configuration when its implicit managed versions were last
+     * registered
+     */
+    private final Map<Configuration, List> snapshots = [:]
+
+    ImplicitManagedVersions(DependencyManagementContainer dependencyManagementContainer) {
+        this.dependencyManagementContainer = dependencyManagementContainer
+    }
+
+    /**
+     * Registers the implicit managed versions of each configuration in the hierarchy of
+     * the given {@code root} configuration whose declared dependencies, or their versions,
+     * have changed since they were last registered.
+     *
+     * @param root the configuration that is being resolved
+     */
+    synchronized void register(Configuration root) {
+        Map<Configuration, List<String>> declared = [:]
+        root.hierarchy.each { declared[it] = declaredVersions(it) }
+        root.hierarchy.each { Configuration configuration ->
+            List snapshot = configuration.hierarchy.collect { [it, declared[it]] }
+            if (snapshots[configuration] != snapshot) {
+                snapshots[configuration] = snapshot
+                registerImplicitManagedVersions(configuration)
+            }
+        }
+    }
+
+    private List<String> declaredVersions(Configuration configuration) {
+        configuration.dependencies.findAll { it in ModuleDependency && it.version }.collect {
+            "$it.group:$it.name:$it.version" as String
+        }
+    }
+
+    private void registerImplicitManagedVersions(Configuration configuration) {
+        List<ModuleDependency> dependencies = []
+        configuration.incoming.dependencies.each {
+            if (it in ModuleDependency && it.version) {
+                if (Versions.isDynamic(it.version)) {
+                    log.debug("Dependency '{}' in configuration '{}' has a dynamic version. The " +
+                            "version will not be added to the managed versions", it,
+                            configuration.name)
+                }
+                else {
+                    log.debug("Adding managed version in configuration '{}' for dependency '{}'",
+                            configuration.name, it)
+                    dependencies << (ModuleDependency) it
+                }
+            }
+        }
+        dependencyManagementContainer.addImplicitManagedVersions(configuration, dependencies)
+    }
+
+}
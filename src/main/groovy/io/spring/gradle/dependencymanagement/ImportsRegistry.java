@@ -0,0 +1,229 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.spring.gradle.dependencymanagement;
+
+import io.spring.gradle.dependencymanagement.exclusions.CoordinateInterner;
+import org.gradle.api.Project;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A build-wide registry of {@link ResolvedImports} that allows every project in a
+ * multi-project build that imports the same boms to share a single, unmodifiable copy of
+ * the dependency management that they provide, rather than each project resolving and
+ * holding its own.
+ * <p>
+ * Imports are registered using a key that identifies the declared boms and the properties
+ * with which they are imported. As with the {@code EffectivePomCache}, each entry also
+ * records the value of every property that was consulted while the boms were being
+ * interpolated and is only shared with a project in which every one of those properties
+ * has the same value. Sharing can be disabled by setting the {@value #ENABLED_PROPERTY}
+ * property of the root project to {@code false}.
+ *
+ * @author Andy Wilkinson
+ */
+final class ImportsRegistry {
+
+    /**
+     * The name of the root project property that can be set to {@code false} to disable
+     * the sharing of imports between projects.
+     */
+    static final String ENABLED_PROPERTY = "dependencyManagement.sharedImports";
+
+    private final Logger log = LoggerFactory.getLogger(ImportsRegistry.class);
+
+    private final Map<String, List<Entry>> entries = new HashMap<String, List<Entry>>();
+
+    private final Map<String, Object> locks = new HashMap<String, Object>();
+
+    private final CoordinateInterner interner;
+
+    private final boolean enabled;
+
+    private int hits;
+
+    private int misses;
+
+    ImportsRegistry(CoordinateInterner interner, boolean enabled) {
+        this.interner = interner;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Returns the {@code ImportsRegistry} for the build of the given {@code project}.
+     *
+     * @param project any project in the build
+     * @return the registry
+     */
+    static ImportsRegistry forProject(Project project) {
+        return BuildScope.get(project, ImportsRegistry.class,
+                new BuildScope.Factory<ImportsRegistry>() {
+
+                    @Override
+                    public ImportsRegistry create(Project rootProject) {
+                        return new ImportsRegistry(CoordinateInterner.forProject(rootProject),
+                                !rootProject.hasProperty(ENABLED_PROPERTY)
+                                || Boolean.valueOf(String.valueOf(
+                                        rootProject.property(ENABLED_PROPERTY))));
+                    }
+
+                });
+    }
+
+    boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Returns the registered imports with the given {@code key} whose interpolation inputs
+     * match the values provided by the given {@code properties}. If there are no such
+     * imports, they are resolved using the given {@code resolver} and registered. Imports
+     * with the same key are resolved by at most one thread at a time so that concurrent
+     * requests for the same imports do not resolve them more than once.
+     *
+     * @param key the key of the imports
+     * @param properties the source of the property values for the current request
+     * @param resolver the resolver used to resolve the imports if they are not registered
+     * @return the unmodifiable imports
+     */
+    ResolvedImports get(String key, PropertySource properties, Resolver resolver) {
+        synchronized (lockFor(key)) {
+            List<Entry> candidates;
+            synchronized (this) {
+                List<Entry> entriesForKey = this.entries.get(key);
+                candidates = entriesForKey == null ? Collections.<Entry>emptyList() :
+                        new ArrayList<Entry>(entriesForKey);
+            }
+            for (Entry candidate : candidates) {
+                if (candidate.matches(properties)) {
+                    recordAccess(true);
+                    return candidate.imports;
+                }
+            }
+            recordAccess(false);
+            List<Map<String, String>> interpolationInputs = new ArrayList<Map<String, String>>();
+            ResolvedImports imports = resolver.resolve(interpolationInputs)
+                    .asUnmodifiable(this.interner);
+            synchronized (this) {
+                List<Entry> entriesForKey = this.entries.get(key);
+                if (entriesForKey == null) {
+                    entriesForKey = new ArrayList<Entry>(1);
+                    this.entries.put(key, entriesForKey);
+                }
+                entriesForKey.add(new Entry(interpolationInputs, imports));
+                log.debug("Registered imports '{}' ({} hits, {} misses)", key, this.hits,
+                        this.misses);
+            }
+            return imports;
+        }
+    }
+
+    private synchronized Object lockFor(String key) {
+        Object lock = this.locks.get(key);
+        if (lock == null) {
+            lock = new Object();
+            this.locks.put(key, lock);
+        }
+        return lock;
+    }
+
+    private synchronized void recordAccess(boolean hit) {
+        if (hit) {
+            this.hits++;
+        }
+        else {
+            this.misses++;
+        }
+    }
+
+    synchronized int getHits() {
+        return this.hits;
+    }
+
+    synchronized int getMisses() {
+        return this.misses;
+    }
+
+    /**
+     * A source of the values of the properties used to interpolate the imported boms.
+     */
+    interface PropertySource {
+
+        /**
+         * Returns the value of the property with the given {@code name} when interpolating
+         * the bom at the given {@code index} in the imports, or {@code null} if the
+         * property has no value.
+         *
+         * @param index the index of the bom
+         * @param name the name of the property
+         * @return the value or {@code null}
+         */
+        String getProperty(int index, String name);
+
+    }
+
+    /**
+     * Resolves imports that have not been registered.
+     */
+    interface Resolver {
+
+        /**
+         * Resolves the imports, adding the interpolation inputs of each imported bom to
+         * the given list in the order in which the boms were imported.
+         *
+         * @param interpolationInputs the list to which the interpolation inputs are added
+         * @return the resolved imports
+         */
+        ResolvedImports resolve(List<Map<String, String>> interpolationInputs);
+
+    }
+
+    private static final class Entry {
+
+        private final List<Map<String, String>> interpolationInputs;
+
+        private final ResolvedImports imports;
+
+        private Entry(List<Map<String, String>> interpolationInputs, ResolvedImports imports) {
+            this.interpolationInputs = interpolationInputs;
+            this.imports = imports;
+        }
+
+        private boolean matches(PropertySource properties) {
+            for (int i = 0; i < this.interpolationInputs.size(); i++) {
+                for (Map.Entry<String, String> input : this.interpolationInputs.get(i)
+                        .entrySet()) {
+                    String value = properties.getProperty(i, input.getKey());
+                    if (value == null ? input.getValue() != null :
+                            !value.equals(input.getValue())) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+    }
+
+}
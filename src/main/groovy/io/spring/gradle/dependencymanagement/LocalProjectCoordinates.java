@@ -0,0 +1,127 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.dependencymanagement;
+
+import org.gradle.BuildAdapter;
+import org.gradle.api.Project;
+import org.gradle.api.ProjectEvaluationListener;
+import org.gradle.api.ProjectState;
+import org.gradle.api.invocation.Gradle;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A build-wide index of the {@code group:name} coordinates of the projects in a build. The
+ * index is built lazily and is discarded whenever a project has been evaluated, and once
+ * every project has been evaluated, so that changes to a project's group made in its build
+ * script or in an {@code afterEvaluate} or {@code projectsEvaluated} callback are picked up.
+ *
+ * @author Andy Wilkinson
+ */
+public final class LocalProjectCoordinates {
+
+    private final Project rootProject;
+
+    private volatile Index index;
+
+    LocalProjectCoordinates(Project rootProject) {
+        this.rootProject = rootProject;
+        rootProject.getGradle().addProjectEvaluationListener(new ProjectEvaluationListener() {
+
+            @Override
+            public void beforeEvaluate(Project project) {
+
+            }
+
+            @Override
+            public void afterEvaluate(Project project, ProjectState state) {
+                LocalProjectCoordinates.this.index = null;
+            }
+
+        });
+        rootProject.getGradle().addBuildListener(new BuildAdapter() {
+
+            @Override
+            public void projectsEvaluated(Gradle gradle) {
+                LocalProjectCoordinates.this.index = null;
+            }
+
+        });
+    }
+
+    /**
+     * Returns the {@code LocalProjectCoordinates} for the build of the given {@code project}.
+     *
+     * @param project any project in the build
+     * @return the coordinates of the build's projects
+     */
+    public static LocalProjectCoordinates forProject(Project project) {
+        return BuildScope.get(project, LocalProjectCoordinates.class,
+                new BuildScope.Factory<LocalProjectCoordinates>() {
+
+                    @Override
+                    public LocalProjectCoordinates create(Project rootProject) {
+                        return new LocalProjectCoordinates(rootProject);
+                    }
+
+                });
+    }
+
+    /**
+     * Returns whether or not the build contains a project with the given {@code group} and
+     * {@code name}.
+     *
+     * @param group the group
+     * @param name the name
+     * @return {@code true} if a local project has the coordinates, otherwise {@code false}
+     */
+    public boolean contains(String group, String name) {
+        Set<String> names = getIndex().namesByGroup.get(group);
+        return names != null && names.contains(name);
+    }
+
+    private Index getIndex() {
+        Index current = this.index;
+        if (current == null) {
+            current = new Index(this.rootProject.getAllprojects());
+            this.index = current;
+        }
+        return current;
+    }
+
+    private static final class Index {
+
+        private final Map<String, Set<String>> namesByGroup = new HashMap<String, Set<String>>();
+
+        private Index(Set<Project> projects) {
+            for (Project project : projects) {
+                String group = String.valueOf(project.getGroup());
+                Set<String> names = this.namesByGroup.get(group);
+                if (names == null) {
+                    names = new HashSet<String>();
+                    this.namesByGroup.put(group, names);
+                }
+                names.add(project.getName());
+            }
+        }
+
+    }
+
+}
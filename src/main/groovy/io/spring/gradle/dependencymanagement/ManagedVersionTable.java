@@ -0,0 +1,272 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.spring.gradle.dependencymanagement;
+
+import io.spring.gradle.dependencymanagement.exclusions.CoordinateInterner;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable table of managed versions. Dependencies are identified by the ids allocated
+ * by a {@link CoordinateInterner} and their versions are interned so that a table holds
+ * only two arrays. A table may have a parent, in which case it only holds the versions
+ * that differ from those of its parent and shares the rest. This allows a configuration's
+ * table to be layered on top of the global table, which is, in turn, layered on top of
+ * the table of the imported boms that may be shared by every project in the build.
+ *
+ * @author Andy Wilkinson
+ */
+final class ManagedVersionTable {
+
+    private static final int[] NO_IDS = new int[0];
+
+    private static final String[] NO_VERSIONS = new String[0];
+
+    private final CoordinateInterner interner;
+
+    private final ManagedVersionTable parent;
+
+    private final int[] ids;
+
+    private final String[] versions;
+
+    private final int size;
+
+    private Map<String, String> view;
+
+    private ManagedVersionTable(CoordinateInterner interner, ManagedVersionTable parent,
+            int[] ids, String[] versions, int size) {
+        this.interner = interner;
+        this.parent = parent;
+        this.ids = ids;
+        this.versions = versions;
+        this.size = size;
+    }
+
+    /**
+     * Returns an empty table that uses the given {@code interner}.
+     *
+     * @param interner the interner
+     * @return the empty table
+     */
+    static ManagedVersionTable empty(CoordinateInterner interner) {
+        return new ManagedVersionTable(interner, null, NO_IDS, NO_VERSIONS, 0);
+    }
+
+    /**
+     * Returns a table that contains the versions in the given map of {@code group:name}
+     * keys to versions, layered on top of this table. If none of the versions differs from
+     * those of this table, this table is returned.
+     *
+     * @param versionsByKey the versions
+     * @return the table
+     */
+    ManagedVersionTable withOverrides(Map<String, String> versionsByKey) {
+        int[] ids = new int[versionsByKey.size()];
+        String[] versions = new String[versionsByKey.size()];
+        int count = 0;
+        int added = 0;
+        for (Map.Entry<String, String> entry : versionsByKey.entrySet()) {
+            String version = entry.getValue();
+            if (version == null) {
+                continue;
+            }
+            String key = entry.getKey();
+            int separator = key.indexOf(':');
+            int id = this.interner.intern(key.substring(0, separator),
+                    key.substring(separator + 1));
+            String existing = get(id);
+            if (version.equals(existing)) {
+                continue;
+            }
+            if (existing == null) {
+                added++;
+            }
+            ids[count] = id;
+            versions[count++] = this.interner.internVersion(version);
+        }
+        if (count == 0) {
+            return this;
+        }
+        long[] order = new long[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = ((long) ids[i] << 32) | i;
+        }
+        Arrays.sort(order);
+        int[] sortedIds = new int[count];
+        String[] sortedVersions = new String[count];
+        for (int i = 0; i < count; i++) {
+            sortedIds[i] = (int) (order[i] >>> 32);
+            sortedVersions[i] = versions[(int) order[i]];
+        }
+        return new ManagedVersionTable(this.interner, this, sortedIds, sortedVersions,
+                this.size + added);
+    }
+
+    /**
+     * Returns the managed version for the dependency with the given {@code group} and
+     * {@code name}, or {@code null} if it is not managed.
+     *
+     * @param group the group
+     * @param name the name
+     * @return the managed version or {@code null}
+     */
+    String get(String group, String name) {
+        if (group == null || name == null) {
+            return null;
+        }
+        int id = this.interner.find(group, name);
+        return id < 0 ? null : get(id);
+    }
+
+    private String get(int id) {
+        for (ManagedVersionTable table = this; table != null; table = table.parent) {
+            int index = Arrays.binarySearch(table.ids, id);
+            if (index >= 0) {
+                return table.versions[index];
+            }
+        }
+        return null;
+    }
+
+    private boolean shadows(ManagedVersionTable layer, int id) {
+        for (ManagedVersionTable table = this; table != layer; table = table.parent) {
+            if (Arrays.binarySearch(table.ids, id) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns an unmodifiable view of the versions in the table, keyed by
+     * {@code group:name}. The same view is returned each time so that callers can use its
+     * identity to recognise tables that they have already processed.
+     *
+     * @return the versions
+     */
+    Map<String, String> asMap() {
+        Map<String, String> view = this.view;
+        if (view == null) {
+            view = new VersionsView();
+            this.view = view;
+        }
+        return view;
+    }
+
+    private final class VersionsView extends AbstractMap<String, String> {
+
+        @Override
+        public String get(Object key) {
+            if (!(key instanceof String)) {
+                return null;
+            }
+            String coordinates = (String) key;
+            int separator = coordinates.indexOf(':');
+            return separator < 0 ? null : ManagedVersionTable.this.get(
+                    coordinates.substring(0, separator), coordinates.substring(separator + 1));
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public int size() {
+            return ManagedVersionTable.this.size;
+        }
+
+        @Override
+        public Set<Entry<String, String>> entrySet() {
+            return new AbstractSet<Entry<String, String>>() {
+
+                @Override
+                public Iterator<Entry<String, String>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return ManagedVersionTable.this.size;
+                }
+
+            };
+        }
+
+    }
+
+    /**
+     * Iterates over the entries of each layer in turn, skipping those that are overridden
+     * by a layer that has already been visited.
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<String, String>> {
+
+        private ManagedVersionTable layer = ManagedVersionTable.this;
+
+        private int index = -1;
+
+        private EntryIterator() {
+            advance();
+        }
+
+        private void advance() {
+            while (this.layer != null) {
+                this.index++;
+                if (this.index >= this.layer.ids.length) {
+                    this.layer = this.layer.parent;
+                    this.index = -1;
+                }
+                else if (!ManagedVersionTable.this.shadows(this.layer,
+                        this.layer.ids[this.index])) {
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.layer != null;
+        }
+
+        @Override
+        public Map.Entry<String, String> next() {
+            if (this.layer == null) {
+                throw new NoSuchElementException();
+            }
+            Map.Entry<String, String> entry = new AbstractMap.SimpleImmutableEntry<String, String>(
+                    ManagedVersionTable.this.interner.coordinates(this.layer.ids[this.index]),
+                    this.layer.versions[this.index]);
+            advance();
+            return entry;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.spring.gradle.dependencymanagement
+
+import io.spring.gradle.dependencymanagement.exclusions.CoordinateInterner
+import io.spring.gradle.dependencymanagement.exclusions.Exclusions
+import io.spring.gradle.dependencymanagement.org.apache.maven.model.Dependency
+
+/**
+ * The dependency management provided by the boms imported by a {@link DependencyManagement},
+ * merged in the order in which the boms were imported
+ *
+ * @author Andy Wilkinson
+ */
+class ResolvedImports {
+
+    /**
+     * The fingerprint of the declarations from which the imports were resolved, or
+     * {@code null} if it is not known
+     */
+    String fingerprint
+
+    /**
+     * The names of the properties that were consulted when the boms were interpolated, or
+     * {@code null} if they are not known
+     */
+    Set<String> interpolationInputs
+
+    List<String> boms = []
+
+    Map<String, String> versions = [:] as LinkedHashMap
+
+    Exclusions exclusions = new Exclusions()
+
+    Properties bomProperties = new Properties()
+
+    Map<String, List<Dependency>> bomDependencyManagement = [:] as LinkedHashMap
+
+    /**
+     * The managed versions in a compact form, or {@code null} if these imports are
+     * modifiable
+     */
+    ManagedVersionTable versionTable
+
+    /**
+     * Returns an unmodifiable copy of these imports that can safely be shared by every
+     * {@link DependencyManagement} that imports the same boms. The copy's managed versions
+     * are held in a {@link ManagedVersionTable} that uses the given {@code interner}.
+     *
+     * @param interner the interner used for the copy's managed versions
+     * @return the unmodifiable copy
+     */
+    ResolvedImports asUnmodifiable(CoordinateInterner interner) {
+        ResolvedImports copy = new ResolvedImports()
+        copy.fingerprint = fingerprint
+        copy.interpolationInputs = interpolationInputs == null ? null :
+                Collections.unmodifiableSet(new TreeSet(interpolationInputs))
+        copy.boms = Collections.unmodifiableList(new ArrayList(boms))
+        copy.versionTable = ManagedVersionTable.empty(interner).withOverrides(versions)
+        copy.versions = copy.versionTable.asMap()
+        copy.exclusions.addAll(exclusions)
+        copy.bomProperties = new UnmodifiableProperties(bomProperties)
+        Map<String, List<Dependency>> dependencyManagement = [:] as LinkedHashMap
+        bomDependencyManagement.each { String bom, List<Dependency> dependencies ->
+            dependencyManagement[bom] = Collections.unmodifiableList(new ArrayList(dependencies))
+        }
+        copy.bomDependencyManagement = Collections.unmodifiableMap(dependencyManagement)
+        copy
+    }
+
+    /**
+     * Returns unmodifiable imports in which the given {@code later} imports, resolved from
+     * boms that were imported after these imports' boms, are layered on top of these
+     * imports. These imports' managed versions are shared rather than copied so that the
+     * cost of the layering is proportional to the size of the later imports.
+     *
+     * @param later the later imports
+     * @param interner the interner used for the managed versions
+     * @return the layered imports
+     */
+    ResolvedImports layeredWith(ResolvedImports later, CoordinateInterner interner) {
+        ResolvedImports layered = new ResolvedImports()
+        List<String> allBoms = new ArrayList(boms)
+        allBoms.addAll(later.boms)
+        layered.boms = Collections.unmodifiableList(allBoms)
+        layered.versionTable = (versionTable ?: ManagedVersionTable.empty(interner)
+                .withOverrides(versions)).withOverrides(later.versions)
+        layered.versions = layered.versionTable.asMap()
+        layered.exclusions.addAll(exclusions)
+        layered.exclusions.addAll(later.exclusions)
+        Properties properties = new Properties()
+        properties.putAll(bomProperties)
+        properties.putAll(later.bomProperties)
+        layered.bomProperties = new UnmodifiableProperties(properties)
+        Map<String, List<Dependency>> dependencyManagement =
+                new LinkedHashMap(bomDependencyManagement)
+        later.bomDependencyManagement.each { String bom, List<Dependency> dependencies ->
+            dependencyManagement[bom] = Collections.unmodifiableList(new ArrayList(dependencies))
+        }
+        layered.bomDependencyManagement = Collections.unmodifiableMap(dependencyManagement)
+        layered
+    }
+
+    private static final class UnmodifiableProperties extends Properties {
+
+        private UnmodifiableProperties(Properties properties) {
+            for (Map.Entry entry : properties.entrySet()) {
+                super.put(entry.key, entry.value)
+            }
+        }
+
+        @Override
+        synchronized Object put(Object key, Object value) {
+            throw new UnsupportedOperationException()
+        }
+
+        @Override
+        synchronized Object remove(Object key) {
+            throw new UnsupportedOperationException()
+        }
+
+        @Override
+        synchronized void clear() {
+            throw new UnsupportedOperationException()
+        }
+
+    }
+
+}
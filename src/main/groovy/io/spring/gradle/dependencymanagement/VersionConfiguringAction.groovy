@@ -16,6 +16,8 @@
 
 package io.spring.gradle.dependencymanagement
 
+import io.spring.gradle.dependencymanagement.instrumentation.Instrumentation
+import io.spring.gradle.dependencymanagement.instrumentation.Phase
 import org.gradle.api.Action
 import org.gradle.api.Project
 import org.gradle.api.artifacts.Configuration
@@ -39,17 +41,24 @@ class VersionConfiguringAction implements Action<DependencyResolveDetails> {
 
     private final Configuration configuration
 
+    private final LocalProjectCoordinates localProjectCoordinates
+
+    private final Instrumentation.Recorder recorder
+
     public VersionConfiguringAction(Project project, DependencyManagementContainer
             dependencyManagementContainer, Configuration configuration) {
         this.project = project
         this.dependencyManagementContainer = dependencyManagementContainer
         this.configuration = configuration
+        this.localProjectCoordinates = LocalProjectCoordinates.forProject(project)
+        this.recorder = Instrumentation.forProject(project).recorder(project.path,
+                configuration?.name)
     }
 
     @Override
     void execute(DependencyResolveDetails details) {
         log.debug("Processing dependency '{}'", details.requested)
-        if (isDependencyOnLocalProject(project, details)) {
+        if (isDependencyOnLocalProject(details)) {
             log.debug("'{}' is a local project dependency. Dependency management has not been " +
                     "applied", details.requested)
             return;
@@ -59,9 +68,12 @@ class VersionConfiguringAction implements Action<DependencyResolveDetails> {
                     details.requested)
             return;
         }
+        long start = recorder.start()
         String version = dependencyManagementContainer.
                 getManagedVersion(configuration, details.requested.group,
                         details.requested.name)
+        recorder.record(Phase.VERSION_LOOKUP, start)
+        recorder.count(Phase.VERSION_LOOKUP, version ? 'hits' : 'misses')
         if (version) {
             log.info("Using version '{}' for dependency '{}'", version,
                     details.requested)
@@ -73,11 +85,8 @@ class VersionConfiguringAction implements Action<DependencyResolveDetails> {
         }
     }
 
-    private static boolean isDependencyOnLocalProject(Project project,
-            DependencyResolveDetails details) {
-        project.rootProject.allprojects
-                .collect { "$it.group:$it.name" as String }
-                .contains("$details.requested.group:$details.requested.name" as String)
+    private boolean isDependencyOnLocalProject(DependencyResolveDetails details) {
+        localProjectCoordinates.contains(details.requested.group, details.requested.name)
     }
 
 }
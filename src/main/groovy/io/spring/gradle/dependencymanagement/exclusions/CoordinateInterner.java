@@ -0,0 +1,161 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.dependencymanagement.exclusions;
+
+import io.spring.gradle.dependencymanagement.BuildScope;
+import org.gradle.api.Project;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A build-wide table that maps each {@code group:name} pair to a dense {@code int} id so
+ * that modules can be identified and compared without creating and hashing
+ * {@code group:name} strings. Ids are allocated in the order in which pairs are first
+ * interned and are never reused. Versions can also be interned so that the many tables
+ * that refer to the same version share a single string.
+ *
+ * @author Andy Wilkinson
+ */
+public final class CoordinateInterner {
+
+    private final ConcurrentMap<String, ConcurrentMap<String, Integer>> idsByGroup =
+            new ConcurrentHashMap<String, ConcurrentMap<String, Integer>>();
+
+    private final List<String> coordinates = new ArrayList<String>();
+
+    private final ConcurrentMap<String, String> versions =
+            new ConcurrentHashMap<String, String>();
+
+    CoordinateInterner() {
+
+    }
+
+    /**
+     * Returns the {@code CoordinateInterner} for the build of the given {@code project}.
+     *
+     * @param project any project in the build
+     * @return the interner
+     */
+    public static CoordinateInterner forProject(Project project) {
+        return BuildScope.get(project, CoordinateInterner.class,
+                new BuildScope.Factory<CoordinateInterner>() {
+
+                    @Override
+                    public CoordinateInterner create(Project rootProject) {
+                        return new CoordinateInterner();
+                    }
+
+                });
+    }
+
+    /**
+     * Returns the id of the given {@code group} and {@code name}, allocating a new id if
+     * the pair has not been interned before.
+     *
+     * @param group the group
+     * @param name the name
+     * @return the id
+     */
+    public int intern(String group, String name) {
+        ConcurrentMap<String, Integer> ids = this.idsByGroup.get(group);
+        if (ids != null) {
+            Integer id = ids.get(name);
+            if (id != null) {
+                return id;
+            }
+        }
+        return register(group, name);
+    }
+
+    /**
+     * Returns the id of the given {@code group:name} coordinates, allocating a new id if
+     * the coordinates have not been interned before.
+     *
+     * @param coordinates the coordinates
+     * @return the id
+     */
+    public int intern(String coordinates) {
+        int separator = coordinates.indexOf(':');
+        if (separator < 0) {
+            return intern(coordinates, "");
+        }
+        return intern(coordinates.substring(0, separator), coordinates.substring(separator + 1));
+    }
+
+    /**
+     * Returns the id of the given {@code group} and {@code name}, or {@code -1} if the pair
+     * has not been interned. Unlike {@link #intern(String, String)}, no id is allocated.
+     *
+     * @param group the group
+     * @param name the name
+     * @return the id or {@code -1}
+     */
+    public int find(String group, String name) {
+        ConcurrentMap<String, Integer> ids = this.idsByGroup.get(group);
+        Integer id = ids == null ? null : ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Returns the canonical instance of the given {@code version}.
+     *
+     * @param version the version
+     * @return the canonical instance
+     */
+    public String internVersion(String version) {
+        String existing = this.versions.putIfAbsent(version, version);
+        return existing == null ? version : existing;
+    }
+
+    private synchronized int register(String group, String name) {
+        ConcurrentMap<String, Integer> ids = this.idsByGroup.get(group);
+        if (ids == null) {
+            ids = new ConcurrentHashMap<String, Integer>();
+            this.idsByGroup.put(group, ids);
+        }
+        Integer id = ids.get(name);
+        if (id == null) {
+            id = this.coordinates.size();
+            this.coordinates.add(group + ":" + name);
+            ids.put(name, id);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the {@code group:name} coordinates with the given {@code id}.
+     *
+     * @param id the id
+     * @return the coordinates
+     */
+    public synchronized String coordinates(int id) {
+        return this.coordinates.get(id);
+    }
+
+    /**
+     * Returns the number of ids that have been allocated.
+     *
+     * @return the number of ids
+     */
+    public synchronized int size() {
+        return this.coordinates.size();
+    }
+
+}
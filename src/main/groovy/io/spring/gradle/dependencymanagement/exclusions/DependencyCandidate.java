@@ -0,0 +1,61 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.dependencymanagement.exclusions;
+
+/**
+ * A dependency, identified by its group and artifact id, that may be excluded. Candidates
+ * are compared using the id allocated to their group and artifact id by a
+ * {@link CoordinateInterner}.
+ *
+ * @author Andy Wilkinson
+ */
+final class DependencyCandidate {
+
+    final int id;
+
+    final String groupId;
+
+    final String artifactId;
+
+    DependencyCandidate(int id, String groupId, String artifactId) {
+        this.id = id;
+        this.groupId = groupId;
+        this.artifactId = artifactId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return this.id == ((DependencyCandidate) o).id;
+    }
+
+    @Override
+    public int hashCode() {
+        return this.id;
+    }
+
+    @Override
+    public String toString() {
+        return this.groupId + ":" + this.artifactId;
+    }
+
+}
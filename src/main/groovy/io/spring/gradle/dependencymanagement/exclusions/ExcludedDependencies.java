@@ -0,0 +1,94 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.dependencymanagement.exclusions;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The dependencies that Maven exclusions remove from a configuration and, optionally, the
+ * excluded dependencies that can be reached from each of the configuration's direct
+ * dependencies.
+ *
+ * @author Andy Wilkinson
+ */
+final class ExcludedDependencies {
+
+    /**
+     * Excluded dependencies for a configuration from which nothing is excluded.
+     */
+    static final ExcludedDependencies NONE = new ExcludedDependencies(
+            Collections.<DependencyCandidate>emptySet(), null);
+
+    private final Set<DependencyCandidate> candidates;
+
+    private final Map<Integer, BitSet> reachableByDependency;
+
+    /**
+     * Creates a new {@code ExcludedDependencies}.
+     *
+     * @param candidates the excluded dependencies
+     * @param reachableByDependency the ids of the modules that can be reached from each
+     * direct dependency, keyed by the id of the direct dependency, or {@code null} if
+     * reachability is unknown
+     */
+    ExcludedDependencies(Set<DependencyCandidate> candidates,
+            Map<Integer, BitSet> reachableByDependency) {
+        this.candidates = Collections.unmodifiableSet(
+                new HashSet<DependencyCandidate>(candidates));
+        this.reachableByDependency = reachableByDependency;
+    }
+
+    Set<DependencyCandidate> all() {
+        return this.candidates;
+    }
+
+    /**
+     * Returns the excluded dependencies that can be reached from the direct dependency
+     * with the given id. All of the excluded dependencies are returned if reachability
+     * from the dependency is unknown.
+     *
+     * @param dependencyId the id of the direct dependency
+     * @return the reachable excluded dependencies
+     */
+    Collection<DependencyCandidate> reachableFrom(int dependencyId) {
+        BitSet reachable = this.reachableByDependency == null ? null :
+                this.reachableByDependency.get(dependencyId);
+        if (reachable == null) {
+            return this.candidates;
+        }
+        List<DependencyCandidate> reachableCandidates = new ArrayList<DependencyCandidate>();
+        for (DependencyCandidate candidate : this.candidates) {
+            if (reachable.get(candidate.id)) {
+                reachableCandidates.add(candidate);
+            }
+        }
+        return reachableCandidates;
+    }
+
+    @Override
+    public String toString() {
+        return this.candidates.toString();
+    }
+
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.dependencymanagement.exclusions;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.artifacts.Dependency;
+import org.gradle.api.artifacts.DependencyArtifact;
+import org.gradle.api.artifacts.ExcludeRule;
+import org.gradle.api.artifacts.ExternalDependency;
+import org.gradle.api.artifacts.ModuleDependency;
+import org.gradle.api.artifacts.ProjectDependency;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * A cache of the dependencies that Maven exclusions remove from a configuration, shared by
+ * the configurations of a project. Configurations whose dependencies and dependency
+ * management are the same share a single entry, identified by a {@link Fingerprint}, so
+ * that the dependency graph is only resolved and walked once, even when the configurations
+ * are resolved concurrently.
+ *
+ * @author Andy Wilkinson
+ */
+public class ExcludedDependenciesCache {
+
+    private final ConcurrentMap<Fingerprint, FutureTask<ExcludedDependencies>>
+            excludedDependencies =
+            new ConcurrentHashMap<Fingerprint, FutureTask<ExcludedDependencies>>();
+
+    private final Map<ModuleDependency, Set<String>> appliedExclusions =
+            new IdentityHashMap<ModuleDependency, Set<String>>();
+
+    /**
+     * Creates a fingerprint of the given inputs to the search for excluded dependencies.
+     * Exclude rules that were added to a dependency by {@link #exclude} are ignored.
+     *
+     * @param dependencies the dependencies of the configuration
+     * @param managedVersions the managed versions of the configuration
+     * @param exclusions the exclusions in the configuration's dependency management
+     * @return the fingerprint
+     */
+    Fingerprint fingerprint(Collection<? extends Dependency> dependencies,
+            Map<String, String> managedVersions, Exclusions exclusions) {
+        List<String> descriptors = new ArrayList<String>(dependencies.size());
+        for (Dependency dependency : dependencies) {
+            descriptors.add(describe(dependency));
+        }
+        Collections.sort(descriptors);
+        return new Fingerprint(descriptors, managedVersions, exclusions.all());
+    }
+
+    private String describe(Dependency dependency) {
+        StringBuilder descriptor = new StringBuilder(dependency.getClass().getName())
+                .append('|').append(dependency.getGroup()).append(':').append(dependency.getName())
+                .append(':').append(dependency.getVersion());
+        if (dependency instanceof ProjectDependency) {
+            descriptor.append('|').append(
+                    ((ProjectDependency) dependency).getDependencyProject().getPath());
+        }
+        if (dependency instanceof ExternalDependency) {
+            descriptor.append("|force=").append(((ExternalDependency) dependency).isForce());
+        }
+        if (dependency instanceof ModuleDependency) {
+            ModuleDependency moduleDependency = (ModuleDependency) dependency;
+            descriptor.append('|').append(moduleDependency.getConfiguration())
+                    .append("|transitive=").append(moduleDependency.isTransitive());
+            List<String> artifacts = new ArrayList<String>();
+            for (DependencyArtifact artifact : moduleDependency.getArtifacts()) {
+                artifacts.add(artifact.getName() + ":" + artifact.getType() + ":" +
+                        artifact.getExtension() + ":" + artifact.getClassifier());
+            }
+            Collections.sort(artifacts);
+            descriptor.append("|artifacts=").append(artifacts);
+            descriptor.append("|excludes=").append(describeExcludes(moduleDependency));
+        }
+        else {
+            descriptor.append('@').append(System.identityHashCode(dependency));
+        }
+        return descriptor.toString();
+    }
+
+    /**
+     * Describes the exclude rules of the given {@code dependency} other than those added by
+     * {@link #exclude}. Synchronized as the dependency may be shared with a configuration
+     * whose exclusions are being applied concurrently.
+     */
+    private synchronized List<String> describeExcludes(ModuleDependency dependency) {
+        Set<String> applied = this.appliedExclusions.get(dependency);
+        List<String> excludes = new ArrayList<String>();
+        for (ExcludeRule excludeRule : dependency.getExcludeRules()) {
+            String exclude = excludeRule.getGroup() + ":" + excludeRule.getModule();
+            if (applied == null || !applied.contains(exclude)) {
+                excludes.add(exclude);
+            }
+        }
+        Collections.sort(excludes);
+        return excludes;
+    }
+
+    /**
+     * Returns the excluded dependencies for the given {@code fingerprint}, using the given
+     * {@code search} to determine them if they have not already been determined. When
+     * configurations with the same fingerprint are resolved concurrently, the search is
+     * only performed once and the other configurations wait for its result.
+     *
+     * @param fingerprint the fingerprint
+     * @param search the search for the excluded dependencies
+     * @return the excluded dependencies
+     */
+    ExcludedDependencies get(Fingerprint fingerprint, Callable<ExcludedDependencies> search) {
+        FutureTask<ExcludedDependencies> excludedDependencies =
+                this.excludedDependencies.get(fingerprint);
+        if (excludedDependencies == null) {
+            FutureTask<ExcludedDependencies> task = new FutureTask<ExcludedDependencies>(search);
+            excludedDependencies = this.excludedDependencies.putIfAbsent(fingerprint, task);
+            if (excludedDependencies == null) {
+                excludedDependencies = task;
+                task.run();
+            }
+        }
+        try {
+            return excludedDependencies.get();
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new GradleException("Interrupted while searching for excluded dependencies",
+                    ex);
+        }
+        catch (ExecutionException ex) {
+            this.excludedDependencies.remove(fingerprint, excludedDependencies);
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new GradleException("Search for excluded dependencies failed", ex.getCause());
+        }
+    }
+
+    /**
+     * Adds an exclude rule for the given {@code exclusion} to the given {@code dependency}
+     * and records that it has been added.
+     *
+     * @param dependency the dependency
+     * @param exclusion the {@code group} and {@code module} of the exclusion
+     * @param coordinates the {@code group:module} of the exclusion
+     */
+    synchronized void exclude(ModuleDependency dependency, Map<String, String> exclusion,
+            String coordinates) {
+        dependency.exclude(exclusion);
+        Set<String> applied = this.appliedExclusions.get(dependency);
+        if (applied == null) {
+            applied = new HashSet<String>();
+            this.appliedExclusions.put(dependency, applied);
+        }
+        applied.add(coordinates);
+    }
+
+    /**
+     * A fingerprint of the inputs to the search for a configuration's excluded
+     * dependencies.
+     */
+    static final class Fingerprint {
+
+        private final List<String> dependencies;
+
+        private final Map<String, String> managedVersions;
+
+        private final Map<String, Set<String>> exclusions;
+
+        private final int hashCode;
+
+        private Fingerprint(List<String> dependencies, Map<String, String> managedVersions,
+                Map<String, Set<String>> exclusions) {
+            this.dependencies = dependencies;
+            this.managedVersions = managedVersions;
+            this.exclusions = exclusions;
+            int hashCode = dependencies.hashCode();
+            hashCode = 31 * hashCode + managedVersions.hashCode();
+            hashCode = 31 * hashCode + exclusions.hashCode();
+            this.hashCode = hashCode;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Fingerprint that = (Fingerprint) o;
+            return this.hashCode == that.hashCode && this.dependencies.equals(that.dependencies)
+                    && this.managedVersions.equals(that.managedVersions)
+                    && this.exclusions.equals(that.exclusions);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+
+    }
+
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.dependencymanagement.exclusions;
+
+/**
+ * The strategies for applying the exclusions that are gleaned from Maven metadata to the
+ * dependencies of a configuration.
+ *
+ * @author Andy Wilkinson
+ */
+public enum ExclusionApplicationStrategy {
+
+    /**
+     * Every excluded module is excluded from every dependency of the configuration.
+     */
+    ALL_DEPENDENCIES,
+
+    /**
+     * An excluded module is only excluded from the dependencies of the configuration
+     * whose unexcluded dependency graph can reach it. This adds fewer exclude rules, and
+     * fewer rules have to be evaluated during resolution, with the same result.
+     */
+    REACHING_DEPENDENCIES
+
+}
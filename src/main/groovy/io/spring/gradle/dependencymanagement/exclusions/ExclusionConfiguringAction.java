@@ -21,11 +21,15 @@ import io.spring.gradle.dependencymanagement.DependencyManagementConfigurationCo
 import io.spring.gradle.dependencymanagement.DependencyManagementContainer;
 import io.spring.gradle.dependencymanagement.DependencyManagementExtension;
 import io.spring.gradle.dependencymanagement.VersionConfiguringAction;
+import io.spring.gradle.dependencymanagement.exclusions.ExcludedDependenciesCache.Fingerprint;
+import io.spring.gradle.dependencymanagement.instrumentation.Instrumentation;
+import io.spring.gradle.dependencymanagement.instrumentation.Phase;
 import org.gradle.api.Action;
 import org.gradle.api.artifacts.Configuration;
 import org.gradle.api.artifacts.Dependency;
 import org.gradle.api.artifacts.DependencySet;
 import org.gradle.api.artifacts.ModuleDependency;
+import org.gradle.api.artifacts.ProjectDependency;
 import org.gradle.api.artifacts.ResolvableDependencies;
 import org.gradle.api.artifacts.component.ComponentSelector;
 import org.gradle.api.artifacts.component.ModuleComponentSelector;
@@ -37,13 +41,16 @@ import org.gradle.api.artifacts.result.UnresolvedDependencyResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 /**
  * An {@link Action} to be applied to {@link ResolvableDependencies} that configures exclusions
@@ -67,16 +74,29 @@ public class ExclusionConfiguringAction implements Action<ResolvableDependencies
 
     private final ConfigurationConfigurer versionConfigurer;
 
+    private final ExcludedDependenciesCache excludedDependenciesCache;
+
+    private final CoordinateInterner coordinateInterner;
+
+    private final Instrumentation.Recorder recorder;
+
     public ExclusionConfiguringAction(DependencyManagementExtension dependencyManagementExtension,
             DependencyManagementContainer dependencyManagementContainer,
             DependencyManagementConfigurationContainer configurationContainer,
             Configuration configuration, ExclusionResolver exclusionResolver,
-            final VersionConfiguringAction versionConfiguringAction) {
+            final VersionConfiguringAction versionConfiguringAction,
+            ExcludedDependenciesCache excludedDependenciesCache,
+            CoordinateInterner coordinateInterner) {
         this.dependencyManagementExtension = dependencyManagementExtension;
         this.dependencyManagementContainer = dependencyManagementContainer;
         this.configurationContainer = configurationContainer;
         this.configuration = configuration;
         this.exclusionResolver = exclusionResolver;
+        this.excludedDependenciesCache = excludedDependenciesCache;
+        this.coordinateInterner = coordinateInterner;
+        this.recorder = Instrumentation.forProject(dependencyManagementContainer.getProject())
+                .recorder(dependencyManagementContainer.getProject().getPath(),
+                        configuration.getName());
         this.versionConfigurer = new ConfigurationConfigurer() {
 
             @Override
@@ -96,44 +116,113 @@ public class ExclusionConfiguringAction implements Action<ResolvableDependencies
     }
 
     private void applyMavenExclusions(ResolvableDependencies resolvableDependencies) {
-        Set<DependencyCandidate> excludedDependencies = findExcludedDependencies();
+        ExcludedDependencies excludedDependencies = findExcludedDependencies();
         if (log.isInfoEnabled()) {
             log.info("Excluding " + String.valueOf(excludedDependencies));
         }
 
-        List<Map<String, String>> exclusions = new ArrayList<Map<String, String>>();
-        for (DependencyCandidate excludedDependency : excludedDependencies) {
+        Map<DependencyCandidate, Map<String, String>> exclusions =
+                new HashMap<DependencyCandidate, Map<String, String>>();
+        for (DependencyCandidate excludedDependency : excludedDependencies.all()) {
             Map<String, String> exclusion = new HashMap<String, String>();
             exclusion.put("group", excludedDependency.groupId);
             exclusion.put("module", excludedDependency.artifactId);
-            exclusions.add(exclusion);
+            exclusions.put(excludedDependency, exclusion);
         }
+        boolean reachingOnly = isReachingDependenciesStrategy();
+        int excludeRules = 0;
         for (Dependency dependency : resolvableDependencies.getDependencies()) {
             if (dependency instanceof ModuleDependency) {
-                for (Map<String, String> exclusion : exclusions) {
-                    ((ModuleDependency) dependency).exclude(exclusion);
+                Collection<DependencyCandidate> candidates = reachingOnly ?
+                        excludedDependencies.reachableFrom(this.coordinateInterner.intern(
+                                String.valueOf(dependency.getGroup()), dependency.getName())) :
+                        excludedDependencies.all();
+                for (DependencyCandidate candidate : candidates) {
+                    this.excludedDependenciesCache.exclude((ModuleDependency) dependency,
+                            exclusions.get(candidate), candidate.toString());
+                    excludeRules++;
                 }
 
             }
 
         }
+        if (log.isInfoEnabled()) {
+            log.info("Added {} exclude rules to the dependencies of configuration '{}' using " +
+                    "{}", excludeRules, this.configuration.getName(),
+                    this.dependencyManagementExtension.getExclusionApplicationStrategy());
+        }
+    }
+
+    private boolean isReachingDependenciesStrategy() {
+        return this.dependencyManagementExtension.getExclusionApplicationStrategy() ==
+                ExclusionApplicationStrategy.REACHING_DEPENDENCIES;
+    }
+
+    private ExcludedDependencies findExcludedDependencies() {
+        if (!hasTransitiveDependencies(this.configuration.getAllDependencies())) {
+            log.debug("Skipping the search for excluded dependencies of configuration '{}' " +
+                    "as it has no transitive dependencies", this.configuration.getName());
+            this.recorder.count(Phase.EXCLUSION_GRAPH_RESOLUTION, "skipped");
+            return ExcludedDependencies.NONE;
+        }
+        if (!this.dependencyManagementExtension.isShareExclusionsBetweenConfigurations()) {
+            return doFindExcludedDependencies();
+        }
+        Fingerprint fingerprint = this.excludedDependenciesCache.fingerprint(
+                this.configuration.getAllDependencies(),
+                this.dependencyManagementContainer.managedVersionsForConfiguration(
+                        this.configuration),
+                this.dependencyManagementContainer.getExclusions(this.configuration));
+        final boolean[] searched = new boolean[1];
+        ExcludedDependencies excludedDependencies = this.excludedDependenciesCache.get(
+                fingerprint, new Callable<ExcludedDependencies>() {
+
+                    @Override
+                    public ExcludedDependencies call() {
+                        searched[0] = true;
+                        return doFindExcludedDependencies();
+                    }
+
+                });
+        if (!searched[0]) {
+            log.debug("Reusing excluded dependencies for configuration '{}'",
+                    this.configuration.getName());
+            this.recorder.count(Phase.EXCLUSION_GRAPH_RESOLUTION, "reused");
+        }
+        return excludedDependencies;
+    }
+
+    /**
+     * Returns whether any of the given {@code dependencies} can contribute transitive
+     * dependencies to the graph. Exclusions, whether declared in a pom or in dependency
+     * management, only apply to the dependencies of a dependency so, when none of them
+     * can, nothing can be excluded and the graph does not need to be resolved.
+     */
+    private boolean hasTransitiveDependencies(Collection<? extends Dependency> dependencies) {
+        for (Dependency dependency : dependencies) {
+            if (dependency instanceof ProjectDependency || (dependency instanceof
+                    ModuleDependency && ((ModuleDependency) dependency).isTransitive())) {
+                return true;
+            }
+        }
+        return false;
     }
 
-    private Set<DependencyCandidate> findExcludedDependencies() {
+    private ExcludedDependencies doFindExcludedDependencies() {
         DependencySet allDependencies = configuration.getAllDependencies();
         Configuration configurationCopy = this.configurationContainer.newConfiguration(
                 this.versionConfigurer, allDependencies.toArray(new Dependency[allDependencies.size()]));
+        long start = this.recorder.start();
         ResolutionResult resolutionResult = configurationCopy.getIncoming().getResolutionResult();
         ResolvedComponentResult root = resolutionResult.getRoot();
+        this.recorder.record(Phase.EXCLUSION_GRAPH_RESOLUTION, start);
         final Set<DependencyCandidate> excludedDependencies = new HashSet<DependencyCandidate>();
         resolutionResult.allDependencies(new Action<DependencyResult>() {
             @Override
             public void execute(DependencyResult dependencyResult) {
                 if (dependencyResult instanceof ResolvedDependencyResult) {
                     ResolvedDependencyResult resolved = (ResolvedDependencyResult)dependencyResult;
-                    excludedDependencies.add(new DependencyCandidate(resolved.getSelected()
-                            .getModuleVersion().getGroup(), resolved.getSelected()
-                            .getModuleVersion().getName()));
+                    excludedDependencies.add(toDependencyCandidate(resolved.getSelected()));
                 }
                 else if (dependencyResult instanceof UnresolvedDependencyResult) {
                     DependencyCandidate dependencyCandidate = toDependencyCandidate
@@ -144,46 +233,190 @@ public class ExclusionConfiguringAction implements Action<ResolvableDependencies
                 }
             }
         });
-        Set<DependencyCandidate> includedDependencies = determineIncludedComponents(root,
-                this.exclusionResolver.resolveExclusions(resolutionResult.getAllComponents()));
-        excludedDependencies.removeAll(includedDependencies);
-        return excludedDependencies;
+        start = this.recorder.start();
+        Map<String, Exclusions> pomExclusions = this.exclusionResolver.resolveExclusions(
+                resolutionResult.getAllComponents(),
+                this.dependencyManagementExtension.getPomProcessingParallelism());
+        this.recorder.record(Phase.EXCLUSION_POM_PROCESSING, start);
+        if (!anyExcluded(excludedDependencies, pomExclusions.values())) {
+            log.debug("Skipping the exclusion walk of configuration '{}' as none of its {} " +
+                    "dependencies is excluded by its poms or dependency management",
+                    this.configuration.getName(), excludedDependencies.size());
+            this.recorder.count(Phase.EXCLUSION_POM_PROCESSING, "skippedWalks");
+            return ExcludedDependencies.NONE;
+        }
+        BitSet includedDependencies = determineIncludedComponents(root, pomExclusions);
+        Iterator<DependencyCandidate> candidates = excludedDependencies.iterator();
+        while (candidates.hasNext()) {
+            if (includedDependencies.get(candidates.next().id)) {
+                candidates.remove();
+            }
+        }
+        Map<Integer, BitSet> reachableByDependency = null;
+        if (isReachingDependenciesStrategy() && !excludedDependencies.isEmpty()) {
+            reachableByDependency = determineReachableComponents(root);
+        }
+        return new ExcludedDependencies(excludedDependencies, reachableByDependency);
+    }
+
+    /**
+     * Returns whether any of the given {@code candidates} is named by an exclusion in the
+     * given {@code pomExclusions} or in the configuration's dependency management. When
+     * none is, walking the graph would include every candidate.
+     */
+    private boolean anyExcluded(Set<DependencyCandidate> candidates,
+            Collection<Exclusions> pomExclusions) {
+        if (candidates.isEmpty()) {
+            return false;
+        }
+        BitSet candidateIds = new BitSet();
+        for (DependencyCandidate candidate : candidates) {
+            candidateIds.set(candidate.id);
+        }
+        if (anyExcluded(candidateIds, this.dependencyManagementContainer.getExclusions(
+                this.configuration))) {
+            return true;
+        }
+        for (Exclusions exclusions : pomExclusions) {
+            if (anyExcluded(candidateIds, exclusions)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean anyExcluded(BitSet candidateIds, Exclusions exclusions) {
+        for (Set<String> exclusionsForDependency : exclusions.all().values()) {
+            for (String exclusion : exclusionsForDependency) {
+                int separator = exclusion.indexOf(':');
+                int id = separator < 0 ? this.coordinateInterner.find(exclusion, "") :
+                        this.coordinateInterner.find(exclusion.substring(0, separator),
+                                exclusion.substring(separator + 1));
+                if (id >= 0 && candidateIds.get(id)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Determines the ids of the components, resolved or unresolved, that can be reached
+     * from each of the root's direct dependencies. The reachable components are keyed by
+     * the id of the requested module and, if it differs, the selected module.
+     */
+    private Map<Integer, BitSet> determineReachableComponents(ResolvedComponentResult root) {
+        Map<Integer, BitSet> reachableByDependency = new HashMap<Integer, BitSet>();
+        for (DependencyResult dependency : root.getDependencies()) {
+            if (dependency instanceof ResolvedDependencyResult) {
+                ResolvedComponentResult selected = ((ResolvedDependencyResult) dependency)
+                        .getSelected();
+                BitSet reachable = determineComponentsReachableFrom(selected);
+                reachableByDependency.put(getId(selected), reachable);
+                if (dependency.getRequested() instanceof ModuleComponentSelector) {
+                    ModuleComponentSelector requested =
+                            (ModuleComponentSelector) dependency.getRequested();
+                    reachableByDependency.put(this.coordinateInterner.intern(
+                            requested.getGroup(), requested.getModule()), reachable);
+                }
+            }
+        }
+        return reachableByDependency;
+    }
+
+    private BitSet determineComponentsReachableFrom(ResolvedComponentResult start) {
+        BitSet reachable = new BitSet();
+        LinkedList<ResolvedComponentResult> queue = new LinkedList<ResolvedComponentResult>();
+        Set<ResolvedComponentResult> seen = new HashSet<ResolvedComponentResult>();
+        queue.add(start);
+        seen.add(start);
+        while (!queue.isEmpty()) {
+            ResolvedComponentResult component = queue.remove();
+            reachable.set(getId(component));
+            for (DependencyResult dependency : component.getDependencies()) {
+                if (dependency instanceof ResolvedDependencyResult) {
+                    ResolvedComponentResult child = ((ResolvedDependencyResult) dependency)
+                            .getSelected();
+                    if (seen.add(child)) {
+                        queue.add(child);
+                    }
+                }
+                else if (dependency instanceof UnresolvedDependencyResult) {
+                    DependencyCandidate candidate = toDependencyCandidate(
+                            (UnresolvedDependencyResult) dependency);
+                    if (candidate != null) {
+                        reachable.set(candidate.id);
+                    }
+                }
+            }
+        }
+        return reachable;
     }
 
-    private Set<DependencyCandidate> determineIncludedComponents(ResolvedComponentResult root,
+    /**
+     * Walks the graph beneath the given {@code root}, honouring Maven's exclusion semantics,
+     * and returns the ids of the components that are not excluded. Package-private so that
+     * it can be benchmarked.
+     */
+    BitSet determineIncludedComponents(ResolvedComponentResult root,
             Map<String, Exclusions> pomExclusionsById) {
+        Exclusions managedExclusions =
+                this.dependencyManagementContainer.getExclusions(this.configuration);
+        Exclusions[] pomExclusions = internKeys(pomExclusionsById);
+        WalkStatistics statistics = new WalkStatistics();
         LinkedList<Node> queue = new LinkedList<Node>();
-        queue.add(new Node(root, getId(root), new HashSet<String>()));
+        queue.add(new Node(root, getId(root), new BitSet()));
         Set<ResolvedComponentResult> seen = new HashSet<ResolvedComponentResult>();
-        Set<DependencyCandidate> includedComponents = new HashSet<DependencyCandidate>();
+        BitSet includedComponents = new BitSet();
         while (!queue.isEmpty()) {
             Node node = queue.remove();
-            includedComponents.add(new DependencyCandidate(node.component.getModuleVersion()
-                    .getGroup(), node.component.getModuleVersion().getName()));
+            statistics.nodes++;
+            includedComponents.set(node.id);
             for (DependencyResult dependency : node.component.getDependencies()) {
                 if (dependency instanceof ResolvedDependencyResult) {
                     ResolvedComponentResult child = ((ResolvedDependencyResult) dependency)
                             .getSelected();
-                    String childId = getId(child);
+                    int childId = getId(child);
                     if (!node.excluded(childId) && seen.add(child)) {
-                        queue.add(new Node(child, childId,
-                                getChildExclusions(node, childId, pomExclusionsById)));
+                        queue.add(new Node(child, childId, getChildExclusions(node, childId,
+                                managedExclusions, pomExclusions, statistics)));
                     }
 
                 }
                 else if (dependency instanceof UnresolvedDependencyResult) {
                     DependencyCandidate dependencyCandidate = toDependencyCandidate(
                             (UnresolvedDependencyResult)dependency);
-                    if (dependencyCandidate != null && (!node.excluded(dependencyCandidate
-                            .groupId + ":" + dependencyCandidate.artifactId))) {
-                        includedComponents.add(dependencyCandidate);
+                    if (dependencyCandidate != null && !node.excluded(dependencyCandidate.id)) {
+                        includedComponents.set(dependencyCandidate.id);
                     }
                 }
             }
         }
+        if (log.isDebugEnabled()) {
+            log.debug("Walked {} nodes of configuration '{}' allocating {} exclusion sets " +
+                    "and sharing {}", statistics.nodes, this.configuration.getName(),
+                    statistics.allocatedSets, statistics.sharedSets);
+        }
         return includedComponents;
     }
 
+    private Exclusions[] internKeys(Map<String, Exclusions> exclusionsById) {
+        Exclusions[] interned = new Exclusions[this.coordinateInterner.size()];
+        for (Map.Entry<String, Exclusions> entry : exclusionsById.entrySet()) {
+            int id = this.coordinateInterner.intern(entry.getKey());
+            if (id >= interned.length) {
+                interned = Arrays.copyOf(interned, id + 1);
+            }
+            interned[id] = entry.getValue();
+        }
+        return interned;
+    }
+
+    private DependencyCandidate toDependencyCandidate(ResolvedComponentResult component) {
+        return new DependencyCandidate(getId(component), component.getModuleVersion()
+                .getGroup(), component.getModuleVersion().getName());
+    }
+
     private DependencyCandidate toDependencyCandidate(
             UnresolvedDependencyResult unresolved) {
         ComponentSelector attemptedSelector = unresolved.getAttempted();
@@ -192,89 +425,86 @@ public class ExclusionConfiguringAction implements Action<ResolvableDependencies
         }
         ModuleComponentSelector attemptedModuleSelector =
                 (ModuleComponentSelector) attemptedSelector;
-        return new DependencyCandidate(attemptedModuleSelector
-                .getGroup(), attemptedModuleSelector.getModule());
+        return new DependencyCandidate(this.coordinateInterner.intern(
+                attemptedModuleSelector.getGroup(), attemptedModuleSelector.getModule()),
+                attemptedModuleSelector.getGroup(), attemptedModuleSelector.getModule());
     }
 
-    private Set<String> getChildExclusions(Node parent, String childId,
-            Map<String, Exclusions> pomExclusionsById) {
-        Set<String> childExclusions = new HashSet<String>(parent.exclusions);
-        addAllIfPossible(childExclusions,
-                this.dependencyManagementContainer.getExclusions(this.configuration)
-                        .exclusionsForDependency(childId));
-        Exclusions exclusionsInPom = pomExclusionsById.get(parent.id);
+    private BitSet getChildExclusions(Node parent, int childId,
+            Exclusions managedExclusions, Exclusions[] pomExclusions,
+            WalkStatistics statistics) {
+        BitSet childExclusions = withAdditions(parent.exclusions,
+                managedExclusions.exclusionsForDependency(childId, this.coordinateInterner),
+                statistics);
+        Exclusions exclusionsInPom = parent.id < pomExclusions.length ?
+                pomExclusions[parent.id] : null;
         if (exclusionsInPom != null) {
-            addAllIfPossible(childExclusions, exclusionsInPom.exclusionsForDependency(childId));
+            childExclusions = withAdditions(childExclusions,
+                    exclusionsInPom.exclusionsForDependency(childId, this.coordinateInterner),
+                    statistics);
+        }
+        if (childExclusions == parent.exclusions) {
+            statistics.sharedSets++;
         }
         return childExclusions;
     }
 
-    private void addAllIfPossible(Set<String> current, Set<String> addition) {
-        if (addition != null) {
-            current.addAll(addition);
+    /**
+     * Returns a set containing the {@code current} exclusions and the {@code additions}.
+     * {@code current} is never modified; it is returned as-is when the additions would not
+     * change it so that a child can share its parent's exclusions.
+     */
+    private BitSet withAdditions(BitSet current, BitSet additions, WalkStatistics statistics) {
+        if (additions == null || containsAll(current, additions)) {
+            return current;
         }
-
+        BitSet copy = (BitSet) current.clone();
+        copy.or(additions);
+        statistics.allocatedSets++;
+        return copy;
     }
 
-    private String getId(ResolvedComponentResult component) {
-        return component.getModuleVersion().getGroup() + ":" + component.getModuleVersion()
-                .getName();
+    private boolean containsAll(BitSet current, BitSet candidates) {
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            if (!current.get(i)) {
+                return false;
+            }
+        }
+        return true;
     }
 
-    private static class Node {
-
-        private final ResolvedComponentResult component;
+    private int getId(ResolvedComponentResult component) {
+        return this.coordinateInterner.intern(
+                String.valueOf(component.getModuleVersion().getGroup()),
+                String.valueOf(component.getModuleVersion().getName()));
+    }
 
-        private final String id;
+    private static final class WalkStatistics {
 
-        private final Set<String> exclusions;
+        private int nodes;
 
-        private Node(ResolvedComponentResult component, String id, Set<String> exclusions) {
-            this.component = component;
-            this.id = id;
-            this.exclusions = exclusions;
-        }
+        private int allocatedSets;
 
-        private boolean excluded(String id) {
-            return this.exclusions != null && this.exclusions.contains(id);
-        }
+        private int sharedSets;
 
     }
 
-    private static class DependencyCandidate {
-
-        private final String groupId;
-
-        private final String artifactId;
-
-        DependencyCandidate(String groupId, String artifactId) {
-            this.groupId = groupId;
-            this.artifactId = artifactId;
-        }
+    private static class Node {
 
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) {
-                return true;
-            }
-            if (o == null || getClass() != o.getClass()) {
-                return false;
-            }
+        private final ResolvedComponentResult component;
 
-            DependencyCandidate that = (DependencyCandidate) o;
+        private final int id;
 
-            if (!groupId.equals(that.groupId)) {
-                return false;
-            }
-            return artifactId.equals(that.artifactId);
+        private final BitSet exclusions;
 
+        private Node(ResolvedComponentResult component, int id, BitSet exclusions) {
+            this.component = component;
+            this.id = id;
+            this.exclusions = exclusions;
         }
 
-        @Override
-        public int hashCode() {
-            int result = groupId.hashCode();
-            result = 31 * result + artifactId.hashCode();
-            return result;
+        private boolean excluded(int id) {
+            return this.exclusions.get(id);
         }
 
     }
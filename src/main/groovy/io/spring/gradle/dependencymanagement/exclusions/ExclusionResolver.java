@@ -18,8 +18,10 @@ package io.spring.gradle.dependencymanagement.exclusions;
 
 import io.spring.gradle.dependencymanagement.DependencyManagementConfigurationContainer;
 import io.spring.gradle.dependencymanagement.maven.EffectiveModelBuilder;
-import io.spring.gradle.dependencymanagement.maven.ModelExclusionCollector;
-import io.spring.gradle.dependencymanagement.org.apache.maven.model.Model;
+import io.spring.gradle.dependencymanagement.maven.EffectivePom;
+import io.spring.gradle.dependencymanagement.maven.ModelNotPrefetchedException;
+import io.spring.gradle.dependencymanagement.maven.PomProcessingExecutor;
+import org.gradle.api.GradleException;
 import org.gradle.api.artifacts.Configuration;
 import org.gradle.api.artifacts.Dependency;
 import org.gradle.api.artifacts.ModuleVersionIdentifier;
@@ -28,16 +30,29 @@ import org.gradle.api.artifacts.component.ProjectComponentIdentifier;
 import org.gradle.api.artifacts.dsl.DependencyHandler;
 import org.gradle.api.artifacts.result.ResolvedComponentResult;
 import org.gradle.api.specs.Specs;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
- * Resolves the {@link Exclusions exclusions} for a {@link ResolvedComponentResult dependency}
+ * Resolves the {@link Exclusions exclusions} for a {@link ResolvedComponentResult dependency}.
+ * Exclusions can be resolved by concurrent threads, with the first exclusions to be cached
+ * for a dependency being used by every thread. When poms are processed concurrently, using
+ * the build's {@link PomProcessingExecutor}, its threads do not use the project: a pom
+ * whose processing needs a pom that has not already been resolved is processed again on
+ * the calling thread.
  *
  * @author Andy Wilkinson
  */
@@ -49,20 +64,42 @@ public class ExclusionResolver {
 
     private final EffectiveModelBuilder effectiveModelBuilder;
 
-    private final Map<String, Exclusions> exclusionsCache = new HashMap<String, Exclusions>();
+    private final PomProcessingExecutor pomProcessingExecutor;
+
+    private final Logger log = LoggerFactory.getLogger(ExclusionResolver.class);
+
+    private final ConcurrentMap<String, Exclusions> exclusionsCache =
+            new ConcurrentHashMap<String, Exclusions>();
 
     public ExclusionResolver(DependencyHandler dependencyHandler,
             DependencyManagementConfigurationContainer configurationContainer,
-            EffectiveModelBuilder effectiveModelBuilder) {
+            EffectiveModelBuilder effectiveModelBuilder,
+            PomProcessingExecutor pomProcessingExecutor) {
         this.dependencyHandler = dependencyHandler;
         this.configurationContainer = configurationContainer;
         this.effectiveModelBuilder = effectiveModelBuilder;
+        this.pomProcessingExecutor = pomProcessingExecutor;
     }
 
     public Map<String, Exclusions> resolveExclusions(
             Collection<ResolvedComponentResult> resolvedComponents) {
+        return resolveExclusions(resolvedComponents, 1);
+    }
+
+    /**
+     * Resolves the exclusions of the given {@code resolvedComponents}, building the
+     * effective models of their poms using up to {@code parallelism} threads. The
+     * returned exclusions are the same, and in the same order, irrespective of the
+     * parallelism.
+     *
+     * @param resolvedComponents the components
+     * @param parallelism the maximum number of poms to process concurrently
+     * @return the exclusions keyed by {@code group:name}
+     */
+    public Map<String, Exclusions> resolveExclusions(
+            Collection<ResolvedComponentResult> resolvedComponents, int parallelism) {
         List<Dependency> dependencies = new ArrayList<Dependency>();
-        Map<String, Exclusions> exclusionsById = new HashMap<String, Exclusions>();
+        Map<String, Exclusions> exclusionsById = new LinkedHashMap<String, Exclusions>();
         for (ResolvedComponentResult resolvedComponent : resolvedComponents) {
             if (!(resolvedComponent
                     .getId() instanceof ProjectComponentIdentifier) && resolvedComponent
@@ -80,20 +117,115 @@ public class ExclusionResolver {
                 }
             }
         }
+        if (dependencies.isEmpty()) {
+            return exclusionsById;
+        }
         Configuration configuration = this.configurationContainer.newConfiguration(dependencies
                         .toArray(new Dependency[dependencies.size()]));
-        ModelExclusionCollector exclusionsCollector = new ModelExclusionCollector();
-        for (ResolvedArtifact resolvedArtifact : configuration.getResolvedConfiguration()
-                .getLenientConfiguration().getArtifacts(Specs.SATISFIES_ALL)) {
-            ModuleVersionIdentifier moduleId = resolvedArtifact.getModuleVersion().getId();
-            File pom = resolvedArtifact.getFile();
-            Model model = this.effectiveModelBuilder.buildModel(pom);
-            Exclusions exclusions = (Exclusions) exclusionsCollector.collectExclusions(model);
-            String id = moduleId.getGroup() + ":" + moduleId.getName();
-            this.exclusionsCache.put(id, exclusions);
-            exclusionsById.put(id, exclusions);
+        List<ResolvedArtifact> poms = new ArrayList<ResolvedArtifact>(configuration
+                .getResolvedConfiguration().getLenientConfiguration()
+                .getArtifacts(Specs.SATISFIES_ALL));
+        Map<String, File> pomFiles = new LinkedHashMap<String, File>();
+        for (ResolvedArtifact pom : poms) {
+            pomFiles.put(id(pom) + ":" + pom.getModuleVersion().getId().getVersion(),
+                    pom.getFile());
+        }
+        this.effectiveModelBuilder.prefetchReferencedPoms(pomFiles);
+        List<Exclusions> exclusions = parallelism > 1 && poms.size() > 1 ?
+                collectExclusionsConcurrently(poms, parallelism) : collectExclusions(poms);
+        for (int i = 0; i < poms.size(); i++) {
+            String id = id(poms.get(i));
+            Exclusions existing = this.exclusionsCache.putIfAbsent(id, exclusions.get(i));
+            exclusionsById.put(id, existing == null ? exclusions.get(i) : existing);
         }
         return exclusionsById;
     }
 
+    private List<Exclusions> collectExclusions(List<ResolvedArtifact> poms) {
+        List<Exclusions> exclusions = new ArrayList<Exclusions>(poms.size());
+        for (ResolvedArtifact pom : poms) {
+            exclusions.add(collectExclusions(this.effectiveModelBuilder, pom));
+        }
+        return exclusions;
+    }
+
+    private List<Exclusions> collectExclusionsConcurrently(List<ResolvedArtifact> poms,
+            int parallelism) {
+        int threads = Math.min(parallelism, poms.size());
+        log.debug("Collecting the exclusions of {} poms using {} threads", poms.size(), threads);
+        final EffectiveModelBuilder concurrentModelBuilder =
+                this.effectiveModelBuilder.forConcurrentUse();
+        List<Callable<Exclusions>> tasks = new ArrayList<Callable<Exclusions>>(poms.size());
+        for (final ResolvedArtifact pom : poms) {
+            tasks.add(new Callable<Exclusions>() {
+
+                @Override
+                public Exclusions call() {
+                    return collectExclusions(concurrentModelBuilder, pom);
+                }
+
+            });
+        }
+        List<Future<Exclusions>> futures = this.pomProcessingExecutor.submit(tasks, threads);
+        try {
+            List<Exclusions> exclusions = new ArrayList<Exclusions>(poms.size());
+            for (int i = 0; i < futures.size(); i++) {
+                Exclusions pomExclusions = await(concurrentModelBuilder, futures.get(i),
+                        poms.get(i));
+                if (pomExclusions == null) {
+                    pomExclusions = collectExclusions(this.effectiveModelBuilder, poms.get(i));
+                }
+                exclusions.add(pomExclusions);
+            }
+            return exclusions;
+        }
+        finally {
+            for (Future<Exclusions> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Waits for the exclusions of the given {@code pom} to be collected, returning
+     * {@code null} if they could not be collected because a pom that has not already been
+     * resolved is needed.
+     */
+    private Exclusions await(EffectiveModelBuilder concurrentModelBuilder,
+            Future<Exclusions> future, ResolvedArtifact pom) {
+        try {
+            return concurrentModelBuilder.await(future);
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new GradleException("Interrupted while processing " + pom.getFile(), ex);
+        }
+        catch (ExecutionException ex) {
+            if (ex.getCause() instanceof ModelNotPrefetchedException) {
+                log.debug("Processing {} on the calling thread: {}", pom.getFile(),
+                        ex.getCause().getMessage());
+                return null;
+            }
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new GradleException("Processing of " + pom.getFile() + " failed",
+                    ex.getCause());
+        }
+    }
+
+    private Exclusions collectExclusions(EffectiveModelBuilder effectiveModelBuilder,
+            ResolvedArtifact pom) {
+        ModuleVersionIdentifier moduleId = pom.getModuleVersion().getId();
+        EffectivePom effectivePom = effectiveModelBuilder.buildEffectivePom(
+                id(pom) + ":" + moduleId.getVersion(), pom.getFile(),
+                Collections.<String, String>emptyMap());
+        return effectivePom == null ? new Exclusions() : effectivePom.getExclusions();
+    }
+
+    private String id(ResolvedArtifact pom) {
+        ModuleVersionIdentifier moduleId = pom.getModuleVersion().getId();
+        return moduleId.getGroup() + ":" + moduleId.getName();
+    }
+
 }
@@ -16,7 +16,9 @@
 
 package io.spring.gradle.dependencymanagement.exclusions;
 
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -31,7 +33,9 @@ public class Exclusions {
 
     private final Map<String, Set<String>> exclusionsByDependency = new HashMap<String, Set<String>>();
 
-    void add(String dependency, Collection<String> exclusionsForDependency) {
+    private volatile Interned interned;
+
+    public void add(String dependency, Collection<String> exclusionsForDependency) {
         Set<String> exclusions = this.exclusionsByDependency.get(dependency);
         if (exclusions == null) {
             exclusions = new HashSet<String>();
@@ -39,6 +43,7 @@ public class Exclusions {
         }
 
         exclusions.addAll(exclusionsForDependency);
+        this.interned = null;
     }
 
     void addAll(Exclusions toAdd) {
@@ -51,12 +56,59 @@ public class Exclusions {
         return exclusionsByDependency.get(dependency);
     }
 
-    Map<String, Set<String>> all() {
-        return exclusionsByDependency;
+    /**
+     * Returns the ids of the exclusions for the dependency with the given
+     * {@code dependencyId}, or {@code null} if it has no exclusions. The ids are those of
+     * the given {@code interner}. The returned set must not be modified.
+     *
+     * @param dependencyId the id of the dependency
+     * @param interner the interner that allocated the id
+     * @return the ids of the exclusions or {@code null}
+     */
+    BitSet exclusionsForDependency(int dependencyId, CoordinateInterner interner) {
+        Interned current = this.interned;
+        if (current == null || current.interner != interner) {
+            current = new Interned(interner, this.exclusionsByDependency);
+            this.interned = current;
+        }
+        return dependencyId < current.exclusionsById.length ?
+                current.exclusionsById[dependencyId] : null;
+    }
+
+    public Map<String, Set<String>> all() {
+        return Collections.unmodifiableMap(exclusionsByDependency);
     }
 
     public String toString() {
         return exclusionsByDependency.toString();
     }
 
+    private static final class Interned {
+
+        private final CoordinateInterner interner;
+
+        private final BitSet[] exclusionsById;
+
+        private Interned(CoordinateInterner interner,
+                Map<String, Set<String>> exclusionsByDependency) {
+            this.interner = interner;
+            Map<Integer, BitSet> exclusionsById = new HashMap<Integer, BitSet>();
+            int maxId = -1;
+            for (Map.Entry<String, Set<String>> entry : exclusionsByDependency.entrySet()) {
+                int id = interner.intern(entry.getKey());
+                BitSet exclusions = new BitSet();
+                for (String exclusion : entry.getValue()) {
+                    exclusions.set(interner.intern(exclusion));
+                }
+                exclusionsById.put(id, exclusions);
+                maxId = Math.max(maxId, id);
+            }
+            this.exclusionsById = new BitSet[maxId + 1];
+            for (Map.Entry<Integer, BitSet> entry : exclusionsById.entrySet()) {
+                this.exclusionsById[entry.getKey()] = entry.getValue();
+            }
+        }
+
+    }
+
 }
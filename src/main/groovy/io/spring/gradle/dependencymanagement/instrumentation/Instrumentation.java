@@ -0,0 +1,313 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.dependencymanagement.instrumentation;
+
+import io.spring.gradle.dependencymanagement.BuildScope;
+import org.gradle.BuildAdapter;
+import org.gradle.BuildResult;
+import org.gradle.api.Project;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Build-wide instrumentation that records the wall time spent in, and the number of
+ * executions of, each {@link Phase} of dependency management, broken down by project and
+ * configuration. When enabled using the {@value #ENABLED_PROPERTY} property of the root
+ * project, the recordings are written as JSON at the end of the build to the file
+ * identified by the {@value #FILE_PROPERTY} property or, by default, to
+ * {@code build/reports/dependency-management/instrumentation.json} beneath the root
+ * project. When disabled, every {@link Recorder} is a no-op.
+ *
+ * @author Andy Wilkinson
+ */
+public final class Instrumentation {
+
+    /**
+     * The name of the root project property that enables instrumentation.
+     */
+    public static final String ENABLED_PROPERTY = "dependencyManagement.instrumentation";
+
+    /**
+     * The name of the root project property that configures the file to which the
+     * recordings are written.
+     */
+    public static final String FILE_PROPERTY = "dependencyManagement.instrumentation.file";
+
+    private static final Recorder NO_OP_RECORDER = new Recorder(null, null);
+
+    private final Logger log = LoggerFactory.getLogger(Instrumentation.class);
+
+    private final boolean enabled;
+
+    private final ConcurrentMap<String, Recorder> recorders =
+            new ConcurrentHashMap<String, Recorder>();
+
+    Instrumentation(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Returns the {@code Instrumentation} for the build of the given {@code project}.
+     *
+     * @param project any project in the build
+     * @return the instrumentation
+     */
+    public static Instrumentation forProject(Project project) {
+        return BuildScope.get(project, Instrumentation.class,
+                new BuildScope.Factory<Instrumentation>() {
+
+                    @Override
+                    public Instrumentation create(Project rootProject) {
+                        boolean enabled = rootProject.hasProperty(ENABLED_PROPERTY) && Boolean
+                                .valueOf(String.valueOf(rootProject.property(ENABLED_PROPERTY)));
+                        final Instrumentation instrumentation = new Instrumentation(enabled);
+                        if (enabled) {
+                            final File file = rootProject.hasProperty(FILE_PROPERTY) ?
+                                    rootProject.file(rootProject.property(FILE_PROPERTY)) :
+                                    new File(rootProject.getBuildDir(),
+                                            "reports/dependency-management/instrumentation.json");
+                            rootProject.getGradle().addBuildListener(new BuildAdapter() {
+
+                                @Override
+                                public void buildFinished(BuildResult result) {
+                                    instrumentation.writeReport(file);
+                                }
+
+                            });
+                        }
+                        return instrumentation;
+                    }
+
+                });
+    }
+
+    /**
+     * Returns whether instrumentation is enabled.
+     *
+     * @return {@code true} if enabled, otherwise {@code false}
+     */
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Returns the {@link Recorder} for the configuration with the given
+     * {@code configurationName} in the project with the given {@code projectPath}.
+     *
+     * @param projectPath the path of the project
+     * @param configurationName the name of the configuration or {@code null} for
+     * recordings that are not specific to a configuration
+     * @return the recorder
+     */
+    public Recorder recorder(String projectPath, String configurationName) {
+        if (!this.enabled) {
+            return NO_OP_RECORDER;
+        }
+        String key = projectPath + "#" + (configurationName == null ? "" : configurationName);
+        Recorder recorder = this.recorders.get(key);
+        if (recorder == null) {
+            recorder = new Recorder(projectPath, configurationName);
+            Recorder existing = this.recorders.putIfAbsent(key, recorder);
+            if (existing != null) {
+                recorder = existing;
+            }
+        }
+        return recorder;
+    }
+
+    /**
+     * Writes the recordings as JSON to the given {@code file}.
+     *
+     * @param file the file
+     */
+    public void writeReport(File file) {
+        file.getParentFile().mkdirs();
+        try {
+            Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+            try {
+                writeReport(writer);
+            }
+            finally {
+                writer.close();
+            }
+            log.info("Wrote dependency management instrumentation to {}", file);
+        }
+        catch (IOException ex) {
+            log.warn("Failed to write dependency management instrumentation to " + file, ex);
+        }
+    }
+
+    private void writeReport(Writer writer) throws IOException {
+        List<String> keys = new ArrayList<String>(this.recorders.keySet());
+        Collections.sort(keys);
+        writer.write("{\n  \"phases\": [");
+        boolean first = true;
+        for (String key : keys) {
+            Recorder recorder = this.recorders.get(key);
+            for (Phase phase : Phase.values()) {
+                long count = recorder.counts.get(phase.ordinal());
+                if (count == 0 && recorder.counters.get(phase.ordinal()).isEmpty()) {
+                    continue;
+                }
+                writer.write(first ? "\n" : ",\n");
+                first = false;
+                writer.write("    {\"project\": " + quote(recorder.projectPath) +
+                        ", \"configuration\": " + quote(recorder.configurationName) +
+                        ", \"phase\": " + quote(phase.getName()) + ", \"count\": " + count +
+                        ", \"wallTimeNanos\": " + recorder.nanos.get(phase.ordinal()) +
+                        ", \"counters\": {");
+                boolean firstCounter = true;
+                for (Map.Entry<String, Long> counter : recorder.counters(phase).entrySet()) {
+                    writer.write((firstCounter ? "" : ", ") + quote(counter.getKey()) + ": " +
+                            counter.getValue());
+                    firstCounter = false;
+                }
+                writer.write("}}");
+            }
+        }
+        writer.write(first ? "]\n}\n" : "\n  ]\n}\n");
+    }
+
+    private static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder quoted = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            }
+            else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            }
+            else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    /**
+     * Records the phases of a particular project and configuration. All of its methods
+     * are safe for concurrent use.
+     */
+    public static final class Recorder {
+
+        private final String projectPath;
+
+        private final String configurationName;
+
+        private final AtomicLongArray counts = new AtomicLongArray(Phase.values().length);
+
+        private final AtomicLongArray nanos = new AtomicLongArray(Phase.values().length);
+
+        private final List<ConcurrentMap<String, AtomicLong>> counters =
+                new ArrayList<ConcurrentMap<String, AtomicLong>>();
+
+        private Recorder(String projectPath, String configurationName) {
+            this.projectPath = projectPath;
+            this.configurationName = configurationName;
+            for (int i = 0; i < Phase.values().length; i++) {
+                this.counters.add(new ConcurrentHashMap<String, AtomicLong>());
+            }
+        }
+
+        /**
+         * Returns the start time of a phase that is about to be executed, to be passed
+         * to {@link #record}.
+         *
+         * @return the start time
+         */
+        public long start() {
+            return this == NO_OP_RECORDER ? 0 : System.nanoTime();
+        }
+
+        /**
+         * Records an execution of the given {@code phase} that began at the given
+         * {@code start} time.
+         *
+         * @param phase the phase
+         * @param start the start time returned by {@link #start()}
+         */
+        public void record(Phase phase, long start) {
+            if (this != NO_OP_RECORDER) {
+                this.counts.incrementAndGet(phase.ordinal());
+                this.nanos.addAndGet(phase.ordinal(), System.nanoTime() - start);
+            }
+        }
+
+        /**
+         * Increments the counter with the given {@code name} for the given {@code phase}.
+         *
+         * @param phase the phase
+         * @param name the name of the counter
+         */
+        public void count(Phase phase, String name) {
+            count(phase, name, 1);
+        }
+
+        /**
+         * Adds the given {@code amount} to the counter with the given {@code name} for the
+         * given {@code phase}.
+         *
+         * @param phase the phase
+         * @param name the name of the counter
+         * @param amount the amount to add
+         */
+        public void count(Phase phase, String name, long amount) {
+            if (this != NO_OP_RECORDER) {
+                ConcurrentMap<String, AtomicLong> counters = this.counters.get(phase.ordinal());
+                AtomicLong counter = counters.get(name);
+                if (counter == null) {
+                    counter = new AtomicLong();
+                    AtomicLong existing = counters.putIfAbsent(name, counter);
+                    if (existing != null) {
+                        counter = existing;
+                    }
+                }
+                counter.addAndGet(amount);
+            }
+        }
+
+        private Map<String, Long> counters(Phase phase) {
+            Map<String, Long> counters = new TreeMap<String, Long>();
+            for (Map.Entry<String, AtomicLong> entry :
+                    this.counters.get(phase.ordinal()).entrySet()) {
+                counters.put(entry.getKey(), entry.getValue().get());
+            }
+            return counters;
+        }
+
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.dependencymanagement.instrumentation;
+
+/**
+ * The phases of dependency management whose wall time and counts are recorded by
+ * {@link Instrumentation}.
+ *
+ * @author Andy Wilkinson
+ */
+public enum Phase {
+
+    /**
+     * The resolution and processing of the boms imported by a configuration's dependency
+     * management.
+     */
+    BOM_RESOLUTION("bomResolution"),
+
+    /**
+     * The building of the effective model of a pom, including the resolution of its
+     * parents.
+     */
+    MODEL_BUILDING("modelBuilding"),
+
+    /**
+     * The resolution of a parent pom while building an effective model.
+     */
+    PARENT_POM_RESOLUTION("parentPomResolution"),
+
+    /**
+     * The resolution of the detached copy of a configuration that is used to find the
+     * dependencies removed by Maven exclusions.
+     */
+    EXCLUSION_GRAPH_RESOLUTION("exclusionGraphResolution"),
+
+    /**
+     * The resolution and processing of the poms of a configuration's dependencies to
+     * collect their exclusions.
+     */
+    EXCLUSION_POM_PROCESSING("exclusionPomProcessing"),
+
+    /**
+     * The lookup of a dependency's managed version.
+     */
+    VERSION_LOOKUP("versionLookup");
+
+    private final String name;
+
+    Phase(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the name of the phase as it appears in the report.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return this.name;
+    }
+
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.spring.gradle.dependencymanagement.lock
+
+import groovy.json.JsonOutput
+import groovy.json.JsonSlurper
+import io.spring.gradle.dependencymanagement.ResolvedImports
+import io.spring.gradle.dependencymanagement.org.apache.maven.model.Dependency
+import io.spring.gradle.dependencymanagement.org.apache.maven.model.Exclusion
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+
+/**
+ * A JSON file in a project's directory that records the {@link ResolvedImports resolved
+ * imports} of the project's global and configuration-specific dependency management so
+ * that they can be used without resolving the imported boms
+ *
+ * @author Andy Wilkinson
+ */
+class DependencyManagementLockFile {
+
+    static final String FILE_NAME = 'dependency-management.lock'
+
+    private static final int FORMAT_VERSION = 1
+
+    private final Logger log = LoggerFactory.getLogger(DependencyManagementLockFile)
+
+    final File file
+
+    private Map contents
+
+    DependencyManagementLockFile(File file) {
+        this.file = file
+    }
+
+    /**
+     * Returns the locked imports of the dependency management of the configuration with the
+     * given {@code configurationName}, or of the global dependency management if the name is
+     * {@code null}
+     *
+     * @param configurationName the name of the configuration, or {@code null}
+     * @return the locked imports or {@code null} if there are none
+     */
+    synchronized ResolvedImports get(String configurationName) {
+        Map contents = readContents()
+        Map imports = configurationName == null ? contents.global :
+                contents.configurations?.get(configurationName)
+        imports ? fromJson(imports) : null
+    }
+
+    /**
+     * Writes the given imports to the lock file, replacing its existing contents
+     *
+     * @param global the imports of the global dependency management, or {@code null}
+     * @param configurations the imports of configuration-specific dependency management,
+     * keyed by configuration name
+     */
+    synchronized void write(ResolvedImports global, Map<String, ResolvedImports> configurations) {
+        Map contents = [version: FORMAT_VERSION] as LinkedHashMap
+        if (global) {
+            contents.global = toJson(global)
+        }
+        contents.configurations = new TreeMap(configurations).collectEntries { name, imports ->
+            [(name): toJson(imports)]
+        }
+        file.text = JsonOutput.prettyPrint(JsonOutput.toJson(contents)) + '\n'
+        this.contents = null
+    }
+
+    private Map readContents() {
+        if (this.contents == null) {
+            this.contents = [:]
+            if (file.file) {
+                try {
+                    Map contents = new JsonSlurper().parseText(file.text)
+                    if (contents.version == FORMAT_VERSION) {
+                        this.contents = contents
+                    }
+                    else {
+                        log.warn("Ignoring lock file {} as its format is not supported", file)
+                    }
+                } catch (Exception ex) {
+                    log.warn("Ignoring lock file {} as it could not be read: {}", file, ex.message)
+                }
+            }
+        }
+        this.contents
+    }
+
+    private Map toJson(ResolvedImports imports) {
+        [fingerprint: imports.fingerprint,
+         interpolationInputs: imports.interpolationInputs == null ? null :
+                 new TreeSet(imports.interpolationInputs) as List,
+         boms: imports.boms,
+         versions: imports.versions,
+         exclusions: new TreeMap(imports.exclusions.all()).collectEntries { dependency, excluded ->
+             [(dependency): excluded.sort()]
+         },
+         properties: new TreeMap(imports.bomProperties),
+         dependencyManagement: imports.bomDependencyManagement.collectEntries { bom, dependencies ->
+             [(bom): dependencies.collect { Dependency dependency ->
+                 [groupId: dependency.groupId,
+                  artifactId: dependency.artifactId,
+                  version: dependency.version,
+                  type: dependency.type,
+                  classifier: dependency.classifier,
+                  scope: dependency.scope,
+                  exclusions: dependency.exclusions.collect { "$it.groupId:$it.artifactId" }]
+             }]
+         }]
+    }
+
+    private ResolvedImports fromJson(Map json) {
+        ResolvedImports imports = new ResolvedImports(fingerprint: json.fingerprint)
+        if (json.interpolationInputs != null) {
+            imports.interpolationInputs = new TreeSet(json.interpolationInputs)
+        }
+        imports.boms.addAll(json.boms ?: [])
+        imports.versions.putAll(json.versions ?: [:])
+        json.exclusions?.each { String dependency, List<String> excluded ->
+            imports.exclusions.add(dependency, excluded)
+        }
+        imports.bomProperties.putAll(json.properties ?: [:])
+        json.dependencyManagement?.each { String bom, List<Map> dependencies ->
+            imports.bomDependencyManagement[bom] = dependencies.collect { Map dependency ->
+                Dependency managed = new Dependency(groupId: dependency.groupId,
+                        artifactId: dependency.artifactId, version: dependency.version,
+                        type: dependency.type, classifier: dependency.classifier,
+                        scope: dependency.scope)
+                dependency.exclusions.each { String exclusion ->
+                    def (groupId, artifactId) = exclusion.split(':')
+                    managed.addExclusion(new Exclusion(groupId: groupId, artifactId: artifactId))
+                }
+                managed
+            }
+        }
+        imports
+    }
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.spring.gradle.dependencymanagement.lock
+
+import io.spring.gradle.dependencymanagement.DependencyManagement
+import io.spring.gradle.dependencymanagement.DependencyManagementContainer
+import io.spring.gradle.dependencymanagement.ResolvedImports
+import org.gradle.api.DefaultTask
+import org.gradle.api.artifacts.Configuration
+import org.gradle.api.tasks.TaskAction
+
+/**
+ * Task to resolve the boms imported by a project's dependency management and write the
+ * result to its {@link DependencyManagementLockFile lock file}.
+ *
+ * @author Andy Wilkinson
+ */
+class DependencyManagementLockTask extends DefaultTask {
+
+    static final String NAME = 'writeDependencyManagementLock'
+
+    DependencyManagementContainer dependencyManagement
+
+    @TaskAction
+    void writeLock() {
+        ResolvedImports global = null
+        Map<String, ResolvedImports> configurations = [:]
+        dependencyManagement.eachDependencyManagement { Configuration configuration,
+                DependencyManagement management ->
+            if (management.hasImportedBoms()) {
+                ResolvedImports imports = management.lockImports()
+                if (configuration) {
+                    configurations[configuration.name] = imports
+                }
+                else {
+                    global = imports
+                }
+            }
+        }
+        dependencyManagement.lockFile.write(global, configurations)
+        logger.lifecycle("Wrote the imported boms of {} dependency management to {}",
+                configurations.size() + (global ? 1 : 0), dependencyManagement.lockFile.file)
+    }
+
+}
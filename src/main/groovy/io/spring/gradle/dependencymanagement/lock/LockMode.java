@@ -0,0 +1,44 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.spring.gradle.dependencymanagement.lock;
+
+/**
+ * The modes in which a {@link DependencyManagementLockFile lock file} can be used when
+ * resolving the boms imported by a project's dependency management.
+ *
+ * @author Andy Wilkinson
+ */
+public enum LockMode {
+
+    /**
+     * The lock file is not used and imported boms are always resolved.
+     */
+    DISABLED,
+
+    /**
+     * The lock file is used and the build fails if it is missing or out of date.
+     */
+    STRICT,
+
+    /**
+     * The lock file is used when it is up to date. When it is missing or out of date,
+     * a warning is logged and the imported boms are resolved instead.
+     */
+    LENIENT
+
+}
@@ -1,7 +1,10 @@
 package io.spring.gradle.dependencymanagement.maven;
 
 import io.spring.gradle.dependencymanagement.DependencyManagementConfigurationContainer;
+import io.spring.gradle.dependencymanagement.instrumentation.Instrumentation;
+import io.spring.gradle.dependencymanagement.instrumentation.Phase;
 import io.spring.gradle.dependencymanagement.org.apache.maven.model.Model;
+import io.spring.gradle.dependencymanagement.org.apache.maven.model.Repository;
 import io.spring.gradle.dependencymanagement.org.apache.maven.model.building.DefaultModelBuilder;
 import io.spring.gradle.dependencymanagement.org.apache.maven.model.building.DefaultModelBuilderFactory;
 import io.spring.gradle.dependencymanagement.org.apache.maven.model.building.DefaultModelBuildingRequest;
@@ -9,7 +12,10 @@ import io.spring.gradle.dependencymanagement.org.apache.maven.model.building.Fil
 import io.spring.gradle.dependencymanagement.org.apache.maven.model.building.ModelBuildingException;
 import io.spring.gradle.dependencymanagement.org.apache.maven.model.building.ModelBuildingResult;
 import io.spring.gradle.dependencymanagement.org.apache.maven.model.building.ModelProblem;
+import io.spring.gradle.dependencymanagement.org.apache.maven.model.building.ModelSource;
+import io.spring.gradle.dependencymanagement.org.apache.maven.model.resolution.InvalidRepositoryException;
 import io.spring.gradle.dependencymanagement.org.apache.maven.model.resolution.ModelResolver;
+import io.spring.gradle.dependencymanagement.org.apache.maven.model.resolution.UnresolvableModelException;
 import org.gradle.api.Project;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,26 +23,109 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
- * Builds the effective {@link Model} for a Maven pom
+ * Builds the effective {@link Model} for a Maven pom. Unless disabled using the
+ * {@value #STREAMING_PROPERTY} property of the root project, {@link EffectivePom effective
+ * poms} are read using a {@link StreamingPomReader} with Maven's model builder only being
+ * used for poms that the reader does not support.
  *
  * @author Andy Wilkinson
  */
 public final class EffectiveModelBuilder {
 
+    /**
+     * The name of the root project property that can be set to {@code false} to disable
+     * the streaming of effective poms.
+     */
+    public static final String STREAMING_PROPERTY = "dependencyManagement.streamingPomReader";
+
     private final Logger log = LoggerFactory.getLogger(EffectiveModelBuilder.class);
 
     private final Project project;
 
     private final ModelResolver modelResolver;
 
+    private final EffectivePomCache effectivePomCache;
+
+    private final PersistentEffectivePomCache persistentEffectivePomCache;
+
+    private final StreamingPomReader streamingPomReader;
+
+    private final Instrumentation.Recorder recorder;
+
+    private final ProjectPropertyValueSource projectProperties;
+
     public EffectiveModelBuilder(Project project,
             DependencyManagementConfigurationContainer configurationContainer) {
+        this(project, new PomDependencyModelResolver(project, configurationContainer));
+    }
+
+    EffectiveModelBuilder(Project project, ModelResolver modelResolver) {
         this.project = project;
-        this.modelResolver = new PomDependencyModelResolver(project, configurationContainer);
+        this.modelResolver = modelResolver;
+        Project rootProject = project.getRootProject();
+        this.streamingPomReader = rootProject.hasProperty(STREAMING_PROPERTY) && !Boolean
+                .valueOf(String.valueOf(rootProject.property(STREAMING_PROPERTY))) ? null :
+                new StreamingPomReader(modelResolver);
+        this.effectivePomCache = EffectivePomCache.forProject(project);
+        this.persistentEffectivePomCache = PersistentEffectivePomCache.forProject(project);
+        this.recorder = Instrumentation.forProject(project).recorder(project.getPath(), null);
+        this.projectProperties = null;
+    }
+
+    private EffectiveModelBuilder(EffectiveModelBuilder builder, ModelResolver modelResolver,
+            ProjectPropertyValueSource projectProperties) {
+        this.project = builder.project;
+        this.modelResolver = modelResolver;
+        this.streamingPomReader = builder.streamingPomReader == null ? null :
+                new StreamingPomReader(modelResolver);
+        this.effectivePomCache = builder.effectivePomCache;
+        this.persistentEffectivePomCache = builder.persistentEffectivePomCache;
+        this.recorder = builder.recorder;
+        this.projectProperties = projectProperties;
+    }
+
+    /**
+     * Returns a builder that shares this builder's caches and that can be used by threads
+     * other than the one that is configuring the project. Rather than using the project, it
+     * hands the lookup of each of the project's properties that it needs to the thread that
+     * called this method, which performs the lookups while it {@link #await awaits} the
+     * other threads' work. It only uses poms that have already been resolved, typically by
+     * {@link #prefetchReferencedPoms(Map) prefetching} them. When it needs any other pom, it throws
+     * a {@link ModelNotPrefetchedException} and the effective pom should be built again on
+     * the calling thread using this builder.
+     *
+     * @return the builder for concurrent use
+     */
+    public EffectiveModelBuilder forConcurrentUse() {
+        ModelResolver resolver = this.modelResolver instanceof PomDependencyModelResolver ?
+                ((PomDependencyModelResolver) this.modelResolver).prefetchedOnly() :
+                this.modelResolver;
+        return new EffectiveModelBuilder(this, resolver,
+                new ProjectPropertyValueSource(this.project));
+    }
+
+    /**
+     * Waits for the given {@code future}, which is building effective poms using this
+     * builder, to complete. When this builder is {@link #forConcurrentUse() for concurrent
+     * use}, this must be called by the thread that created it so that it can look up the
+     * project properties that the other threads need.
+     *
+     * @param future the future
+     * @param <T> the type of the future's result
+     * @return the future's result
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     * @throws ExecutionException if the future completed exceptionally
+     */
+    public <T> T await(Future<T> future) throws InterruptedException, ExecutionException {
+        return this.projectProperties == null ? future.get() :
+                this.projectProperties.await(future);
     }
 
     public Model buildModel(File pom) {
@@ -44,16 +133,209 @@ public final class EffectiveModelBuilder {
     }
 
     public Model buildModel(File pom, Map<String, String> properties) {
+        ModelBuildingResult result = buildModel(pom, properties, null);
+        return result == null ? null : result.getEffectiveModel();
+    }
+
+    /**
+     * Builds the {@link EffectivePom} for the given {@code pom}. The build-wide
+     * {@link EffectivePomCache} and, if it is enabled, the
+     * {@link PersistentEffectivePomCache} are consulted first so that the effective model
+     * of a pom is only built when it has not already been built with the same
+     * interpolation inputs.
+     *
+     * @param coordinates the {@code group:artifact:version} coordinates of the pom
+     * @param pom the pom file
+     * @param properties additional properties to use during interpolation
+     * @return the effective pom, or {@code null} if its effective model could not be built
+     */
+    public EffectivePom buildEffectivePom(String coordinates, File pom,
+            Map<String, String> properties) {
+        return buildEffectivePom(coordinates, pom, properties, null);
+    }
+
+    /**
+     * Builds the {@link EffectivePom} for the given {@code pom}, adding the properties that
+     * were used to interpolate it, and their values, to the given
+     * {@code interpolationInputs}.
+     *
+     * @param coordinates the {@code group:artifact:version} coordinates of the pom
+     * @param pom the pom file
+     * @param properties additional properties to use during interpolation
+     * @param interpolationInputs the map to which the interpolation inputs are added, or
+     * {@code null}
+     * @return the effective pom, or {@code null} if its effective model could not be built
+     * @see #interpolationValue(String, Map)
+     */
+    public EffectivePom buildEffectivePom(String coordinates, File pom,
+            final Map<String, String> properties, Map<String, String> interpolationInputs) {
+        String key = coordinates + "@" + pom.getAbsolutePath();
+        EffectivePomCache.PropertySource propertySource = new EffectivePomCache.PropertySource() {
+
+            @Override
+            public String getProperty(String name) {
+                return interpolationValue(name, properties);
+            }
+
+        };
+        EffectivePomCache.Entry cached = this.effectivePomCache.get(key, propertySource);
+        if (cached != null) {
+            log.debug("Using cached effective pom for '{}'", coordinates);
+            return record(cached, interpolationInputs);
+        }
+        String hash = this.persistentEffectivePomCache.isEnabled() ?
+                this.persistentEffectivePomCache.hash(pom) : null;
+        if (hash != null) {
+            EffectivePomCache.Entry entry = this.persistentEffectivePomCache.get(hash,
+                    propertySource);
+            if (entry != null) {
+                log.debug("Using persistently cached effective pom for '{}'", coordinates);
+                this.effectivePomCache.put(key, entry);
+                return record(entry, interpolationInputs);
+            }
+        }
+        EffectivePom effectivePom;
+        Map<String, String> inputs;
+        List<String> modelIds;
+        StreamingPomReader.Result streamed = readEffectivePom(pom, propertySource);
+        if (streamed != null) {
+            effectivePom = streamed.getPom();
+            inputs = streamed.getInterpolationInputs();
+            modelIds = streamed.getModelIds();
+        }
+        else {
+            inputs = new HashMap<String, String>();
+            RecordingModelResolver resolver = new RecordingModelResolver(this.modelResolver);
+            ModelBuildingResult result = buildModel(pom, properties, inputs, resolver);
+            if (result == null) {
+                return null;
+            }
+            effectivePom = new EffectivePom(result.getEffectiveModel());
+            modelIds = new ArrayList<String>(result.getModelIds());
+            modelIds.addAll(resolver.getResolvedModelIds());
+        }
+        this.effectivePomCache.put(key, inputs, effectivePom);
+        if (hash != null && !isSnapshot(modelIds)) {
+            this.persistentEffectivePomCache.put(hash, inputs, effectivePom);
+        }
+        if (interpolationInputs != null) {
+            interpolationInputs.putAll(inputs);
+        }
+        return effectivePom;
+    }
+
+    /**
+     * Resolves the parents and imported boms of the given poms ahead of their effective poms
+     * being built so that the poms referenced by many poms can be resolved together rather
+     * than one at a time. Poms whose effective pom is already cached are ignored as the
+     * poms that they reference are unlikely to be needed.
+     *
+     * @param poms the pom files keyed by their {@code group:artifact:version} coordinates
+     */
+    public void prefetchReferencedPoms(Map<String, File> poms) {
+        if (!(this.modelResolver instanceof PomDependencyModelResolver)) {
+            return;
+        }
+        List<File> uncached = new ArrayList<File>();
+        for (Map.Entry<String, File> pom : poms.entrySet()) {
+            if (!isCached(pom.getKey(), pom.getValue())) {
+                uncached.add(pom.getValue());
+            }
+        }
+        if (uncached.size() > 1) {
+            ((PomDependencyModelResolver) this.modelResolver).prefetchReferencedPoms(uncached);
+        }
+    }
+
+    private boolean isCached(String coordinates, File pom) {
+        if (this.effectivePomCache.contains(coordinates + "@" + pom.getAbsolutePath())) {
+            return true;
+        }
+        if (this.persistentEffectivePomCache.isEnabled()) {
+            String hash = this.persistentEffectivePomCache.hash(pom);
+            return hash != null && this.persistentEffectivePomCache.contains(hash);
+        }
+        return false;
+    }
+
+    private EffectivePom record(EffectivePomCache.Entry entry,
+            Map<String, String> interpolationInputs) {
+        if (interpolationInputs != null) {
+            interpolationInputs.putAll(entry.getInterpolationInputs());
+        }
+        return entry.getPom();
+    }
+
+    private StreamingPomReader.Result readEffectivePom(File pom,
+            EffectivePomCache.PropertySource propertySource) {
+        if (this.streamingPomReader == null) {
+            return null;
+        }
+        long start = this.recorder.start();
+        StreamingPomReader.Result result = this.streamingPomReader.read(pom, propertySource);
+        if (result != null) {
+            this.recorder.record(Phase.MODEL_BUILDING, start);
+        }
+        this.recorder.count(Phase.MODEL_BUILDING, result == null ? "fallbacks" : "streamed");
+        return result;
+    }
+
+    private boolean isSnapshot(List<String> modelIds) {
+        for (String modelId : modelIds) {
+            if (modelId.endsWith("-SNAPSHOT")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the value that the property with the given {@code name} has when a pom is
+     * interpolated with the given additional {@code properties}. The additional properties
+     * take precedence over the project's properties which, in turn, take precedence over
+     * system properties.
+     *
+     * @param name the name of the property
+     * @param properties the additional properties
+     * @return the value, or {@code null} if the property has no value
+     */
+    public String interpolationValue(String name, Map<String, String> properties) {
+        Object value = properties.get(name);
+        if (value == null) {
+            value = projectProperty(name);
+        }
+        if (value == null) {
+            value = System.getProperty(name);
+        }
+        return value == null ? null : String.valueOf(value);
+    }
+
+    private Object projectProperty(String name) {
+        if (this.projectProperties != null) {
+            return this.projectProperties.getValue(name);
+        }
+        return this.project.hasProperty(name) ? this.project.property(name) : null;
+    }
+
+    private ModelBuildingResult buildModel(File pom, Map<String, String> properties,
+            Map<String, String> interpolationInputs) {
+        return buildModel(pom, properties, interpolationInputs, this.modelResolver);
+    }
+
+    private ModelBuildingResult buildModel(File pom, Map<String, String> properties,
+            Map<String, String> interpolationInputs, ModelResolver modelResolver) {
         DefaultModelBuildingRequest request = new DefaultModelBuildingRequest();
         request.setSystemProperties(System.getProperties());
         request.setModelSource(new FileModelSource(pom));
         request.setModelResolver(modelResolver);
 
+        long start = this.recorder.start();
         try {
-            ModelBuildingResult result = createModelBuilder(this.project, properties).build(request);
+            ModelBuildingResult result = createModelBuilder(properties, interpolationInputs)
+                    .build(request);
             List<ModelProblem> errors = extractErrors(result.getProblems());
             if (errors.isEmpty()) {
-                return result.getEffectiveModel();
+                return result;
             }
             reportErrors(errors, pom);
 
@@ -61,6 +343,9 @@ public final class EffectiveModelBuilder {
         catch (ModelBuildingException ex) {
             reportErrors(extractErrors(ex.getProblems()), pom);
         }
+        finally {
+            this.recorder.record(Phase.MODEL_BUILDING, start);
+        }
 
         return null;
     }
@@ -83,13 +368,56 @@ public final class EffectiveModelBuilder {
         log.error(message.toString());
     }
 
-    private DefaultModelBuilder createModelBuilder(Project project,
-            Map<String, String> properties) {
+    private DefaultModelBuilder createModelBuilder(Map<String, String> properties,
+            Map<String, String> interpolationInputs) {
         DefaultModelBuilder modelBuilder = new DefaultModelBuilderFactory().newInstance();
-        modelBuilder
-                .setModelInterpolator(new ProjectPropertiesModelInterpolator(project, properties));
+        modelBuilder.setModelInterpolator(new ProjectPropertiesModelInterpolator(this.project,
+                this.projectProperties, properties, interpolationInputs));
         modelBuilder.setModelValidator(new RelaxedModelValidator());
         return modelBuilder;
     }
 
+    /**
+     * A {@link ModelResolver} that records the ids of the models that it resolves. As
+     * well as a pom's parents, these include the boms imported by its dependency
+     * management, which {@link ModelBuildingResult#getModelIds()} does not.
+     */
+    private static final class RecordingModelResolver implements ModelResolver {
+
+        private final ModelResolver delegate;
+
+        private final List<String> resolvedModelIds;
+
+        private RecordingModelResolver(ModelResolver delegate) {
+            this(delegate, new ArrayList<String>());
+        }
+
+        private RecordingModelResolver(ModelResolver delegate, List<String> resolvedModelIds) {
+            this.delegate = delegate;
+            this.resolvedModelIds = resolvedModelIds;
+        }
+
+        @Override
+        public ModelSource resolveModel(String groupId, String artifactId, String version)
+                throws UnresolvableModelException {
+            this.resolvedModelIds.add(groupId + ":" + artifactId + ":" + version);
+            return this.delegate.resolveModel(groupId, artifactId, version);
+        }
+
+        @Override
+        public void addRepository(Repository repository) throws InvalidRepositoryException {
+            this.delegate.addRepository(repository);
+        }
+
+        @Override
+        public ModelResolver newCopy() {
+            return new RecordingModelResolver(this.delegate.newCopy(), this.resolvedModelIds);
+        }
+
+        private List<String> getResolvedModelIds() {
+            return this.resolvedModelIds;
+        }
+
+    }
+
 }
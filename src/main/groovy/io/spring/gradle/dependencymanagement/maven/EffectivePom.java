@@ -0,0 +1,124 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.dependencymanagement.maven;
+
+import io.spring.gradle.dependencymanagement.exclusions.Exclusions;
+import io.spring.gradle.dependencymanagement.org.apache.maven.model.Dependency;
+import io.spring.gradle.dependencymanagement.org.apache.maven.model.Model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * The parts of an effective {@link Model} that are used by dependency management: its
+ * managed versions and dependencies, its exclusions, and its properties.
+ *
+ * @author Andy Wilkinson
+ */
+public final class EffectivePom {
+
+    private final String coordinates;
+
+    private final List<Dependency> managedDependencies;
+
+    private final Map<String, String> managedVersions;
+
+    private final Exclusions exclusions;
+
+    private final Properties properties;
+
+    EffectivePom(Model model) {
+        this(model.getGroupId() + ":" + model.getArtifactId() + ":" + model.getVersion(),
+                model.getDependencyManagement() == null ? Collections.<Dependency>emptyList() :
+                        model.getDependencyManagement().getDependencies(),
+                (Exclusions) new ModelExclusionCollector().collectExclusions(model),
+                model.getProperties());
+    }
+
+    EffectivePom(String coordinates, List<Dependency> managedDependencies,
+            Exclusions exclusions, Properties properties) {
+        this.coordinates = coordinates;
+        this.managedDependencies = Collections.unmodifiableList(
+                new ArrayList<Dependency>(managedDependencies));
+        Map<String, String> managedVersions = new LinkedHashMap<String, String>();
+        for (Dependency dependency : this.managedDependencies) {
+            managedVersions.put(dependency.getGroupId() + ":" + dependency.getArtifactId(),
+                    dependency.getVersion());
+        }
+        this.managedVersions = Collections.unmodifiableMap(managedVersions);
+        this.exclusions = exclusions;
+        this.properties = new Properties();
+        if (properties != null) {
+            this.properties.putAll(properties);
+        }
+    }
+
+    /**
+     * Returns the {@code group:artifact:version} coordinates of the pom.
+     *
+     * @return the coordinates
+     */
+    public String getCoordinates() {
+        return this.coordinates;
+    }
+
+    /**
+     * Returns the dependencies in the pom's dependency management, in the order in which
+     * they are declared.
+     *
+     * @return the managed dependencies
+     */
+    public List<Dependency> getManagedDependencies() {
+        return this.managedDependencies;
+    }
+
+    /**
+     * Returns the versions in the pom's dependency management keyed by
+     * {@code group:artifact}, in the order in which they are declared.
+     *
+     * @return the managed versions
+     */
+    public Map<String, String> getManagedVersions() {
+        return this.managedVersions;
+    }
+
+    /**
+     * Returns the exclusions declared in the pom. The returned exclusions must not be
+     * modified.
+     *
+     * @return the exclusions
+     */
+    public Exclusions getExclusions() {
+        return this.exclusions;
+    }
+
+    /**
+     * Returns a copy of the pom's properties.
+     *
+     * @return the properties
+     */
+    public Properties getProperties() {
+        Properties copy = new Properties();
+        copy.putAll(this.properties);
+        return copy;
+    }
+
+}
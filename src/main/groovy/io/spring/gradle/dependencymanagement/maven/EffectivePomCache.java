@@ -0,0 +1,236 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.dependencymanagement.maven;
+
+import io.spring.gradle.dependencymanagement.BuildScope;
+import org.gradle.api.Project;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A build-wide, bounded cache of {@link EffectivePom EffectivePoms} that is shared by every
+ * project in the build.
+ * <p>
+ * Each entry records the value of every property that was consulted while the pom was
+ * being interpolated. An entry is only used for a subsequent request if every one of those
+ * properties has the same value in the context of that request. The least recently used
+ * poms are evicted once the cache holds more than the maximum number of poms, which can be
+ * configured using the {@value #MAX_ENTRIES_PROPERTY} property of the root project.
+ *
+ * @author Andy Wilkinson
+ */
+public final class EffectivePomCache {
+
+    /**
+     * The name of the root project property that configures the maximum number of poms
+     * held in the cache. A value of zero disables the cache.
+     */
+    public static final String MAX_ENTRIES_PROPERTY = "dependencyManagement.pomCache.maxEntries";
+
+    static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    private final Logger log = LoggerFactory.getLogger(EffectivePomCache.class);
+
+    private final Map<String, List<Entry>> entries;
+
+    private final int maxEntries;
+
+    private int hits;
+
+    private int misses;
+
+    EffectivePomCache(final int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<String, List<Entry>>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<Entry>> eldest) {
+                return size() > maxEntries;
+            }
+
+        };
+    }
+
+    /**
+     * Returns the {@code EffectivePomCache} for the build of the given {@code project}.
+     *
+     * @param project any project in the build
+     * @return the cache
+     */
+    public static EffectivePomCache forProject(Project project) {
+        return BuildScope.get(project, EffectivePomCache.class,
+                new BuildScope.Factory<EffectivePomCache>() {
+
+                    @Override
+                    public EffectivePomCache create(Project rootProject) {
+                        int maxEntries = DEFAULT_MAX_ENTRIES;
+                        if (rootProject.hasProperty(MAX_ENTRIES_PROPERTY)) {
+                            maxEntries = Integer.parseInt(String.valueOf(
+                                    rootProject.property(MAX_ENTRIES_PROPERTY)));
+                        }
+                        return new EffectivePomCache(maxEntries);
+                    }
+
+                });
+    }
+
+    /**
+     * Returns the cache entry with the given {@code key} whose interpolation inputs match
+     * the values provided by the given {@code properties}, or {@code null} if there is no
+     * such entry.
+     *
+     * @param key the key of the pom
+     * @param properties the source of the property values for the current request
+     * @return the cache entry or {@code null}
+     */
+    Entry get(String key, PropertySource properties) {
+        List<Entry> candidates;
+        synchronized (this) {
+            List<Entry> entriesForKey = this.entries.get(key);
+            candidates = entriesForKey == null ? Collections.<Entry>emptyList() :
+                    new ArrayList<Entry>(entriesForKey);
+        }
+        for (Entry candidate : candidates) {
+            if (candidate.matches(properties)) {
+                recordAccess(true);
+                return candidate;
+            }
+        }
+        recordAccess(false);
+        return null;
+    }
+
+    /**
+     * Returns whether the cache contains any pom with the given {@code key}, irrespective of
+     * its interpolation inputs.
+     *
+     * @param key the key of the pom
+     * @return {@code true} if the pom is cached
+     */
+    synchronized boolean contains(String key) {
+        return this.entries.containsKey(key);
+    }
+
+    private synchronized void recordAccess(boolean hit) {
+        if (hit) {
+            this.hits++;
+        }
+        else {
+            this.misses++;
+        }
+    }
+
+    /**
+     * Caches the given {@code pom} with the given {@code key}.
+     *
+     * @param key the key of the pom
+     * @param interpolationInputs the value of each property that was consulted while the
+     * pom was being interpolated
+     * @param pom the pom
+     */
+    void put(String key, Map<String, String> interpolationInputs, EffectivePom pom) {
+        put(key, new Entry(interpolationInputs, pom));
+    }
+
+    /**
+     * Caches the given {@code entry} with the given {@code key}.
+     *
+     * @param key the key of the pom
+     * @param entry the entry
+     */
+    synchronized void put(String key, Entry entry) {
+        if (this.maxEntries <= 0) {
+            return;
+        }
+        List<Entry> candidates = this.entries.get(key);
+        if (candidates == null) {
+            candidates = new ArrayList<Entry>(1);
+            this.entries.put(key, candidates);
+        }
+        candidates.add(entry);
+        if (log.isDebugEnabled()) {
+            log.debug("Cached effective pom '{}' ({} hits, {} misses)", key, this.hits,
+                    this.misses);
+        }
+    }
+
+    synchronized int getHits() {
+        return this.hits;
+    }
+
+    synchronized int getMisses() {
+        return this.misses;
+    }
+
+    /**
+     * A source of the values of the properties used to interpolate a pom.
+     */
+    interface PropertySource {
+
+        /**
+         * Returns the value of the property with the given {@code name}, or {@code null}
+         * if the property has no value.
+         *
+         * @param name the name of the property
+         * @return the value or {@code null}
+         */
+        String getProperty(String name);
+
+    }
+
+    /**
+     * An {@link EffectivePom} and the interpolation inputs with which it was built.
+     */
+    static final class Entry {
+
+        private final Map<String, String> interpolationInputs;
+
+        private final EffectivePom pom;
+
+        Entry(Map<String, String> interpolationInputs, EffectivePom pom) {
+            this.interpolationInputs = Collections.unmodifiableMap(
+                    new LinkedHashMap<String, String>(interpolationInputs));
+            this.pom = pom;
+        }
+
+        Map<String, String> getInterpolationInputs() {
+            return this.interpolationInputs;
+        }
+
+        EffectivePom getPom() {
+            return this.pom;
+        }
+
+        boolean matches(PropertySource properties) {
+            for (Map.Entry<String, String> input : this.interpolationInputs.entrySet()) {
+                String value = properties.getProperty(input.getKey());
+                if (value == null ? input.getValue() != null : !value.equals(input.getValue())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+    }
+
+}
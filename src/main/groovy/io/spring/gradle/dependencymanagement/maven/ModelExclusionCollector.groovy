@@ -36,7 +36,8 @@ class ModelExclusionCollector {
      */
     def collectExclusions(Model model) {
         def exclusions = new Exclusions()
-        def dependencies = model?.dependencyManagement?.dependencies ?: []
+        def dependencies = []
+        dependencies.addAll model?.dependencyManagement?.dependencies ?: []
         dependencies.addAll model?.dependencies ?: []
         dependencies.findAll { !it.isOptional()}
                 .findAll { "provided" != it.scope }
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.dependencymanagement.maven;
+
+/**
+ * Thrown by an {@link EffectiveModelBuilder#forConcurrentUse() effective model builder for
+ * concurrent use} when it needs a pom that has not already been resolved.
+ *
+ * @author Andy Wilkinson
+ */
+public class ModelNotPrefetchedException extends RuntimeException {
+
+    ModelNotPrefetchedException(String modelId) {
+        super("Pom '" + modelId + "' has not been resolved");
+    }
+
+}
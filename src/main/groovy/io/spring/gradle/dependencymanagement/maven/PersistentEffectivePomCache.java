@@ -0,0 +1,549 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.dependencymanagement.maven;
+
+import io.spring.gradle.dependencymanagement.BuildScope;
+import io.spring.gradle.dependencymanagement.exclusions.Exclusions;
+import io.spring.gradle.dependencymanagement.org.apache.maven.model.Dependency;
+import io.spring.gradle.dependencymanagement.org.apache.maven.model.Exclusion;
+import org.gradle.BuildAdapter;
+import org.gradle.BuildResult;
+import org.gradle.api.Project;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An optional, persistent cache of {@link EffectivePom EffectivePoms} that is stored
+ * beneath the Gradle user home so that it survives between builds.
+ * <p>
+ * Each pom is stored in its own file, named using the SHA-1 hash of the pom's content.
+ * A file holds one variant of the effective pom for each distinct set of interpolation
+ * inputs that has been seen. Files are read using a memory-mapped buffer. The cache is
+ * enabled by setting the {@value #ENABLED_PROPERTY} property of the root project to
+ * {@code true}.
+ *
+ * @author Andy Wilkinson
+ */
+public final class PersistentEffectivePomCache {
+
+    /**
+     * The name of the root project property that enables the persistent cache.
+     */
+    public static final String ENABLED_PROPERTY = "dependencyManagement.pomCache.persistent";
+
+    private static final int MAGIC = 0x444d5043;
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final String FILE_SUFFIX = ".bin";
+
+    private static final String LOCK_FILE_NAME = "cache.lock";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final Logger log = Logging.getLogger(PersistentEffectivePomCache.class);
+
+    private final File directory;
+
+    private final boolean enabled;
+
+    private final AtomicInteger hits = new AtomicInteger();
+
+    private final AtomicInteger misses = new AtomicInteger();
+
+    PersistentEffectivePomCache(File directory, boolean enabled) {
+        this.directory = directory;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Returns the {@code PersistentEffectivePomCache} for the build of the given
+     * {@code project}.
+     *
+     * @param project any project in the build
+     * @return the cache
+     */
+    public static PersistentEffectivePomCache forProject(Project project) {
+        return BuildScope.get(project, PersistentEffectivePomCache.class,
+                new BuildScope.Factory<PersistentEffectivePomCache>() {
+
+                    @Override
+                    public PersistentEffectivePomCache create(Project rootProject) {
+                        boolean enabled = rootProject.hasProperty(ENABLED_PROPERTY) && Boolean
+                                .valueOf(String.valueOf(rootProject.property(ENABLED_PROPERTY)));
+                        final PersistentEffectivePomCache cache = new PersistentEffectivePomCache(
+                                getDirectory(rootProject), enabled);
+                        if (enabled) {
+                            rootProject.getGradle().addBuildListener(new BuildAdapter() {
+
+                                @Override
+                                public void buildFinished(BuildResult result) {
+                                    cache.logSummary();
+                                }
+
+                            });
+                        }
+                        return cache;
+                    }
+
+                });
+    }
+
+    /**
+     * Returns the directory in which the cache for the build of the given {@code project}
+     * is stored.
+     *
+     * @param project any project in the build
+     * @return the directory
+     */
+    public static File getDirectory(Project project) {
+        return new File(project.getGradle().getGradleUserHomeDir(),
+                "caches/dependency-management/poms-v" + FORMAT_VERSION);
+    }
+
+    boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Returns the hash of the content of the given {@code pom} file that is used to
+     * identify it in the cache.
+     *
+     * @param pom the pom file
+     * @return the hash, or {@code null} if the file could not be read
+     */
+    String hash(File pom) {
+        InputStream input = null;
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            input = new FileInputStream(pom);
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            return toHex(digest.digest());
+        }
+        catch (IOException ex) {
+            log.debug("Failed to hash '{}'", pom, ex);
+            return null;
+        }
+        catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+        finally {
+            closeQuietly(input);
+        }
+    }
+
+    /**
+     * Returns whether the cache contains any variants of the pom with the given
+     * {@code hash}.
+     *
+     * @param hash the hash of the pom's content
+     * @return {@code true} if the pom is cached
+     */
+    boolean contains(String hash) {
+        return getFile(hash).isFile();
+    }
+
+    /**
+     * Returns the cached variant of the pom with the given {@code hash} whose
+     * interpolation inputs match the values provided by the given {@code properties}, or
+     * {@code null} if there is no such variant.
+     *
+     * @param hash the hash of the pom's content
+     * @param properties the source of the property values for the current request
+     * @return the cached pom or {@code null}
+     */
+    EffectivePomCache.Entry get(String hash, EffectivePomCache.PropertySource properties) {
+        File file = getFile(hash);
+        if (!file.isFile()) {
+            this.misses.incrementAndGet();
+            return null;
+        }
+        try {
+            for (EffectivePomCache.Entry entry : read(file, true)) {
+                if (entry.matches(properties)) {
+                    this.hits.incrementAndGet();
+                    return entry;
+                }
+            }
+        }
+        catch (IOException ex) {
+            log.debug("Failed to read cached pom '{}'", file, ex);
+        }
+        catch (RuntimeException ex) {
+            log.debug("Failed to read cached pom '{}'", file, ex);
+        }
+        this.misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Stores the given {@code pom}, built with the given {@code interpolationInputs}, in
+     * the cache.
+     *
+     * @param hash the hash of the pom's content
+     * @param interpolationInputs the value of each property that was consulted while the
+     * pom was being interpolated
+     * @param pom the pom
+     */
+    synchronized void put(String hash, Map<String, String> interpolationInputs,
+            EffectivePom pom) {
+        File file = getFile(hash);
+        FileChannel lock = null;
+        File temp = null;
+        OutputStream output = null;
+        try {
+            lock = lock();
+            List<EffectivePomCache.Entry> variants = readVariants(file);
+            for (EffectivePomCache.Entry variant : variants) {
+                if (variant.getInterpolationInputs().equals(interpolationInputs)) {
+                    return;
+                }
+            }
+            variants.add(new EffectivePomCache.Entry(interpolationInputs, pom));
+            temp = File.createTempFile(hash, ".tmp", this.directory);
+            output = new FileOutputStream(temp);
+            output.write(write(variants));
+            output.close();
+            output = null;
+            if (!temp.renameTo(file)) {
+                file.delete();
+                if (!temp.renameTo(file)) {
+                    log.debug("Failed to store cached pom '{}'", file);
+                }
+            }
+        }
+        catch (IOException ex) {
+            log.debug("Failed to store cached pom '{}'", file, ex);
+        }
+        finally {
+            closeQuietly(output);
+            if (temp != null && temp.exists()) {
+                temp.delete();
+            }
+            closeQuietly(lock);
+        }
+    }
+
+    private List<EffectivePomCache.Entry> readVariants(File file) {
+        List<EffectivePomCache.Entry> variants = new ArrayList<EffectivePomCache.Entry>();
+        try {
+            if (file.isFile()) {
+                variants.addAll(read(file, false));
+            }
+        }
+        catch (Exception ex) {
+            log.debug("Discarding unreadable cached pom '{}'", file, ex);
+        }
+        return variants;
+    }
+
+    /**
+     * Acquires the lock that serializes updates to the cache across every build that
+     * shares the cache directory. The lock is released by closing the returned channel.
+     *
+     * @return the locked channel
+     * @throws IOException if the lock cannot be acquired
+     */
+    private FileChannel lock() throws IOException {
+        this.directory.mkdirs();
+        FileChannel channel = new RandomAccessFile(new File(this.directory,
+                LOCK_FILE_NAME), "rw").getChannel();
+        try {
+            channel.lock();
+            return channel;
+        }
+        catch (IOException ex) {
+            closeQuietly(channel);
+            throw ex;
+        }
+    }
+
+    /**
+     * Deletes every file in the cache.
+     *
+     * @return the number of files that were deleted
+     */
+    public int clear() {
+        int deleted = 0;
+        for (File file : listFiles()) {
+            if (file.delete()) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Verifies every file in the cache, deleting any that cannot be read.
+     *
+     * @return the number of files that were deleted
+     */
+    public int verify() {
+        int deleted = 0;
+        for (File file : listFiles()) {
+            try {
+                read(file, true);
+            }
+            catch (Exception ex) {
+                log.info("Deleting invalid cached pom '{}': {}", file, ex.getMessage());
+                if (file.delete()) {
+                    deleted++;
+                }
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Returns the files in the cache.
+     *
+     * @return the files
+     */
+    public List<File> listFiles() {
+        List<File> files = new ArrayList<File>();
+        File[] candidates = this.directory.listFiles();
+        if (candidates != null) {
+            for (File candidate : candidates) {
+                if (candidate.isFile() && candidate.getName().endsWith(FILE_SUFFIX)) {
+                    files.add(candidate);
+                }
+            }
+        }
+        return files;
+    }
+
+    int getHits() {
+        return this.hits.get();
+    }
+
+    int getMisses() {
+        return this.misses.get();
+    }
+
+    private void logSummary() {
+        log.lifecycle("Dependency management pom cache: {} hits, {} misses", getHits(),
+                getMisses());
+    }
+
+    private File getFile(String hash) {
+        return new File(this.directory, hash + FILE_SUFFIX);
+    }
+
+    private List<EffectivePomCache.Entry> read(File file, boolean verify) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a cached pom");
+            }
+            if (buffer.getInt() != FORMAT_VERSION) {
+                throw new IOException("Unsupported format version");
+            }
+            int variantCount = buffer.getInt();
+            List<EffectivePomCache.Entry> variants = new ArrayList<EffectivePomCache.Entry>(variantCount);
+            for (int i = 0; i < variantCount; i++) {
+                variants.add(readVariant(buffer));
+            }
+            if (verify && buffer.hasRemaining()) {
+                throw new IOException("Unexpected trailing data");
+            }
+            return variants;
+        }
+        finally {
+            randomAccessFile.close();
+        }
+    }
+
+    private EffectivePomCache.Entry readVariant(ByteBuffer buffer) {
+        int inputCount = buffer.getInt();
+        Map<String, String> inputs = new LinkedHashMap<String, String>();
+        for (int i = 0; i < inputCount; i++) {
+            inputs.put(readString(buffer), readString(buffer));
+        }
+        String coordinates = readString(buffer);
+        int dependencyCount = buffer.getInt();
+        List<Dependency> dependencies = new ArrayList<Dependency>(dependencyCount);
+        for (int i = 0; i < dependencyCount; i++) {
+            Dependency dependency = new Dependency();
+            dependency.setGroupId(readString(buffer));
+            dependency.setArtifactId(readString(buffer));
+            dependency.setVersion(readString(buffer));
+            dependency.setType(readString(buffer));
+            dependency.setClassifier(readString(buffer));
+            dependency.setScope(readString(buffer));
+            dependency.setOptional(readString(buffer));
+            int exclusionCount = buffer.getInt();
+            for (int j = 0; j < exclusionCount; j++) {
+                Exclusion exclusion = new Exclusion();
+                exclusion.setGroupId(readString(buffer));
+                exclusion.setArtifactId(readString(buffer));
+                dependency.addExclusion(exclusion);
+            }
+            dependencies.add(dependency);
+        }
+        Exclusions exclusions = new Exclusions();
+        int excludingCount = buffer.getInt();
+        for (int i = 0; i < excludingCount; i++) {
+            String dependency = readString(buffer);
+            int exclusionCount = buffer.getInt();
+            List<String> excluded = new ArrayList<String>(exclusionCount);
+            for (int j = 0; j < exclusionCount; j++) {
+                excluded.add(readString(buffer));
+            }
+            exclusions.add(dependency, excluded);
+        }
+        Properties properties = new Properties();
+        int propertyCount = buffer.getInt();
+        for (int i = 0; i < propertyCount; i++) {
+            properties.setProperty(readString(buffer), readString(buffer));
+        }
+        return new EffectivePomCache.Entry(inputs, new EffectivePom(coordinates, dependencies, exclusions,
+                properties));
+    }
+
+    private byte[] write(List<EffectivePomCache.Entry> variants) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeInt(MAGIC);
+        output.writeInt(FORMAT_VERSION);
+        output.writeInt(variants.size());
+        for (EffectivePomCache.Entry entry : variants) {
+            writeVariant(output, entry);
+        }
+        output.flush();
+        return bytes.toByteArray();
+    }
+
+    private void writeVariant(DataOutputStream output, EffectivePomCache.Entry entry) throws IOException {
+        output.writeInt(entry.getInterpolationInputs().size());
+        for (Map.Entry<String, String> input : entry.getInterpolationInputs().entrySet()) {
+            writeString(output, input.getKey());
+            writeString(output, input.getValue());
+        }
+        EffectivePom pom = entry.getPom();
+        writeString(output, pom.getCoordinates());
+        output.writeInt(pom.getManagedDependencies().size());
+        for (Dependency dependency : pom.getManagedDependencies()) {
+            writeString(output, dependency.getGroupId());
+            writeString(output, dependency.getArtifactId());
+            writeString(output, dependency.getVersion());
+            writeString(output, dependency.getType());
+            writeString(output, dependency.getClassifier());
+            writeString(output, dependency.getScope());
+            writeString(output, dependency.getOptional());
+            List<Exclusion> exclusions = dependency.getExclusions();
+            output.writeInt(exclusions.size());
+            for (Exclusion exclusion : exclusions) {
+                writeString(output, exclusion.getGroupId());
+                writeString(output, exclusion.getArtifactId());
+            }
+        }
+        Map<String, Set<String>> exclusions = pom.getExclusions().all();
+        output.writeInt(exclusions.size());
+        for (Map.Entry<String, Set<String>> exclusion : exclusions.entrySet()) {
+            writeString(output, exclusion.getKey());
+            writeStrings(output, exclusion.getValue());
+        }
+        Properties properties = pom.getProperties();
+        output.writeInt(properties.size());
+        for (String name : properties.stringPropertyNames()) {
+            writeString(output, name);
+            writeString(output, properties.getProperty(name));
+        }
+    }
+
+    private void writeStrings(DataOutputStream output, Collection<String> strings)
+            throws IOException {
+        output.writeInt(strings.size());
+        for (String string : strings) {
+            writeString(output, string);
+        }
+    }
+
+    private void writeString(DataOutputStream output, String string) throws IOException {
+        if (string == null) {
+            output.writeInt(-1);
+        }
+        else {
+            byte[] bytes = string.getBytes(UTF_8);
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        }
+    }
+
+    private String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xf];
+            chars[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xf];
+        }
+        return new String(chars);
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            }
+            catch (IOException ex) {
+                // Continue
+            }
+        }
+    }
+
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.dependencymanagement.maven
+
+import org.gradle.api.DefaultTask
+import org.gradle.api.tasks.TaskAction
+
+/**
+ * Task to clear or verify the {@link PersistentEffectivePomCache}.
+ *
+ * @author Andy Wilkinson
+ */
+class PomCacheMaintenanceTask extends DefaultTask {
+
+    /**
+     * Whether the cache should be cleared ({@code true}) or verified ({@code false})
+     */
+    boolean clear
+
+    @TaskAction
+    void maintain() {
+        PersistentEffectivePomCache cache = PersistentEffectivePomCache.forProject(project)
+        if (clear) {
+            int deleted = cache.clear()
+            logger.lifecycle("Deleted {} cached poms from {}", deleted,
+                    PersistentEffectivePomCache.getDirectory(project))
+        }
+        else {
+            int total = cache.listFiles().size()
+            int deleted = cache.verify()
+            logger.lifecycle("Verified {} cached poms in {}, {} were invalid and have been deleted",
+                    total, PersistentEffectivePomCache.getDirectory(project), deleted)
+        }
+    }
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2014-2015 the original author or authors.
+ * Copyright 2014-2016 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,10 @@ package io.spring.gradle.dependencymanagement.maven
 import io.spring.gradle.dependencymanagement.DependencyManagement
 import io.spring.gradle.dependencymanagement.DependencyManagementExtension.PomCustomizationConfiguration
 import io.spring.gradle.dependencymanagement.DependencyManagementExtension.PomCustomizationConfiguration.ImportedBomAction
+import org.gradle.api.XmlProvider
+
+import javax.xml.stream.XMLOutputFactory
+import javax.xml.stream.XMLStreamWriter
 
 /**
  * Configures the dependency management in a Maven pom produced as part of a Gradle build
@@ -27,14 +31,38 @@ import io.spring.gradle.dependencymanagement.DependencyManagementExtension.PomCu
  */
 class PomDependencyManagementConfigurer {
 
+    private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newInstance()
+
     private DependencyManagement dependencyManagement
 
     PomCustomizationConfiguration configuration
 
+    private final PomFragmentCache fragmentCache
+
     PomDependencyManagementConfigurer(DependencyManagement dependencyManagement,
             PomCustomizationConfiguration configuration) {
+        this(dependencyManagement, configuration, new PomFragmentCache())
+    }
+
+    PomDependencyManagementConfigurer(DependencyManagement dependencyManagement,
+            PomCustomizationConfiguration configuration, PomFragmentCache fragmentCache) {
         this.dependencyManagement = dependencyManagement
         this.configuration = configuration
+        this.fragmentCache = fragmentCache
+    }
+
+    /**
+     * Configures the dependency management of the pom provided by the given {@code xml}.
+     * When the pom does not have a {@code <dependencyManagement>} section, the section is
+     * spliced into the pom's text rather than built node by node. Otherwise, the existing
+     * section is configured using the pom's nodes.
+     *
+     * @param xml the provider of the pom to configure
+     */
+    void configurePom(XmlProvider xml) {
+        if (configuration.enabled && !spliceDependencyManagement(xml.asString())) {
+            doConfigurePom(xml.asNode())
+        }
     }
 
     /**
@@ -48,6 +76,141 @@ class PomDependencyManagementConfigurer {
         }
     }
 
+    /**
+     * Splices a {@code <dependencyManagement>} section, indented in the same way as the rest
+     * of the given {@code pom}, into the pom, returning {@code false} if the pom already has
+     * such a section or its formatting cannot be determined. The text of the section is
+     * shared with every pom that has the same dependency management and formatting.
+     *
+     * @param pom the text of the pom
+     * @return {@code true} if the section was spliced into the pom, otherwise {@code false}
+     */
+    boolean spliceDependencyManagement(StringBuilder pom) {
+        if (pom.indexOf('<dependencyManagement') >= 0) {
+            return false
+        }
+        int projectStart = pom.indexOf('<project')
+        int projectEnd = pom.lastIndexOf('</project>')
+        if (projectStart < 0 || projectEnd < projectStart) {
+            return false
+        }
+        int contentStart = pom.indexOf('>', projectStart) + 1
+        int firstChild = pom.indexOf('<', contentStart)
+        if (contentStart == 0 || firstChild < 0) {
+            return false
+        }
+        String leadingWhitespace = pom.substring(contentStart, firstChild)
+        int lineStart = leadingWhitespace.lastIndexOf('\n') + 1
+        String indent = leadingWhitespace.substring(lineStart)
+        if (lineStart == 0 || !indent || indent.trim()) {
+            return false
+        }
+        String lineSeparator = leadingWhitespace.substring(0, lineStart).endsWith('\r\n') ?
+                '\r\n' : '\n'
+        if (!pom.substring(0, projectEnd).endsWith(lineSeparator)) {
+            return false
+        }
+        pom.insert(projectEnd, dependencyManagementFragment(indent, lineSeparator))
+        true
+    }
+
+    private String dependencyManagementFragment(String indent, String lineSeparator) {
+        ImportedBomAction importedBomAction = configuration.importedBomAction
+        Map<String, List> importedBoms = this.dependencyManagement.importedBoms
+        List explicitVersions = []
+        this.dependencyManagement.explicitManagedVersions { groupId, artifactId, version,
+                exclusions ->
+            explicitVersions << [groupId, artifactId, version,
+                                 exclusions ? new ArrayList(exclusions) : []]
+        }
+        List key = [importedBomAction, importedBomAction == ImportedBomAction.IMPORT ?
+                new ArrayList(importedBoms.keySet()) : importedBoms, explicitVersions, indent,
+                lineSeparator]
+        fragmentCache.get(key, {
+            writeDependencyManagement(importedBomAction, importedBoms, explicitVersions,
+                    indent, lineSeparator)
+        } as PomFragmentCache.Generator)
+    }
+
+    private String writeDependencyManagement(ImportedBomAction importedBomAction,
+            Map<String, List> importedBoms, List explicitVersions, String indent,
+            String lineSeparator) {
+        StringWriter output = new StringWriter()
+        FragmentWriter writer = new FragmentWriter(
+                XML_OUTPUT_FACTORY.createXMLStreamWriter(output), indent, lineSeparator)
+        writer.start('dependencyManagement')
+        if (!importedBoms && !explicitVersions) {
+            writer.empty('dependencies')
+        }
+        else {
+            writer.start('dependencies')
+            importedBoms.each { String bomCoordinates, bomDependencies ->
+                if (importedBomAction == ImportedBomAction.IMPORT) {
+                    def (groupId, artifactId, version) = bomCoordinates.split(':')
+                    writer.start('dependency')
+                    writer.element('groupId', groupId)
+                    writer.element('artifactId', artifactId)
+                    writer.element('version', version)
+                    writer.element('scope', 'import')
+                    writer.element('type', 'pom')
+                    writer.end()
+                }
+                else {
+                    bomDependencies.each { dependency -> writeDependency(writer, dependency) }
+                }
+            }
+            explicitVersions.each { groupId, artifactId, version, List<String> exclusions ->
+                writer.start('dependency')
+                writer.element('groupId', groupId)
+                writer.element('artifactId', artifactId)
+                writer.element('version', version)
+                if (exclusions) {
+                    writer.start('exclusions')
+                    exclusions.each { String exclusion ->
+                        def (excludedGroupId, excludedArtifactId) = exclusion.split(':')
+                        writer.start('exclusion')
+                        writer.element('groupId', excludedGroupId)
+                        writer.element('artifactId', excludedArtifactId)
+                        writer.end()
+                    }
+                    writer.end()
+                }
+                writer.end()
+            }
+            writer.end()
+        }
+        writer.end()
+        writer.close()
+        output.toString()
+    }
+
+    private void writeDependency(FragmentWriter writer, def dependency) {
+        writer.start('dependency')
+        writer.element('groupId', dependency.groupId)
+        writer.element('artifactId', dependency.artifactId)
+        writer.element('version', dependency.version)
+        if (dependency.type != 'jar') {
+            writer.element('type', dependency.type)
+        }
+        if (dependency.classifier) {
+            writer.element('classifier', dependency.classifier)
+        }
+        if (dependency.scope) {
+            writer.element('scope', dependency.scope)
+        }
+        if (dependency.exclusions) {
+            writer.start('exclusions')
+            dependency.exclusions.each { exclusion ->
+                writer.start('exclusion')
+                writer.element('groupId', exclusion.groupId)
+                writer.element('artifactId', exclusion.artifactId)
+                writer.end()
+            }
+            writer.end()
+        }
+        writer.end()
+    }
+
     private void doConfigurePom(Node pom) {
         def dependencyManagement = pom.dependencyManagement
         if (!pom.dependencyManagement) {
@@ -125,4 +288,59 @@ class PomDependencyManagementConfigurer {
             }
         }
     }
+
+    /**
+     * Writes elements using an {@link XMLStreamWriter}, laying them out in the same way as
+     * Gradle lays out the nodes of a pom: one element per line, indented by its depth
+     * beneath the pom's {@code <project>} element.
+     */
+    private static final class FragmentWriter {
+
+        private final XMLStreamWriter writer
+
+        private final String indent
+
+        private final String lineSeparator
+
+        private int depth = 1
+
+        FragmentWriter(XMLStreamWriter writer, String indent, String lineSeparator) {
+            this.writer = writer
+            this.indent = indent
+            this.lineSeparator = lineSeparator
+        }
+
+        void start(String name) {
+            writer.writeCharacters(indent * depth++)
+            writer.writeStartElement(name)
+            writer.writeCharacters(lineSeparator)
+        }
+
+        void element(String name, Object value) {
+            writer.writeCharacters(indent * depth)
+            writer.writeStartElement(name)
+            writer.writeCharacters(String.valueOf(value))
+            writer.writeEndElement()
+            writer.writeCharacters(lineSeparator)
+        }
+
+        void empty(String name) {
+            writer.writeCharacters(indent * depth)
+            writer.writeEmptyElement(name)
+            writer.writeCharacters(lineSeparator)
+        }
+
+        void end() {
+            writer.writeCharacters(indent * --depth)
+            writer.writeEndElement()
+            writer.writeCharacters(lineSeparator)
+        }
+
+        void close() {
+            writer.flush()
+            writer.close()
+        }
+
+    }
+
 }
@@ -17,6 +17,8 @@
 package io.spring.gradle.dependencymanagement.maven
 
 import io.spring.gradle.dependencymanagement.DependencyManagementConfigurationContainer
+import io.spring.gradle.dependencymanagement.instrumentation.Instrumentation
+import io.spring.gradle.dependencymanagement.instrumentation.Phase
 import io.spring.gradle.dependencymanagement.org.apache.maven.model.Repository
 import io.spring.gradle.dependencymanagement.org.apache.maven.model.building.FileModelSource
 import io.spring.gradle.dependencymanagement.org.apache.maven.model.building.ModelSource
@@ -24,42 +26,169 @@ import io.spring.gradle.dependencymanagement.org.apache.maven.model.resolution.M
 import io.spring.gradle.dependencymanagement.org.apache.maven.model.resolution.UnresolvableModelException
 import org.gradle.api.Project
 import org.gradle.api.artifacts.Configuration
+import org.gradle.api.artifacts.Dependency
+import org.gradle.api.artifacts.ModuleVersionIdentifier
+import org.gradle.api.artifacts.ResolvedArtifact
+import org.gradle.api.specs.Specs
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+
+import java.util.concurrent.Callable
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentMap
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.FutureTask
 
 /**
  * A {@link ModelResolver} that uses a {@link Configuration} to resolve a pom dependency for the
- * requested model
+ * requested model. The resolver can be used by concurrent model builds. Each pom is resolved
+ * at most once, with concurrent requests for the same pom waiting for the first to complete
+ * and requests for different poms proceeding independently. The parents and imported boms
+ * of a batch of poms can be {@link #prefetchReferencedPoms prefetched} so that they are
+ * resolved together.
  *
  * @author Andy Wilkinson
  */
 class PomDependencyModelResolver implements ModelResolver {
 
+    private final Logger log = LoggerFactory.getLogger(PomDependencyModelResolver)
+
     private final Project project
 
     private final DependencyManagementConfigurationContainer configurationContainer
 
-    private Map<String, FileModelSource> pomCache = [:]
+    private final Instrumentation.Recorder recorder
+
+    private final ConcurrentMap<String, FutureTask<FileModelSource>> pomCache =
+            new ConcurrentHashMap<String, FutureTask<FileModelSource>>()
 
     PomDependencyModelResolver(Project project,
             DependencyManagementConfigurationContainer configurationContainer) {
         this.project = project
         this.configurationContainer = configurationContainer
+        this.recorder = Instrumentation.forProject(project).recorder(project.path, null)
     }
 
     @Override
     ModelSource resolveModel(String groupId, String artifactId, String version)
             throws UnresolvableModelException {
-        def id = "$groupId:$artifactId:$version@pom"
+        String id = "$groupId:$artifactId:$version@pom"
 
-        def pom = pomCache[id]
+        FutureTask<FileModelSource> pom = pomCache.get(id)
 
         if (!pom) {
-            def dependency = project.dependencies.create("$groupId:$artifactId:$version@pom")
-            def configuration = configurationContainer.newConfiguration(dependency)
-            pom = new FileModelSource(configuration.resolve().iterator().next())
-            pomCache[id] = pom
+            FutureTask<FileModelSource> task = new FutureTask<FileModelSource>({
+                long start = recorder.start()
+                try {
+                    def dependency = project.dependencies.create(id)
+                    def configuration = configurationContainer.newConfiguration(dependency)
+                    new FileModelSource(configuration.resolve().iterator().next())
+                } finally {
+                    recorder.record(Phase.PARENT_POM_RESOLUTION, start)
+                }
+            } as Callable<FileModelSource>)
+            pom = pomCache.putIfAbsent(id, task)
+            if (!pom) {
+                pom = task
+                task.run()
+            }
+        }
+
+        try {
+            pom.get()
+        } catch (ExecutionException ex) {
+            pomCache.remove(id, pom)
+            throw ex.cause
+        }
+    }
+
+    /**
+     * Resolves the poms that the given {@code poms} reference, their parents and the boms
+     * that their dependency management imports, and then the poms that those poms reference
+     * and so on, so that later requests for them can be served without resolving them one
+     * at a time. The referenced poms at each level are resolved in a single, lenient
+     * resolution so that a pom that cannot be resolved does not prevent the others from
+     * being prefetched. Such a pom will be resolved again, and its failure reported, when
+     * it is requested. An import whose coordinates cannot be determined without building
+     * the effective model of the pom that declares it is not prefetched.
+     *
+     * @param poms the poms
+     * @see StreamingPomReader#readReferencedIds(File)
+     */
+    void prefetchReferencedPoms(Collection<File> poms) {
+        Collection<File> current = poms
+        while (current) {
+            Set<String> referencedIds = new LinkedHashSet<String>()
+            current.each { File pom ->
+                StreamingPomReader.readReferencedIds(pom).each { String id ->
+                    if (!pomCache.containsKey("$id@pom" as String)) {
+                        referencedIds << id
+                    }
+                }
+            }
+            current = []
+            batches(referencedIds).each { List<String> batch ->
+                current.addAll(prefetch(batch))
+            }
+        }
+    }
+
+    /**
+     * Splits the given ids into batches that each contain at most one version of a module
+     * so that conflict resolution does not replace any of the requested versions.
+     */
+    private List<List<String>> batches(Collection<String> ids) {
+        List<List<String>> batches = []
+        List<Set<String>> modules = []
+        ids.each { String id ->
+            String module = id.substring(0, id.lastIndexOf(':'))
+            int index = modules.findIndexOf { !it.contains(module) }
+            if (index < 0) {
+                index = batches.size()
+                batches << []
+                modules << new HashSet<String>()
+            }
+            batches[index] << id
+            modules[index] << module
+        }
+        batches
+    }
+
+    private List<File> prefetch(List<String> ids) {
+        long start = recorder.start()
+        try {
+            log.debug("Prefetching poms {}", ids)
+            Configuration configuration = configurationContainer.newConfiguration(ids.collect {
+                project.dependencies.create("$it@pom")
+            } as Dependency[])
+            List<File> prefetched = []
+            configuration.resolvedConfiguration.lenientConfiguration
+                    .getArtifacts(Specs.SATISFIES_ALL).each { ResolvedArtifact artifact ->
+                ModuleVersionIdentifier id = artifact.moduleVersion.id
+                FutureTask<FileModelSource> task = new FutureTask<FileModelSource>(
+                        { new FileModelSource(artifact.file) } as Callable<FileModelSource>)
+                task.run()
+                if (!pomCache.putIfAbsent("${id.group}:${id.name}:${id.version}@pom" as String,
+                        task)) {
+                    prefetched << artifact.file
+                }
+            }
+            recorder.count(Phase.PARENT_POM_RESOLUTION, 'prefetched', prefetched.size())
+            prefetched
+        } finally {
+            recorder.record(Phase.PARENT_POM_RESOLUTION, start)
         }
+    }
 
-        pom
+    /**
+     * Returns a {@link ModelResolver} that only serves the poms that this resolver has
+     * already resolved, throwing a {@link ModelNotPrefetchedException} for any other pom.
+     * Unlike this resolver, it does not use the project and can be used on any thread.
+     *
+     * @return the resolver
+     */
+    ModelResolver prefetchedOnly() {
+        new PrefetchedModelResolver(pomCache)
     }
 
     @Override
@@ -70,4 +199,39 @@ class PomDependencyModelResolver implements ModelResolver {
     ModelResolver newCopy() {
         this
     }
+
+    private static class PrefetchedModelResolver implements ModelResolver {
+
+        private final Map<String, FutureTask<FileModelSource>> pomCache
+
+        PrefetchedModelResolver(Map<String, FutureTask<FileModelSource>> pomCache) {
+            this.pomCache = pomCache
+        }
+
+        @Override
+        ModelSource resolveModel(String groupId, String artifactId, String version)
+                throws UnresolvableModelException {
+            String id = "$groupId:$artifactId:$version"
+            FutureTask<FileModelSource> pom = pomCache.get("$id@pom" as String)
+            if (pom == null || !pom.done) {
+                throw new ModelNotPrefetchedException(id)
+            }
+            try {
+                pom.get()
+            } catch (ExecutionException ex) {
+                throw new ModelNotPrefetchedException(id)
+            }
+        }
+
+        @Override
+        void addRepository(Repository repository) {
+        }
+
+        @Override
+        ModelResolver newCopy() {
+            this
+        }
+
+    }
+
 }
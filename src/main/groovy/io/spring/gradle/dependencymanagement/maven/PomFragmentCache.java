@@ -0,0 +1,108 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.spring.gradle.dependencymanagement.maven;
+
+import io.spring.gradle.dependencymanagement.BuildScope;
+import org.gradle.api.Project;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A build-wide cache of the {@code <dependencyManagement>} sections that are spliced into
+ * generated poms. A section is generated once for each distinct combination of dependency
+ * management and pom formatting, and is then reused by every publication and upload of
+ * every project in the build that has the same combination. The least recently used
+ * sections are evicted once the cache holds more than {@value #MAX_ENTRIES} of them.
+ *
+ * @author Andy Wilkinson
+ */
+public final class PomFragmentCache {
+
+    static final int MAX_ENTRIES = 64;
+
+    private final Logger log = LoggerFactory.getLogger(PomFragmentCache.class);
+
+    private final Map<List<?>, String> fragments =
+            new LinkedHashMap<List<?>, String>(16, 0.75f, true) {
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<List<?>, String> eldest) {
+                    return size() > MAX_ENTRIES;
+                }
+
+            };
+
+    /**
+     * Returns the {@code PomFragmentCache} for the build of the given {@code project}.
+     *
+     * @param project any project in the build
+     * @return the cache
+     */
+    public static PomFragmentCache forProject(Project project) {
+        return BuildScope.get(project, PomFragmentCache.class,
+                new BuildScope.Factory<PomFragmentCache>() {
+
+                    @Override
+                    public PomFragmentCache create(Project rootProject) {
+                        return new PomFragmentCache();
+                    }
+
+                });
+    }
+
+    /**
+     * Returns the fragment identified by the given {@code key}, using the given
+     * {@code generator} to generate it if it is not cached. The key must identify
+     * everything that contributes to the fragment and must not be modified once it has
+     * been passed to this method.
+     *
+     * @param key the key of the fragment
+     * @param generator the generator of the fragment
+     * @return the fragment
+     */
+    synchronized String get(List<?> key, Generator generator) {
+        String fragment = this.fragments.get(key);
+        if (fragment == null) {
+            fragment = generator.generate();
+            this.fragments.put(key, fragment);
+        }
+        else {
+            log.debug("Reusing generated dependency management fragment");
+        }
+        return fragment;
+    }
+
+    /**
+     * Generates a fragment that is not cached.
+     */
+    public interface Generator {
+
+        /**
+         * Generates the fragment.
+         *
+         * @return the fragment
+         */
+        String generate();
+
+    }
+
+}
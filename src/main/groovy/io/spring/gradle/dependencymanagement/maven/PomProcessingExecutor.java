@@ -0,0 +1,125 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.dependencymanagement.maven;
+
+import io.spring.gradle.dependencymanagement.BuildScope;
+import org.gradle.BuildAdapter;
+import org.gradle.BuildResult;
+import org.gradle.api.Project;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Processes poms concurrently using threads that are shared by the build. Rather than each
+ * resolution creating, and then discarding, a pool of its own, tasks are run by the
+ * build's threads with a limit on how many of them each resolution can use at once. The
+ * threads are stopped when the build finishes.
+ *
+ * @author Andy Wilkinson
+ */
+public final class PomProcessingExecutor {
+
+    private final ExecutorService executor =
+            Executors.newCachedThreadPool(new PomProcessingThreadFactory());
+
+    private PomProcessingExecutor() {
+
+    }
+
+    /**
+     * Returns the {@code PomProcessingExecutor} for the build of the given {@code project}.
+     *
+     * @param project any project in the build
+     * @return the executor
+     */
+    public static PomProcessingExecutor forProject(Project project) {
+        return BuildScope.get(project, PomProcessingExecutor.class,
+                new BuildScope.Factory<PomProcessingExecutor>() {
+
+                    @Override
+                    public PomProcessingExecutor create(Project rootProject) {
+                        final PomProcessingExecutor executor = new PomProcessingExecutor();
+                        rootProject.getGradle().addBuildListener(new BuildAdapter() {
+
+                            @Override
+                            public void buildFinished(BuildResult result) {
+                                executor.executor.shutdownNow();
+                            }
+
+                        });
+                        return executor;
+                    }
+
+                });
+    }
+
+    /**
+     * Submits the given {@code tasks}, running them using at most {@code parallelism} of
+     * the build's threads at once. The returned futures are in the same order as the tasks.
+     * A task that is cancelled before it starts is not run.
+     *
+     * @param tasks the tasks
+     * @param parallelism the maximum number of tasks to run at once
+     * @param <T> the type of the tasks' results
+     * @return the futures of the tasks
+     */
+    public <T> List<Future<T>> submit(List<? extends Callable<T>> tasks, int parallelism) {
+        final List<FutureTask<T>> futures = new ArrayList<FutureTask<T>>(tasks.size());
+        for (Callable<T> task : tasks) {
+            futures.add(new FutureTask<T>(task));
+        }
+        final AtomicInteger next = new AtomicInteger();
+        Runnable worker = new Runnable() {
+
+            @Override
+            public void run() {
+                int index;
+                while ((index = next.getAndIncrement()) < futures.size()) {
+                    futures.get(index).run();
+                }
+            }
+
+        };
+        for (int i = 0; i < Math.min(parallelism, tasks.size()); i++) {
+            this.executor.execute(worker);
+        }
+        return new ArrayList<Future<T>>(futures);
+    }
+
+    private static final class PomProcessingThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable,
+                    "dependency-management-pom-" + this.threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+
+    }
+
+}
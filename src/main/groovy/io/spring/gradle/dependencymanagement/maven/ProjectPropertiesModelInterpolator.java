@@ -15,11 +15,14 @@ import org.gradle.api.Project;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
 /**
- * A {@link ModelInterpolator} that uses a Gradle project's properties as a {@link ValueSource}
+ * A {@link ModelInterpolator} that uses a Gradle project's properties as a {@link ValueSource}.
+ * Project properties are looked up by name as the pom's expressions are evaluated rather than
+ * by building a map of every one of the project's properties.
  *
  * @author Andy Wilkinson
  */
@@ -27,24 +30,109 @@ class ProjectPropertiesModelInterpolator extends StringSearchModelInterpolator {
 
     private final Project project;
 
+    private final ProjectPropertyValueSource projectProperties;
+
     private final Map<String, String> additionalProperties;
 
+    private final Map<String, String> interpolationInputs;
+
     ProjectPropertiesModelInterpolator(Project project, Map<String, String> additionalProperties) {
+        this(project, additionalProperties, null);
+    }
+
+    /**
+     * Creates a new interpolator that records, in the given {@code interpolationInputs},
+     * the value of every additional, project, or system property that is consulted during
+     * interpolation.
+     *
+     * @param project the project
+     * @param additionalProperties additional properties that take precedence over the
+     * project's properties
+     * @param interpolationInputs the map in which the consulted properties are recorded
+     */
+    ProjectPropertiesModelInterpolator(Project project, Map<String, String> additionalProperties,
+            Map<String, String> interpolationInputs) {
+        this(project, null, additionalProperties, interpolationInputs);
+    }
+
+    /**
+     * Creates a new interpolator that, when {@code projectProperties} is not {@code null},
+     * uses it to look up the properties of the given {@code project} so that the lookups
+     * are shared by every interpolation and are performed by the thread that created it.
+     *
+     * @param project the project
+     * @param projectProperties the source of the project's properties, or {@code null}
+     * @param additionalProperties additional properties that take precedence over the
+     * project's properties
+     * @param interpolationInputs the map in which the consulted properties are recorded
+     */
+    ProjectPropertiesModelInterpolator(Project project,
+            ProjectPropertyValueSource projectProperties,
+            Map<String, String> additionalProperties, Map<String, String> interpolationInputs) {
         this.project = project;
+        this.projectProperties = projectProperties;
         this.additionalProperties = additionalProperties;
+        this.interpolationInputs = interpolationInputs;
         setUrlNormalizer(new DefaultUrlNormalizer());
         setPathTranslator(new DefaultPathTranslator());
     }
 
     public List<ValueSource> createValueSources(Model model, File projectDir,
             ModelBuildingRequest request, ModelProblemCollector collector) {
-        List<ValueSource> valueSources = new ArrayList<ValueSource>(
-                Arrays.asList(new MapBasedValueSource(this.additionalProperties),
-                        new MapBasedValueSource(project.getProperties()),
-                        new PropertiesBasedValueSource(System.getProperties())));
+        List<ValueSource> valueSources = new ArrayList<ValueSource>();
+        valueSources.add(new ProjectPropertiesValueSource(this.interpolationInputs,
+                new MapBasedValueSource(this.additionalProperties),
+                this.projectProperties == null ?
+                        new ProjectPropertyValueSource(this.project) : this.projectProperties,
+                new PropertiesBasedValueSource(System.getProperties())));
         valueSources.addAll(super.createValueSources(model, projectDir, request, collector));
         return valueSources;
     }
 
+    /**
+     * A {@link ValueSource} that consults the additional properties, the project's
+     * properties and then the system properties, optionally recording the value that it
+     * produces for each expression.
+     */
+    private static final class ProjectPropertiesValueSource implements ValueSource {
+
+        private final Map<String, String> interpolationInputs;
+
+        private final List<ValueSource> delegates;
+
+        private ProjectPropertiesValueSource(Map<String, String> interpolationInputs,
+                ValueSource... delegates) {
+            this.interpolationInputs = interpolationInputs;
+            this.delegates = Arrays.asList(delegates);
+        }
+
+        @Override
+        public Object getValue(String expression) {
+            Object value = null;
+            for (ValueSource delegate : this.delegates) {
+                value = delegate.getValue(expression);
+                if (value != null) {
+                    break;
+                }
+            }
+            if (this.interpolationInputs != null) {
+                this.interpolationInputs.put(expression, value == null ? null :
+                        String.valueOf(value));
+            }
+            return value;
+        }
+
+        @Override
+        public List getFeedback() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public void clearFeedback() {
+
+        }
+
+    }
+
 
 }
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.dependencymanagement.maven;
+
+import io.spring.gradle.dependencymanagement.org.codehaus.plexus.interpolation.ValueSource;
+import org.gradle.api.GradleException;
+import org.gradle.api.Project;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link ValueSource} that looks up each expression as a property of a project, caching
+ * the result so that an expression that is used many times is only looked up once.
+ * <p>
+ * The project is only used by the thread that created the value source. When another
+ * thread needs an expression that has not already been looked up, it hands the lookup to
+ * the creating thread and waits for it to be performed while the creating thread is
+ * {@link #await awaiting} that thread's work. This allows poms to be interpolated
+ * concurrently without taking a snapshot of all of the project's properties up front.
+ *
+ * @author Andy Wilkinson
+ */
+final class ProjectPropertyValueSource implements ValueSource {
+
+    private static final Object NO_VALUE = new Object();
+
+    private final Project project;
+
+    private final Thread owner = Thread.currentThread();
+
+    private final ConcurrentMap<String, Object> values = new ConcurrentHashMap<String, Object>();
+
+    private final BlockingQueue<FutureTask<Object>> lookups =
+            new LinkedBlockingQueue<FutureTask<Object>>();
+
+    ProjectPropertyValueSource(Project project) {
+        this.project = project;
+    }
+
+    @Override
+    public Object getValue(final String expression) {
+        Object value = this.values.get(expression);
+        if (value == null) {
+            value = Thread.currentThread() == this.owner ? lookUp(expression) :
+                    handOff(expression);
+        }
+        return value == NO_VALUE ? null : value;
+    }
+
+    private Object lookUp(String expression) {
+        Object value = this.project.hasProperty(expression) ?
+                this.project.property(expression) : null;
+        value = value == null ? NO_VALUE : value;
+        this.values.put(expression, value);
+        return value;
+    }
+
+    private Object handOff(final String expression) {
+        FutureTask<Object> lookup = new FutureTask<Object>(new Callable<Object>() {
+
+            @Override
+            public Object call() {
+                return lookUp(expression);
+            }
+
+        });
+        this.lookups.add(lookup);
+        try {
+            return lookup.get();
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new GradleException("Interrupted while looking up property '" +
+                    expression + "'", ex);
+        }
+        catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new GradleException("Look up of property '" + expression + "' failed",
+                    ex.getCause());
+        }
+    }
+
+    /**
+     * Waits for the given {@code future} to complete, performing the lookups that other
+     * threads have handed off while waiting. Must be called by the thread that created the
+     * value source.
+     *
+     * @param future the future
+     * @param <T> the type of the future's result
+     * @return the future's result
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     * @throws ExecutionException if the future completed exceptionally
+     */
+    <T> T await(Future<T> future) throws InterruptedException, ExecutionException {
+        while (!future.isDone()) {
+            FutureTask<Object> lookup = this.lookups.poll(1, TimeUnit.MILLISECONDS);
+            if (lookup != null) {
+                lookup.run();
+            }
+        }
+        return future.get();
+    }
+
+    @Override
+    public List getFeedback() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void clearFeedback() {
+
+    }
+
+}
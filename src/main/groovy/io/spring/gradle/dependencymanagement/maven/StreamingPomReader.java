@@ -0,0 +1,1023 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.dependencymanagement.maven;
+
+import io.spring.gradle.dependencymanagement.org.apache.maven.model.Dependency;
+import io.spring.gradle.dependencymanagement.org.apache.maven.model.DependencyManagement;
+import io.spring.gradle.dependencymanagement.org.apache.maven.model.Exclusion;
+import io.spring.gradle.dependencymanagement.org.apache.maven.model.Model;
+import io.spring.gradle.dependencymanagement.org.apache.maven.model.building.ModelSource;
+import io.spring.gradle.dependencymanagement.org.apache.maven.model.resolution.ModelResolver;
+import io.spring.gradle.dependencymanagement.org.apache.maven.model.resolution.UnresolvableModelException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the {@link EffectivePom} of a pom without using Maven's model builder. The pom
+ * and its parents are read using StAX, only the elements that contribute to an
+ * {@code EffectivePom} are retained, and inheritance, interpolation, and the injection
+ * of dependency management are performed in the same way as the model builder performs
+ * them.
+ * <p>
+ * Poms that use a feature that the reader does not support, such as profiles, imported
+ * boms, a parent that is available locally, or an expression that refers to a part of
+ * the model that the reader does not retain, are not read. {@code null} is returned
+ * instead and the effective model should be built using Maven's model builder.
+ *
+ * @author Andy Wilkinson
+ */
+final class StreamingPomReader {
+
+    private static final List<String> PROJECT_PREFIXES = Arrays.asList("project.", "pom.");
+
+    private static final Pattern ID_PATTERN = Pattern.compile("[A-Za-z0-9_\\-.]+");
+
+    private static final Set<String> PROJECT_ELEMENTS = new HashSet<String>(Arrays.asList(
+            "modelVersion", "parent", "groupId", "artifactId", "version", "packaging", "name",
+            "description", "url", "inceptionYear", "organization", "licenses", "developers",
+            "contributors", "mailingLists", "prerequisites", "modules", "scm", "issueManagement",
+            "ciManagement", "distributionManagement", "properties", "dependencyManagement",
+            "dependencies", "repositories", "pluginRepositories", "build", "reports",
+            "reporting", "profiles"));
+
+    private static final Set<String> MODEL_FIELDS = new HashSet<String>(PROJECT_ELEMENTS);
+
+    static {
+        MODEL_FIELDS.addAll(Arrays.asList("basedir", "baseUri", "class", "id",
+                "modelEncoding", "pomFile", "projectDirectory"));
+    }
+
+    private final Logger log = LoggerFactory.getLogger(StreamingPomReader.class);
+
+    private static final ThreadLocal<XMLInputFactory> XML_INPUT_FACTORY =
+            new ThreadLocal<XMLInputFactory>() {
+
+                @Override
+                protected XMLInputFactory initialValue() {
+                    XMLInputFactory factory = XMLInputFactory.newInstance();
+                    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+                    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+                    factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+                    return factory;
+                }
+
+            };
+
+    private final ModelResolver modelResolver;
+
+    StreamingPomReader(ModelResolver modelResolver) {
+        this.modelResolver = modelResolver;
+    }
+
+    /**
+     * Reads the effective pom of the given {@code pom}, using the given
+     * {@code propertySource} ahead of the pom's own properties during interpolation.
+     *
+     * @param pom the pom
+     * @param propertySource the source of the additional, project, and system properties
+     * @return the result, or {@code null} if the pom cannot be read by this reader
+     */
+    Result read(File pom, EffectivePomCache.PropertySource propertySource) {
+        try {
+            List<RawPom> lineage = readLineage(pom);
+            Map<String, String> interpolationInputs = new HashMap<String, String>();
+            Model model = new Interpolator(merge(lineage), propertySource,
+                    interpolationInputs).interpolate();
+            injectManagement(model);
+            validate(model);
+            List<String> modelIds = new ArrayList<String>(lineage.size());
+            for (RawPom rawPom : lineage) {
+                modelIds.add(rawPom.getId());
+            }
+            return new Result(new EffectivePom(model), interpolationInputs, modelIds);
+        }
+        catch (UnsupportedPomException ex) {
+            log.debug("Unable to stream {}: {}", pom, ex.getMessage());
+            return null;
+        }
+    }
+
+    private List<RawPom> readLineage(File pom) throws UnsupportedPomException {
+        List<RawPom> lineage = new ArrayList<RawPom>();
+        RawPom current = readPom(pom);
+        if (current.parent != null && isAvailableLocally(pom, current.parent)) {
+            throw new UnsupportedPomException("its parent is available locally");
+        }
+        lineage.add(current);
+        Set<String> parentIds = new HashSet<String>();
+        while (current.parent != null) {
+            Parent parent = current.parent;
+            if (!parentIds.add(parent.getId())) {
+                throw new UnsupportedPomException("its parents form a cycle");
+            }
+            current = readPom(resolveParent(parent));
+            lineage.add(current);
+        }
+        return lineage;
+    }
+
+    private boolean isAvailableLocally(File pom, Parent parent) {
+        if (parent.relativePath != null && parent.relativePath.length() == 0) {
+            return false;
+        }
+        File candidate = new File(pom.getParentFile(), parent.relativePath == null ?
+                "../pom.xml" : parent.relativePath);
+        if (candidate.isDirectory()) {
+            candidate = new File(candidate, "pom.xml");
+        }
+        return candidate.isFile();
+    }
+
+    private ModelSource resolveParent(Parent parent) throws UnsupportedPomException {
+        if (parent.groupId == null || parent.artifactId == null || parent.version == null) {
+            throw new UnsupportedPomException("parent " + parent.getId() + " is incomplete");
+        }
+        try {
+            return this.modelResolver.resolveModel(parent.groupId, parent.artifactId,
+                    parent.version);
+        }
+        catch (UnresolvableModelException ex) {
+            throw new UnsupportedPomException("parent " + parent.getId() +
+                    " could not be resolved");
+        }
+    }
+
+    /**
+     * Returns the {@code group:artifact:version} ids of the poms that the given {@code pom}
+     * references, its parent and the boms imported by its dependency management, without
+     * building its effective model. A reference that is incomplete is ignored, as is an
+     * import whose coordinates use a property other than one of the pom's own properties or
+     * its group and version. If the pom cannot be read, the ids read so far are returned.
+     *
+     * @param pom the pom
+     * @return the ids of the referenced poms
+     */
+    static List<String> readReferencedIds(File pom) {
+        List<String> ids = new ArrayList<String>();
+        try {
+            InputStream input = new FileInputStream(pom);
+            try {
+                XMLStreamReader reader = XML_INPUT_FACTORY.get()
+                        .createXMLStreamReader(new BufferedInputStream(input));
+                try {
+                    Map<String, String> properties = new HashMap<String, String>();
+                    List<Dependency> imports = new ArrayList<Dependency>();
+                    reader.nextTag();
+                    while (nextChild(reader)) {
+                        String name = reader.getLocalName();
+                        if ("parent".equals(name)) {
+                            Parent parent = readParent(reader);
+                            if (parent.groupId != null && parent.artifactId != null &&
+                                    parent.version != null) {
+                                ids.add(parent.getId());
+                                putIfAbsent(properties, "project.groupId", parent.groupId);
+                                putIfAbsent(properties, "project.version", parent.version);
+                            }
+                        }
+                        else if ("groupId".equals(name)) {
+                            properties.put("project.groupId", text(reader));
+                        }
+                        else if ("version".equals(name)) {
+                            properties.put("project.version", text(reader));
+                        }
+                        else if ("properties".equals(name)) {
+                            while (nextChild(reader)) {
+                                properties.put(reader.getLocalName(), text(reader));
+                            }
+                        }
+                        else if ("dependencyManagement".equals(name)) {
+                            readImports(reader, imports);
+                        }
+                        else {
+                            skip(reader);
+                        }
+                    }
+                    for (Dependency imported : imports) {
+                        if (imported.getGroupId() != null && imported.getArtifactId() != null
+                                && imported.getVersion() != null) {
+                            String id = replaceProperties(imported.getGroupId(), properties) +
+                                    ":" + replaceProperties(imported.getArtifactId(), properties) +
+                                    ":" + replaceProperties(imported.getVersion(), properties);
+                            if (!hasExpression(id)) {
+                                ids.add(id);
+                            }
+                        }
+                    }
+                }
+                finally {
+                    reader.close();
+                }
+            }
+            finally {
+                input.close();
+            }
+        }
+        catch (Exception ex) {
+            // Fall through
+        }
+        return ids;
+    }
+
+    private static void putIfAbsent(Map<String, String> properties, String name,
+            String value) {
+        if (!properties.containsKey(name)) {
+            properties.put(name, value);
+        }
+    }
+
+    private static void readImports(XMLStreamReader reader, List<Dependency> imports)
+            throws XMLStreamException {
+        while (nextChild(reader)) {
+            if (!"dependencies".equals(reader.getLocalName())) {
+                skip(reader);
+                continue;
+            }
+            while (nextChild(reader)) {
+                if (!"dependency".equals(reader.getLocalName())) {
+                    skip(reader);
+                    continue;
+                }
+                Dependency dependency = new Dependency();
+                while (nextChild(reader)) {
+                    String name = reader.getLocalName();
+                    if ("groupId".equals(name)) {
+                        dependency.setGroupId(text(reader));
+                    }
+                    else if ("artifactId".equals(name)) {
+                        dependency.setArtifactId(text(reader));
+                    }
+                    else if ("version".equals(name)) {
+                        dependency.setVersion(text(reader));
+                    }
+                    else if ("scope".equals(name)) {
+                        dependency.setScope(text(reader));
+                    }
+                    else {
+                        skip(reader);
+                    }
+                }
+                if ("import".equals(dependency.getScope())) {
+                    imports.add(dependency);
+                }
+            }
+        }
+    }
+
+    private static String replaceProperties(String string, Map<String, String> properties) {
+        if (!hasExpression(string)) {
+            return string;
+        }
+        for (Map.Entry<String, String> property : properties.entrySet()) {
+            string = string.replace("${" + property.getKey() + "}", property.getValue());
+        }
+        return string;
+    }
+
+    private RawPom readPom(File pom) throws UnsupportedPomException {
+        try {
+            return readPom(new FileInputStream(pom), pom.getPath());
+        }
+        catch (IOException ex) {
+            throw new UnsupportedPomException(pom + " could not be read");
+        }
+    }
+
+    private RawPom readPom(ModelSource source) throws UnsupportedPomException {
+        try {
+            return readPom(source.getInputStream(), source.getLocation());
+        }
+        catch (IOException ex) {
+            throw new UnsupportedPomException(source.getLocation() + " could not be read");
+        }
+    }
+
+    private RawPom readPom(InputStream input, String location) throws IOException,
+            UnsupportedPomException {
+        try {
+            XMLStreamReader reader = XML_INPUT_FACTORY.get()
+                    .createXMLStreamReader(new BufferedInputStream(input));
+            try {
+                reader.nextTag();
+                if (!"project".equals(reader.getLocalName())) {
+                    throw new UnsupportedPomException(location + " is not a pom");
+                }
+                RawPom pom = readProject(reader);
+                pom.validate(location);
+                return pom;
+            }
+            finally {
+                reader.close();
+            }
+        }
+        catch (XMLStreamException ex) {
+            throw new UnsupportedPomException(location + " could not be parsed: " +
+                    ex.getMessage());
+        }
+        finally {
+            input.close();
+        }
+    }
+
+    private RawPom readProject(XMLStreamReader reader) throws XMLStreamException,
+            UnsupportedPomException {
+        RawPom pom = new RawPom();
+        Set<String> seen = new HashSet<String>();
+        while (nextChild(reader)) {
+            String name = reader.getLocalName();
+            if (!seen.add(name)) {
+                throw new UnsupportedPomException("<" + name + "> is duplicated");
+            }
+            if ("parent".equals(name)) {
+                pom.parent = readParent(reader);
+            }
+            else if ("modelVersion".equals(name)) {
+                pom.modelVersion = text(reader);
+            }
+            else if ("groupId".equals(name)) {
+                pom.groupId = text(reader);
+            }
+            else if ("artifactId".equals(name)) {
+                pom.artifactId = text(reader);
+            }
+            else if ("version".equals(name)) {
+                pom.version = text(reader);
+            }
+            else if ("packaging".equals(name)) {
+                pom.packaging = text(reader);
+            }
+            else if ("properties".equals(name)) {
+                pom.properties = readProperties(reader);
+            }
+            else if ("dependencyManagement".equals(name)) {
+                pom.managedDependencies = readDependencyManagement(reader);
+            }
+            else if ("dependencies".equals(name)) {
+                pom.dependencies = mergeDuplicates(readDependencies(reader));
+            }
+            else if ("modules".equals(name)) {
+                pom.modules = nextChild(reader);
+                if (pom.modules) {
+                    skip(reader);
+                    skip(reader);
+                }
+            }
+            else if ("profiles".equals(name)) {
+                throw new UnsupportedPomException("profiles are not supported");
+            }
+            else if (PROJECT_ELEMENTS.contains(name)) {
+                skip(reader);
+            }
+            else {
+                throw new UnsupportedPomException("<" + name + "> is not recognized");
+            }
+        }
+        return pom;
+    }
+
+    private static Parent readParent(XMLStreamReader reader) throws XMLStreamException,
+            UnsupportedPomException {
+        Parent parent = new Parent();
+        while (nextChild(reader)) {
+            String name = reader.getLocalName();
+            if ("groupId".equals(name)) {
+                parent.groupId = text(reader);
+            }
+            else if ("artifactId".equals(name)) {
+                parent.artifactId = text(reader);
+            }
+            else if ("version".equals(name)) {
+                parent.version = text(reader);
+            }
+            else if ("relativePath".equals(name)) {
+                parent.relativePath = text(reader);
+            }
+            else {
+                throw new UnsupportedPomException("<parent><" + name + "> is not recognized");
+            }
+        }
+        return parent;
+    }
+
+    private Map<String, String> readProperties(XMLStreamReader reader)
+            throws XMLStreamException {
+        Map<String, String> properties = new LinkedHashMap<String, String>();
+        while (nextChild(reader)) {
+            properties.put(reader.getLocalName(), text(reader));
+        }
+        return properties;
+    }
+
+    private List<Dependency> readDependencyManagement(XMLStreamReader reader)
+            throws XMLStreamException, UnsupportedPomException {
+        List<Dependency> dependencies = Collections.emptyList();
+        while (nextChild(reader)) {
+            if (!"dependencies".equals(reader.getLocalName())) {
+                throw new UnsupportedPomException("<dependencyManagement><" +
+                        reader.getLocalName() + "> is not recognized");
+            }
+            dependencies = readDependencies(reader);
+        }
+        return dependencies;
+    }
+
+    private List<Dependency> readDependencies(XMLStreamReader reader)
+            throws XMLStreamException, UnsupportedPomException {
+        List<Dependency> dependencies = new ArrayList<Dependency>();
+        while (nextChild(reader)) {
+            if (!"dependency".equals(reader.getLocalName())) {
+                throw new UnsupportedPomException("<dependencies><" + reader.getLocalName() +
+                        "> is not recognized");
+            }
+            dependencies.add(readDependency(reader));
+        }
+        return dependencies;
+    }
+
+    private Dependency readDependency(XMLStreamReader reader) throws XMLStreamException,
+            UnsupportedPomException {
+        Dependency dependency = new Dependency();
+        Set<String> seen = new HashSet<String>();
+        while (nextChild(reader)) {
+            String name = reader.getLocalName();
+            if (!seen.add(name)) {
+                throw new UnsupportedPomException("<dependency><" + name + "> is duplicated");
+            }
+            if ("groupId".equals(name)) {
+                dependency.setGroupId(text(reader));
+            }
+            else if ("artifactId".equals(name)) {
+                dependency.setArtifactId(text(reader));
+            }
+            else if ("version".equals(name)) {
+                dependency.setVersion(text(reader));
+            }
+            else if ("type".equals(name)) {
+                dependency.setType(text(reader));
+            }
+            else if ("classifier".equals(name)) {
+                dependency.setClassifier(text(reader));
+            }
+            else if ("scope".equals(name)) {
+                dependency.setScope(text(reader));
+            }
+            else if ("optional".equals(name)) {
+                dependency.setOptional(text(reader));
+            }
+            else if ("systemPath".equals(name)) {
+                dependency.setSystemPath(text(reader));
+            }
+            else if ("exclusions".equals(name)) {
+                while (nextChild(reader)) {
+                    if (!"exclusion".equals(reader.getLocalName())) {
+                        throw new UnsupportedPomException("<exclusions><" +
+                                reader.getLocalName() + "> is not recognized");
+                    }
+                    dependency.addExclusion(readExclusion(reader));
+                }
+            }
+            else {
+                throw new UnsupportedPomException("<dependency><" + name +
+                        "> is not recognized");
+            }
+        }
+        return dependency;
+    }
+
+    private Exclusion readExclusion(XMLStreamReader reader) throws XMLStreamException,
+            UnsupportedPomException {
+        Exclusion exclusion = new Exclusion();
+        while (nextChild(reader)) {
+            String name = reader.getLocalName();
+            if ("groupId".equals(name)) {
+                exclusion.setGroupId(text(reader));
+            }
+            else if ("artifactId".equals(name)) {
+                exclusion.setArtifactId(text(reader));
+            }
+            else {
+                throw new UnsupportedPomException("<exclusion><" + name +
+                        "> is not recognized");
+            }
+        }
+        return exclusion;
+    }
+
+    private static boolean nextChild(XMLStreamReader reader) throws XMLStreamException {
+        return reader.nextTag() == XMLStreamConstants.START_ELEMENT;
+    }
+
+    private static String text(XMLStreamReader reader) throws XMLStreamException {
+        return reader.getElementText().trim();
+    }
+
+    private static void skip(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            }
+            else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Collapses dependencies with the same management key, keeping the position of the
+     * first and the declaration of the last, as Maven's model normalizer does.
+     */
+    private List<Dependency> mergeDuplicates(List<Dependency> dependencies) {
+        Map<String, Dependency> normalized = new LinkedHashMap<String, Dependency>();
+        for (Dependency dependency : dependencies) {
+            normalized.put(dependency.getManagementKey(), dependency);
+        }
+        return normalized.size() == dependencies.size() ? dependencies :
+                new ArrayList<Dependency>(normalized.values());
+    }
+
+    private Model merge(List<RawPom> lineage) {
+        RawPom parent = lineage.get(lineage.size() - 1);
+        Model merged = parent.toModel();
+        for (int i = lineage.size() - 2; i >= 0; i--) {
+            RawPom child = lineage.get(i);
+            Model model = child.toModel();
+            if (model.getGroupId() == null) {
+                model.setGroupId(merged.getGroupId());
+            }
+            if (model.getVersion() == null) {
+                model.setVersion(merged.getVersion());
+            }
+            Properties properties = new Properties();
+            properties.putAll(merged.getProperties());
+            properties.putAll(model.getProperties());
+            model.setProperties(properties);
+            model.getDependencyManagement().setDependencies(inherit(
+                    model.getDependencyManagement().getDependencies(),
+                    merged.getDependencyManagement().getDependencies()));
+            model.setDependencies(inherit(model.getDependencies(), merged.getDependencies()));
+            merged = model;
+        }
+        return merged;
+    }
+
+    private List<Dependency> inherit(List<Dependency> dependencies,
+            List<Dependency> parentDependencies) {
+        if (parentDependencies.isEmpty()) {
+            return dependencies;
+        }
+        Map<String, Dependency> merged = new LinkedHashMap<String, Dependency>();
+        for (Dependency dependency : dependencies) {
+            merged.put(dependency.getManagementKey(), dependency);
+        }
+        for (Dependency dependency : parentDependencies) {
+            String key = dependency.getManagementKey();
+            if (!merged.containsKey(key)) {
+                merged.put(key, dependency.clone());
+            }
+        }
+        return new ArrayList<Dependency>(merged.values());
+    }
+
+    private void injectManagement(Model model) throws UnsupportedPomException {
+        Map<String, Dependency> managedDependencies = new HashMap<String, Dependency>();
+        for (Dependency managed : model.getDependencyManagement().getDependencies()) {
+            if ("import".equals(managed.getScope())) {
+                throw new UnsupportedPomException("imported boms are not supported");
+            }
+            managedDependencies.put(managed.getManagementKey(), managed);
+        }
+        for (Dependency dependency : model.getDependencies()) {
+            Dependency managed = managedDependencies.get(dependency.getManagementKey());
+            if (managed != null) {
+                if (dependency.getVersion() == null) {
+                    dependency.setVersion(managed.getVersion());
+                }
+                if (dependency.getScope() == null) {
+                    dependency.setScope(managed.getScope());
+                }
+                if (dependency.getSystemPath() == null) {
+                    dependency.setSystemPath(managed.getSystemPath());
+                }
+                if (dependency.getExclusions().isEmpty()) {
+                    for (Exclusion exclusion : managed.getExclusions()) {
+                        dependency.addExclusion(exclusion.clone());
+                    }
+                }
+            }
+            if (dependency.getScope() == null || dependency.getScope().length() == 0) {
+                dependency.setScope("compile");
+            }
+        }
+    }
+
+    private void validate(Model model) throws UnsupportedPomException {
+        if (!isValidId(model.getGroupId()) || !isValidId(model.getArtifactId()) ||
+                isEmpty(model.getVersion()) || isEmpty(model.getPackaging())) {
+            throw new UnsupportedPomException("its coordinates are invalid");
+        }
+        if (!model.getModules().isEmpty() && !"pom".equals(model.getPackaging())) {
+            throw new UnsupportedPomException("it aggregates modules without pom packaging");
+        }
+        for (Dependency dependency : model.getDependencyManagement().getDependencies()) {
+            validate(dependency);
+        }
+        for (Dependency dependency : model.getDependencies()) {
+            validate(dependency);
+            if (isEmpty(dependency.getVersion()) || hasExpression(dependency.getVersion()) ||
+                    isEmpty(dependency.getType())) {
+                throw new UnsupportedPomException("dependency " +
+                        dependency.getManagementKey() + " is invalid");
+            }
+        }
+    }
+
+    private void validate(Dependency dependency) throws UnsupportedPomException {
+        if (!isValidId(dependency.getGroupId()) || !isValidId(dependency.getArtifactId()) ||
+                (dependency.getOptional() != null && !"true".equals(dependency.getOptional()) &&
+                        !"false".equals(dependency.getOptional()))) {
+            throw new UnsupportedPomException("dependency " + dependency.getManagementKey() +
+                    " is invalid");
+        }
+        if ("system".equals(dependency.getScope())) {
+            throw new UnsupportedPomException("system scope is not supported");
+        }
+    }
+
+    private boolean isValidId(String id) {
+        return id != null && ID_PATTERN.matcher(id).matches();
+    }
+
+    private boolean isEmpty(String string) {
+        return string == null || string.length() == 0;
+    }
+
+    private static boolean hasExpression(String string) {
+        return string != null && string.contains("${");
+    }
+
+    /**
+     * The result of successfully reading a pom.
+     */
+    static final class Result {
+
+        private final EffectivePom pom;
+
+        private final Map<String, String> interpolationInputs;
+
+        private final List<String> modelIds;
+
+        private Result(EffectivePom pom, Map<String, String> interpolationInputs,
+                List<String> modelIds) {
+            this.pom = pom;
+            this.interpolationInputs = interpolationInputs;
+            this.modelIds = modelIds;
+        }
+
+        /**
+         * Returns the effective pom.
+         *
+         * @return the effective pom
+         */
+        EffectivePom getPom() {
+            return this.pom;
+        }
+
+        /**
+         * Returns the value of each additional, project, or system property that was
+         * consulted during interpolation.
+         *
+         * @return the interpolation inputs
+         */
+        Map<String, String> getInterpolationInputs() {
+            return this.interpolationInputs;
+        }
+
+        /**
+         * Returns the {@code group:artifact:version} ids of the pom and its parents.
+         *
+         * @return the model ids
+         */
+        List<String> getModelIds() {
+            return this.modelIds;
+        }
+
+    }
+
+    /**
+     * Interpolates the values of a merged model that are retained by the reader, resolving
+     * expressions in the same order as Maven's model interpolator.
+     */
+    private static final class Interpolator {
+
+        private final Model model;
+
+        private final EffectivePomCache.PropertySource propertySource;
+
+        private final Map<String, String> interpolationInputs;
+
+        private final LinkedList<String> expressions = new LinkedList<String>();
+
+        private Interpolator(Model model, EffectivePomCache.PropertySource propertySource,
+                Map<String, String> interpolationInputs) {
+            this.model = model;
+            this.propertySource = propertySource;
+            this.interpolationInputs = interpolationInputs;
+        }
+
+        private Model interpolate() throws UnsupportedPomException {
+            Model interpolated = new Model();
+            interpolated.setGroupId(interpolate(this.model.getGroupId()));
+            interpolated.setArtifactId(interpolate(this.model.getArtifactId()));
+            interpolated.setVersion(interpolate(this.model.getVersion()));
+            interpolated.setPackaging(interpolate(this.model.getPackaging()));
+            interpolated.setModules(this.model.getModules());
+            Properties properties = new Properties();
+            for (String name : this.model.getProperties().stringPropertyNames()) {
+                properties.setProperty(name,
+                        interpolate(this.model.getProperties().getProperty(name)));
+            }
+            interpolated.setProperties(properties);
+            DependencyManagement dependencyManagement = new DependencyManagement();
+            dependencyManagement.setDependencies(interpolate(
+                    this.model.getDependencyManagement().getDependencies()));
+            interpolated.setDependencyManagement(dependencyManagement);
+            interpolated.setDependencies(interpolate(this.model.getDependencies()));
+            return interpolated;
+        }
+
+        private List<Dependency> interpolate(List<Dependency> dependencies)
+                throws UnsupportedPomException {
+            List<Dependency> interpolated = new ArrayList<Dependency>(dependencies.size());
+            for (Dependency dependency : dependencies) {
+                Dependency copy = new Dependency();
+                copy.setGroupId(interpolate(dependency.getGroupId()));
+                copy.setArtifactId(interpolate(dependency.getArtifactId()));
+                copy.setVersion(interpolate(dependency.getVersion()));
+                copy.setType(interpolate(dependency.getType()));
+                copy.setClassifier(interpolate(dependency.getClassifier()));
+                copy.setScope(interpolate(dependency.getScope()));
+                copy.setOptional(interpolate(dependency.getOptional()));
+                copy.setSystemPath(interpolate(dependency.getSystemPath()));
+                for (Exclusion exclusion : dependency.getExclusions()) {
+                    Exclusion exclusionCopy = new Exclusion();
+                    exclusionCopy.setGroupId(interpolate(exclusion.getGroupId()));
+                    exclusionCopy.setArtifactId(interpolate(exclusion.getArtifactId()));
+                    copy.addExclusion(exclusionCopy);
+                }
+                interpolated.add(copy);
+            }
+            return interpolated;
+        }
+
+        private String interpolate(String value) throws UnsupportedPomException {
+            if (!hasExpression(value)) {
+                return value;
+            }
+            StringBuilder result = new StringBuilder();
+            int index = 0;
+            while (true) {
+                int start = value.indexOf("${", index);
+                int end = start < 0 ? -1 : value.indexOf('}', start + 2);
+                if (end < 0) {
+                    break;
+                }
+                result.append(value, index, start);
+                String resolved = resolve(value.substring(start + 2, end));
+                result.append(resolved == null ? value.substring(start, end + 1) : resolved);
+                index = end + 1;
+            }
+            result.append(value.substring(index));
+            return result.toString();
+        }
+
+        private String resolve(String expression) throws UnsupportedPomException {
+            if (expression.startsWith(".")) {
+                expression = expression.substring(1);
+            }
+            String unprefixed = unprefixed(expression);
+            String key = unprefixed == null ? expression : unprefixed;
+            if (this.expressions.contains(key)) {
+                throw new UnsupportedPomException("${" + expression + "} is recursive");
+            }
+            String value = lookup(expression, unprefixed);
+            if (value == null) {
+                return null;
+            }
+            this.expressions.push(key);
+            try {
+                return interpolate(value);
+            }
+            finally {
+                this.expressions.pop();
+            }
+        }
+
+        private String lookup(String expression, String unprefixed)
+                throws UnsupportedPomException {
+            String value = this.propertySource.getProperty(expression);
+            this.interpolationInputs.put(expression, value);
+            if (value != null) {
+                return value;
+            }
+            String field = unprefixed == null ? expression : unprefixed;
+            if ("basedir".equals(field) || "baseUri".equals(field) ||
+                    "maven.build.timestamp".equals(expression)) {
+                throw new UnsupportedPomException("${" + expression + "} is not supported");
+            }
+            if (unprefixed != null) {
+                value = modelValue(unprefixed);
+                if (value != null) {
+                    return value;
+                }
+            }
+            value = this.model.getProperties().getProperty(expression);
+            if (value != null) {
+                return value;
+            }
+            if (expression.startsWith("env.")) {
+                throw new UnsupportedPomException("${" + expression + "} is not supported");
+            }
+            return modelValue(expression);
+        }
+
+        private String modelValue(String expression) throws UnsupportedPomException {
+            if ("groupId".equals(expression)) {
+                return this.model.getGroupId();
+            }
+            if ("artifactId".equals(expression)) {
+                return this.model.getArtifactId();
+            }
+            if ("version".equals(expression)) {
+                return this.model.getVersion();
+            }
+            if ("packaging".equals(expression)) {
+                return this.model.getPackaging();
+            }
+            if (this.model.getParent() != null) {
+                if ("parent.groupId".equals(expression)) {
+                    return this.model.getParent().getGroupId();
+                }
+                if ("parent.artifactId".equals(expression)) {
+                    return this.model.getParent().getArtifactId();
+                }
+                if ("parent.version".equals(expression)) {
+                    return this.model.getParent().getVersion();
+                }
+            }
+            String root = expression.split("[.\\[]", 2)[0];
+            if (MODEL_FIELDS.contains(root)) {
+                throw new UnsupportedPomException("${" + expression + "} is not supported");
+            }
+            return null;
+        }
+
+        private String unprefixed(String expression) {
+            for (String prefix : PROJECT_PREFIXES) {
+                if (expression.startsWith(prefix)) {
+                    return expression.substring(prefix.length());
+                }
+            }
+            return null;
+        }
+
+    }
+
+    /**
+     * The parts of a pom that are retained before inheritance and interpolation.
+     */
+    private static final class RawPom {
+
+        private Parent parent;
+
+        private String modelVersion;
+
+        private String groupId;
+
+        private String artifactId;
+
+        private String version;
+
+        private String packaging;
+
+        private boolean modules;
+
+        private Map<String, String> properties = Collections.emptyMap();
+
+        private List<Dependency> managedDependencies = Collections.emptyList();
+
+        private List<Dependency> dependencies = Collections.emptyList();
+
+        private void validate(String location) throws UnsupportedPomException {
+            if (!"4.0.0".equals(this.modelVersion) || this.artifactId == null ||
+                    (this.parent == null && (this.groupId == null || this.version == null))) {
+                throw new UnsupportedPomException(location + " is invalid");
+            }
+        }
+
+        private String getId() {
+            return (this.groupId == null && this.parent != null ? this.parent.groupId :
+                    this.groupId) + ":" + this.artifactId + ":" +
+                    (this.version == null && this.parent != null ? this.parent.version :
+                            this.version);
+        }
+
+        private Model toModel() {
+            Model model = new Model();
+            if (this.parent != null) {
+                io.spring.gradle.dependencymanagement.org.apache.maven.model.Parent modelParent =
+                        new io.spring.gradle.dependencymanagement.org.apache.maven.model.Parent();
+                modelParent.setGroupId(this.parent.groupId);
+                modelParent.setArtifactId(this.parent.artifactId);
+                modelParent.setVersion(this.parent.version);
+                model.setParent(modelParent);
+            }
+            model.setGroupId(this.groupId);
+            model.setArtifactId(this.artifactId);
+            model.setVersion(this.version);
+            if (this.packaging != null) {
+                model.setPackaging(this.packaging);
+            }
+            if (this.modules) {
+                model.addModule("");
+            }
+            Properties properties = new Properties();
+            properties.putAll(this.properties);
+            model.setProperties(properties);
+            DependencyManagement dependencyManagement = new DependencyManagement();
+            dependencyManagement.setDependencies(
+                    new ArrayList<Dependency>(this.managedDependencies));
+            model.setDependencyManagement(dependencyManagement);
+            model.setDependencies(new ArrayList<Dependency>(this.dependencies));
+            return model;
+        }
+
+    }
+
+    /**
+     * The parent of a pom.
+     */
+    private static final class Parent {
+
+        private String groupId;
+
+        private String artifactId;
+
+        private String version;
+
+        private String relativePath;
+
+        private String getId() {
+            return this.groupId + ":" + this.artifactId + ":" + this.version;
+        }
+
+    }
+
+    /**
+     * Thrown when a pom uses a feature that is not supported by the reader.
+     */
+    private static final class UnsupportedPomException extends Exception {
+
+        private UnsupportedPomException(String message) {
+            super(message);
+        }
+
+    }
+
+}
@@ -70,16 +70,8 @@ class DependencyManagementReportRenderer {
     }
 
     private void renderManagedVersions(def managedVersions) {
-        managedVersions.sort { a, b ->
-            def (String groupA, String moduleA) = a.key.split(':')
-            def (String groupB, String moduleB) = b.key.split(':')
-            def result = groupA.compareTo(groupB)
-            if (!result) {
-                result = moduleA.compareTo(moduleB)
-            }
-            return result
-        } .each { dependency, version ->
-            output.println("    $dependency $version")
+        ManagedVersion.sort(managedVersions).each { ManagedVersion managedVersion ->
+            output.println("    $managedVersion.key $managedVersion.version")
         }
         output.println()
     }
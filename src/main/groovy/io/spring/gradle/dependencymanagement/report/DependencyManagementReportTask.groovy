@@ -14,16 +14,25 @@
  * limitations under the License.
  */
 
+
 package io.spring.gradle.dependencymanagement.report
 
 import io.spring.gradle.dependencymanagement.DependencyManagementContainer
 import org.gradle.api.DefaultTask
 import org.gradle.api.artifacts.Configuration
+import org.gradle.api.tasks.Input
+import org.gradle.api.tasks.Optional
+import org.gradle.api.tasks.OutputFile
 import org.gradle.api.tasks.TaskAction
 
 import javax.inject.Inject
+import java.security.MessageDigest
+
 /**
- * Task to display the dependency management for a project.
+ * Task to display the dependency management for a project. By default, the report is
+ * written to the console. When a machine-readable {@link ReportFormat format} is
+ * configured, it is written to the task's output file instead and the task is up to date
+ * when the project's dependency management has not changed.
  *
  * @author Andy Wilkinson.
  */
@@ -33,6 +42,12 @@ class DependencyManagementReportTask extends DefaultTask {
 
     DependencyManagementReportRenderer renderer
 
+    private ReportFormat format = ReportFormat.TEXT
+
+    private File outputFile
+
+    private Map<String, List<ManagedVersion>> fingerprintedManagedVersions
+
     @Inject
     DependencyManagementReportTask() {
         this.renderer = new DependencyManagementReportRenderer();
@@ -42,21 +57,153 @@ class DependencyManagementReportTask extends DefaultTask {
         this.renderer = renderer;
     }
 
+    @Input
+    ReportFormat getFormat() {
+        format
+    }
+
+    void setFormat(ReportFormat format) {
+        this.format = format
+    }
+
+    void setFormat(String format) {
+        this.format = ReportFormat.valueOf(format.toUpperCase(Locale.ENGLISH))
+    }
+
+    /**
+     * Returns the file to which a machine-readable report is written, or {@code null} if
+     * the report is written to the console. Defaults to a file named for the report's
+     * format in {@code build/reports/dependency-management}.
+     *
+     * @return the output file or {@code null}
+     */
+    @Optional
+    @OutputFile
+    File getOutputFile() {
+        if (format == ReportFormat.TEXT) {
+            return null
+        }
+        outputFile ?: new File(project.buildDir,
+                "reports/dependency-management/dependency-management.${format.extension}")
+    }
+
+    void setOutputFile(Object outputFile) {
+        this.outputFile = project.file(outputFile)
+    }
+
+    /**
+     * Returns a fingerprint of the managed versions that are reported so that a
+     * machine-readable report is only written again when they have changed, or
+     * {@code null} if the report is written to the console. The managed versions are
+     * determined afresh on each call and the report that is then written uses the same
+     * managed versions.
+     *
+     * @return the fingerprint or {@code null}
+     */
+    @Optional
+    @Input
+    String getManagedVersionsFingerprint() {
+        if (format == ReportFormat.TEXT) {
+            return null
+        }
+        MessageDigest digest = MessageDigest.getInstance('SHA-256')
+        Closure update = { String value ->
+            digest.update(value.getBytes('UTF-8'))
+            digest.update((byte) 0)
+        }
+        update("project ${project.path}")
+        fingerprintedManagedVersions = sortManagedVersions()
+        fingerprintedManagedVersions.each { String name, List<ManagedVersion> versions ->
+            update("configuration ${name}")
+            versions.each { ManagedVersion managedVersion ->
+                update("${managedVersion.key}=${managedVersion.version}")
+            }
+        }
+        digest.digest().encodeHex().toString()
+    }
+
     @TaskAction
     public void report() {
-        this.renderer.startProject(project)
+        try {
+            if (format == ReportFormat.TEXT) {
+                renderReport()
+            }
+            else {
+                writeReport()
+            }
+        }
+        finally {
+            fingerprintedManagedVersions = null
+        }
+    }
 
-        def globalManagedVersions = this.dependencyManagement.managedVersionsForConfiguration(null)
+    private void renderReport() {
+        this.renderer.startProject(project)
+        Map<Configuration, Map<String, String>> managedVersions = flattenManagedVersions()
+        def globalManagedVersions = managedVersions[null]
+        managedVersions.each { Configuration configuration, Map<String, String> versions ->
+            if (configuration) {
+                this.renderer.renderConfigurationManagedVersions(versions, configuration,
+                        globalManagedVersions)
+            }
+            else {
+                this.renderer.renderGlobalManagedVersions(versions)
+            }
+        }
+    }
 
-        this.renderer.renderGlobalManagedVersions(globalManagedVersions)
+    private void writeReport() {
+        Map<String, List<ManagedVersion>> managedVersions = fingerprintedManagedVersions
+        if (managedVersions == null) {
+            managedVersions = sortManagedVersions()
+        }
+        File file = getOutputFile()
+        file.parentFile.mkdirs()
+        file.withWriter('UTF-8') { Writer writer ->
+            ManagedVersionsWriter report = ManagedVersionsWriter.create(format, writer)
+            report.startProject(project.path)
+            managedVersions.each { String name, List<ManagedVersion> versions ->
+                report.managedVersions(name, versions)
+            }
+            report.endProject()
+        }
+        logger.info("Wrote dependency management report to {}", file)
+    }
 
+    /**
+     * Returns the managed versions of each configuration, sorted by name and preceded by
+     * the global managed versions with a {@code null} key.
+     */
+    private Map<Configuration, Map<String, String>> flattenManagedVersions() {
+        Map<Configuration, Map<String, String>> versions = [:] as LinkedHashMap
+        versions[null] = dependencyManagement.managedVersionsForConfiguration(null)
         project.configurations.sort {
             a, b -> a.name.compareTo(b.name)
         }.each { Configuration c ->
-            def managedVersions = this.dependencyManagement.managedVersionsForConfiguration(c)
-            this.renderer.
-                    renderConfigurationManagedVersions(managedVersions, c, globalManagedVersions)
+            versions[c] = dependencyManagement.managedVersionsForConfiguration(c)
+        }
+        versions
+    }
+
+    /**
+     * Returns the sorted managed versions of each configuration. Configurations that share
+     * their managed versions, typically because they have no dependency management of
+     * their own, share a single sorted list.
+     */
+    private Map<String, List<ManagedVersion>> sortManagedVersions() {
+        Map<Map<String, String>, List<ManagedVersion>> sorted =
+                new IdentityHashMap<Map<String, String>, List<ManagedVersion>>()
+        Map<String, List<ManagedVersion>> versionsByName = [:] as LinkedHashMap
+        flattenManagedVersions().each { Configuration configuration,
+                Map<String, String> versions ->
+            List<ManagedVersion> sortedVersions = sorted[versions]
+            if (sortedVersions == null) {
+                sortedVersions = ManagedVersion.sort(versions)
+                sorted[versions] = sortedVersions
+            }
+            versionsByName[configuration?.name] = sortedVersions
         }
+        versionsByName
     }
 
 }
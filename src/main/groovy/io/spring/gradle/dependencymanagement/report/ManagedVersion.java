@@ -0,0 +1,89 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.spring.gradle.dependencymanagement.report;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A managed version in a dependency management report, ordered by its group and then by
+ * its module.
+ *
+ * @author Andy Wilkinson
+ */
+final class ManagedVersion implements Comparable<ManagedVersion> {
+
+    private final String key;
+
+    private final String group;
+
+    private final String module;
+
+    private final String version;
+
+    private ManagedVersion(String key, String version) {
+        this.key = key;
+        int separator = key.indexOf(':');
+        this.group = separator < 0 ? key : key.substring(0, separator);
+        this.module = separator < 0 ? "" : key.substring(separator + 1);
+        this.version = version;
+    }
+
+    /**
+     * Returns the given map of {@code group:module} keys to versions as a list of managed
+     * versions sorted by group and then module. Each key is split once rather than once per
+     * comparison.
+     *
+     * @param managedVersions the managed versions
+     * @return the sorted managed versions
+     */
+    static List<ManagedVersion> sort(Map<?, ?> managedVersions) {
+        List<ManagedVersion> sorted = new ArrayList<ManagedVersion>(managedVersions.size());
+        for (Map.Entry<?, ?> entry : managedVersions.entrySet()) {
+            sorted.add(new ManagedVersion(String.valueOf(entry.getKey()),
+                    String.valueOf(entry.getValue())));
+        }
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    public String getKey() {
+        return this.key;
+    }
+
+    public String getGroup() {
+        return this.group;
+    }
+
+    public String getModule() {
+        return this.module;
+    }
+
+    public String getVersion() {
+        return this.version;
+    }
+
+    @Override
+    public int compareTo(ManagedVersion other) {
+        int result = this.group.compareTo(other.group);
+        return result != 0 ? result : this.module.compareTo(other.module);
+    }
+
+}
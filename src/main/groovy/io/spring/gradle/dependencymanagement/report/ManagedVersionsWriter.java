@@ -0,0 +1,203 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.spring.gradle.dependencymanagement.report;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes a machine-readable report of a project's managed versions, streaming each
+ * configuration's versions as they are written. The global managed versions are written
+ * first, followed by those of each configuration.
+ *
+ * @author Andy Wilkinson
+ */
+abstract class ManagedVersionsWriter {
+
+    protected final Writer writer;
+
+    private ManagedVersionsWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Creates a writer for the given machine-readable {@code format}.
+     *
+     * @param format the format
+     * @param writer the writer to which the report is written
+     * @return the managed versions writer
+     * @throws IllegalArgumentException if the format is not machine-readable
+     */
+    static ManagedVersionsWriter create(ReportFormat format, Writer writer) {
+        if (format == ReportFormat.JSON) {
+            return new JsonManagedVersionsWriter(writer);
+        }
+        if (format == ReportFormat.CSV) {
+            return new CsvManagedVersionsWriter(writer);
+        }
+        throw new IllegalArgumentException("Format " + format + " is not machine-readable");
+    }
+
+    /**
+     * Starts the report of the project with the given {@code path}.
+     *
+     * @param projectPath the path of the project
+     * @throws IOException if the report cannot be written
+     */
+    abstract void startProject(String projectPath) throws IOException;
+
+    /**
+     * Writes the given managed versions of the configuration with the given {@code name},
+     * or the global managed versions if the name is {@code null}.
+     *
+     * @param name the name of the configuration or {@code null}
+     * @param managedVersions the managed versions, sorted
+     * @throws IOException if the report cannot be written
+     */
+    abstract void managedVersions(String name, List<ManagedVersion> managedVersions)
+            throws IOException;
+
+    /**
+     * Ends the report and flushes it.
+     *
+     * @throws IOException if the report cannot be written
+     */
+    abstract void endProject() throws IOException;
+
+    private static final class JsonManagedVersionsWriter extends ManagedVersionsWriter {
+
+        private boolean configurations;
+
+        private JsonManagedVersionsWriter(Writer writer) {
+            super(writer);
+        }
+
+        @Override
+        void startProject(String projectPath) throws IOException {
+            this.writer.write("{\n  \"project\": ");
+            writeString(projectPath);
+        }
+
+        @Override
+        void managedVersions(String name, List<ManagedVersion> managedVersions)
+                throws IOException {
+            String indent = "  ";
+            if (name == null) {
+                this.writer.write(",\n  \"global\": ");
+            }
+            else {
+                this.writer.write(this.configurations ? ",\n    " :
+                        ",\n  \"configurations\": {\n    ");
+                this.configurations = true;
+                writeString(name);
+                this.writer.write(": ");
+                indent = "    ";
+            }
+            if (managedVersions.isEmpty()) {
+                this.writer.write("{}");
+                return;
+            }
+            this.writer.write("{");
+            for (int i = 0; i < managedVersions.size(); i++) {
+                ManagedVersion managedVersion = managedVersions.get(i);
+                this.writer.write(i == 0 ? "\n" : ",\n");
+                this.writer.write(indent);
+                this.writer.write("  ");
+                writeString(managedVersion.getKey());
+                this.writer.write(": ");
+                writeString(managedVersion.getVersion());
+            }
+            this.writer.write("\n");
+            this.writer.write(indent);
+            this.writer.write("}");
+        }
+
+        @Override
+        void endProject() throws IOException {
+            this.writer.write(this.configurations ? "\n  }\n}\n" : "\n}\n");
+            this.writer.flush();
+        }
+
+        private void writeString(String value) throws IOException {
+            this.writer.write('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    this.writer.write('\\');
+                    this.writer.write(c);
+                }
+                else if (c < 0x20) {
+                    this.writer.write(String.format("\\u%04x", (int) c));
+                }
+                else {
+                    this.writer.write(c);
+                }
+            }
+            this.writer.write('"');
+        }
+
+    }
+
+    private static final class CsvManagedVersionsWriter extends ManagedVersionsWriter {
+
+        private String projectPath;
+
+        private CsvManagedVersionsWriter(Writer writer) {
+            super(writer);
+        }
+
+        @Override
+        void startProject(String projectPath) throws IOException {
+            this.projectPath = projectPath;
+            this.writer.write("project,configuration,group,module,version\n");
+        }
+
+        @Override
+        void managedVersions(String name, List<ManagedVersion> managedVersions)
+                throws IOException {
+            for (ManagedVersion managedVersion : managedVersions) {
+                writeField(this.projectPath, true);
+                writeField(name == null ? "" : name, true);
+                writeField(managedVersion.getGroup(), true);
+                writeField(managedVersion.getModule(), true);
+                writeField(managedVersion.getVersion(), false);
+            }
+        }
+
+        @Override
+        void endProject() throws IOException {
+            this.writer.flush();
+        }
+
+        private void writeField(String value, boolean more) throws IOException {
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 ||
+                    value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                this.writer.write('"');
+                this.writer.write(value.replace("\"", "\"\""));
+                this.writer.write('"');
+            }
+            else {
+                this.writer.write(value);
+            }
+            this.writer.write(more ? ',' : '\n');
+        }
+
+    }
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.spring.gradle.dependencymanagement.report;
+
+/**
+ * The formats in which a {@link DependencyManagementReportTask} can report a project's
+ * dependency management.
+ *
+ * @author Andy Wilkinson
+ */
+public enum ReportFormat {
+
+    /**
+     * A human-readable report that is written to the console.
+     */
+    TEXT(null),
+
+    /**
+     * A JSON document that is written to the task's output file.
+     */
+    JSON("json"),
+
+    /**
+     * A CSV file with a row for each managed version of each configuration that is written
+     * to the task's output file.
+     */
+    CSV("csv");
+
+    private final String extension;
+
+    ReportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * Returns the extension of the file to which a report in this format is written, or
+     * {@code null} if the report is not written to a file.
+     *
+     * @return the extension or {@code null}
+     */
+    public String getExtension() {
+        return this.extension;
+    }
+
+}
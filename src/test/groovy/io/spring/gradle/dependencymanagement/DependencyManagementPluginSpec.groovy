@@ -16,14 +16,26 @@
 
 package io.spring.gradle.dependencymanagement
 
+import groovy.json.JsonSlurper
+import io.spring.gradle.dependencymanagement.exclusions.ExclusionApplicationStrategy
+import io.spring.gradle.dependencymanagement.instrumentation.Instrumentation
+import io.spring.gradle.dependencymanagement.maven.EffectivePomCache
 import org.gradle.api.Action
 import org.gradle.api.GradleException
 import org.gradle.api.InvalidUserDataException
 import org.gradle.api.Project
+import org.gradle.api.artifacts.Configuration
 import org.gradle.api.artifacts.DependencyResolveDetails
 import org.gradle.testfixtures.ProjectBuilder
 import spock.lang.Specification
 
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.TimeUnit
+
 public class DependencyManagementPluginSpec extends Specification {
 
     Project project
@@ -123,6 +135,100 @@ public class DependencyManagementPluginSpec extends Specification {
             files.collect { it.name }.containsAll(['spring-core-4.0.5.RELEASE.jar'])
     }
 
+    def "An imported bom is only reused by projects with the same interpolation inputs"() {
+        given: 'Three projects that import the same bom, one of which overrides a version'
+            def alpha = new ProjectBuilder().withName('alpha').withParent(project).build()
+            def bravo = new ProjectBuilder().withName('bravo').withParent(project).build()
+            bravo.ext['spring.version'] = '4.0.5.RELEASE'
+            [project, alpha, bravo].each { p ->
+                p.repositories {
+                    mavenCentral()
+                }
+                p.apply plugin: 'io.spring.dependency-management'
+                p.dependencyManagement {
+                    imports {
+                        mavenBom 'io.spring.platform:platform-bom:1.0.1.RELEASE'
+                    }
+                }
+            }
+        when: 'The managed versions of each project are retrieved'
+            def versions = [project, alpha, bravo].collect { p ->
+                p.dependencyManagement.managedVersions['org.springframework:spring-core']
+            }
+        then: 'The bom has been reused by the project without the override'
+            versions == ['4.0.6.RELEASE', '4.0.6.RELEASE', '4.0.5.RELEASE']
+            EffectivePomCache.forProject(project).hits == 1
+    }
+
+    def "The time spent in each phase of dependency management can be recorded"() {
+        given: 'A project with instrumentation enabled that imports a bom'
+            project.ext['dependencyManagement.instrumentation'] = 'true'
+            project.apply plugin: 'io.spring.dependency-management'
+            project.apply plugin: 'java'
+            project.dependencyManagement {
+                imports {
+                    mavenBom 'io.spring.platform:platform-bom:1.0.1.RELEASE'
+                }
+            }
+            project.dependencies {
+                compile 'org.springframework:spring-core'
+            }
+        when: 'A configuration is resolved and the instrumentation report is written'
+            project.configurations.compile.resolve()
+            def report = new File(project.buildDir, 'instrumentation.json')
+            Instrumentation.forProject(project).writeReport(report)
+            def phases = new JsonSlurper().parseText(report.text).phases
+        then: 'The phases of each configuration have been recorded'
+            def bomResolution = phases.find { it.phase == 'bomResolution' }
+            bomResolution.project == ':'
+            bomResolution.configuration == null
+            bomResolution.count == 1
+            def versionLookup = phases.find {
+                it.phase == 'versionLookup' && it.configuration == 'compile'
+            }
+            versionLookup.counters.hits >= 1
+            phases.find { it.phase == 'exclusionGraphResolution' }.configuration == 'compile'
+            phases.find { it.phase == 'modelBuilding' }.count >= 1
+    }
+
+    def "The search for excluded dependencies is skipped when no exclusion can apply"() {
+        given: 'A project with instrumentation enabled and dependencies without exclusions'
+            project.ext['dependencyManagement.instrumentation'] = 'true'
+            project.apply plugin: 'io.spring.dependency-management'
+            project.apply plugin: 'java'
+            project.repositories {
+                maven { url new File("src/test/resources/maven-repo").toURI().toURL().toString() }
+            }
+            project.configurations {
+                nonTransitive
+                compile.exclude group: 'test', module: 'unresolvable-dependency'
+            }
+            project.dependencies {
+                compile 'test:unresolvable-transitive-dependency:1.0'
+                nonTransitive('test:direct-exclude:1.0') { transitive = false }
+            }
+        when: 'The configurations are resolved and the instrumentation report is written'
+            def files = project.configurations.nonTransitive.resolve()
+            project.configurations.compile.resolve()
+            def report = new File(project.buildDir, 'instrumentation.json')
+            Instrumentation.forProject(project).writeReport(report)
+            def phases = new JsonSlurper().parseText(report.text).phases
+        then: 'The graph of the configuration without transitive dependencies was not resolved'
+            files.collect { it.name } == ['direct-exclude-1.0.jar']
+            def graphResolution = phases.find {
+                it.phase == 'exclusionGraphResolution' && it.configuration == 'nonTransitive'
+            }
+            graphResolution.count == 0
+            graphResolution.counters.skipped == 1
+            !phases.any {
+                it.phase == 'exclusionPomProcessing' && it.configuration == 'nonTransitive'
+            }
+        and: 'The graph of the other configuration was resolved but not walked'
+            phases.find {
+                it.phase == 'exclusionPomProcessing' && it.configuration == 'compile'
+            }.counters.skippedWalks == 1
+    }
+
     def "Dependency management can be declared in the build"() {
         given: 'A project with inline dependency management'
             project.apply plugin: 'io.spring.dependency-management'
@@ -218,6 +324,52 @@ public class DependencyManagementPluginSpec extends Specification {
                     .containsAll(['spring-core-4.0.6.RELEASE.jar', 'commons-logging-1.1.3.jar'])
     }
 
+    def "Versions of dependencies declared after a configuration has been resolved become managed versions"() {
+        given: 'A project with a version on a direct dependency whose configuration has been resolved'
+            project.apply plugin: 'io.spring.dependency-management'
+            project.apply plugin: 'java'
+            project.dependencies {
+                compile 'org.springframework:spring-core:4.0.6.RELEASE'
+            }
+            project.configurations.compile.resolve()
+        when: 'A dependency is declared in an extending configuration that is then resolved'
+            project.dependencies {
+                runtime 'commons-logging:commons-logging:1.1.1'
+            }
+            def files = project.configurations.testRuntime.resolve()
+        then: 'The versions of the dependencies are managed in the configurations that declare them'
+            files.collect { it.name }.contains('commons-logging-1.1.1.jar')
+            '1.1.1' == project.dependencyManagement.runtime
+                    .managedVersions['commons-logging:commons-logging']
+            '4.0.6.RELEASE' == project.dependencyManagement.runtime
+                    .managedVersions['org.springframework:spring-core']
+            null == project.dependencyManagement.compile
+                    .managedVersions['commons-logging:commons-logging']
+    }
+
+    def "Versions of direct dependencies take precedence over dependency management declared after resolution"() {
+        given: 'A project with a version on a direct dependency whose configuration has been resolved'
+            project.apply plugin: 'io.spring.dependency-management'
+            project.apply plugin: 'java'
+            project.dependencies {
+                compile 'org.springframework:spring-core:4.0.6.RELEASE'
+            }
+            project.configurations.compile.resolve()
+        when: 'Dependency management for the dependency is then declared and an extending configuration is resolved'
+            project.dependencyManagement {
+                compile {
+                    dependencies {
+                        dependency 'org.springframework:spring-core:4.0.5.RELEASE'
+                    }
+                }
+            }
+            def files = project.configurations.runtime.resolve()
+        then: "The direct dependency's version has been used"
+            files.collect { it.name }.contains('spring-core-4.0.6.RELEASE.jar')
+            '4.0.6.RELEASE' == project.dependencyManagement.compile
+                    .managedVersions['org.springframework:spring-core']
+    }
+
     def "Direct project dependencies take precedence over dependency management"() {
         given: 'A project with a project dependency and dependency management for the dependency'
             def child = new ProjectBuilder().withName('child').withParent(project).build()
@@ -972,6 +1124,65 @@ public class DependencyManagementPluginSpec extends Specification {
                                                    'commons-logging-1.1.3.jar'])
     }
 
+    def "Exclusions are applied to configurations that share excluded dependencies"() {
+        given: 'A project that imports a bom and shares exclusions between configurations'
+            project.ext['dependencyManagement.instrumentation'] = 'true'
+            project.apply plugin: 'io.spring.dependency-management'
+            project.apply plugin: 'java'
+            project.dependencyManagement {
+                imports {
+                    mavenBom 'io.spring.platform:platform-bom:1.0.1.RELEASE'
+                }
+                shareExclusionsBetweenConfigurations = true
+            }
+            project.dependencies {
+                compile 'org.springframework:spring-core'
+            }
+        when: 'Configurations with the same dependencies are resolved'
+            def compileFiles = project.configurations.compile.resolve()
+            def runtimeFiles = project.configurations.runtime.resolve()
+            def phases = writeInstrumentationReport()
+        then: "The bom's exclusions have been applied to both configurations"
+            compileFiles.collect { it.name } == ['spring-core-4.0.6.RELEASE.jar']
+            runtimeFiles.collect { it.name } == ['spring-core-4.0.6.RELEASE.jar']
+        and: "The compile configuration's excluded dependencies were reused by runtime"
+            exclusionGraphResolution(phases, 'compile').count == 1
+            exclusionGraphResolution(phases, 'runtime').count == 0
+            exclusionGraphResolution(phases, 'runtime').counters.reused == 1
+    }
+
+    def "Exclusions are not shared between configurations with different dependency management"() {
+        given: 'A project that shares exclusions and has dependency management for runtime'
+            project.ext['dependencyManagement.instrumentation'] = 'true'
+            project.apply plugin: 'io.spring.dependency-management'
+            project.apply plugin: 'java'
+            project.dependencyManagement {
+                imports {
+                    mavenBom 'io.spring.platform:platform-bom:1.0.1.RELEASE'
+                }
+                shareExclusionsBetweenConfigurations = true
+                runtime {
+                    dependencies {
+                        dependency 'org.springframework:spring-core:4.0.5.RELEASE'
+                    }
+                }
+            }
+            project.dependencies {
+                compile 'org.springframework:spring-core'
+            }
+        when: 'Configurations with the same dependencies are resolved'
+            def compileFiles = project.configurations.compile.resolve()
+            def runtimeFiles = project.configurations.runtime.resolve()
+            def phases = writeInstrumentationReport()
+        then: "The bom's exclusions have been applied to both configurations"
+            compileFiles.collect { it.name } == ['spring-core-4.0.6.RELEASE.jar']
+            runtimeFiles.collect { it.name } == ['spring-core-4.0.5.RELEASE.jar']
+        and: 'Each configuration searched for its own excluded dependencies'
+            exclusionGraphResolution(phases, 'compile').count == 1
+            exclusionGraphResolution(phases, 'runtime').count == 1
+            !exclusionGraphResolution(phases, 'runtime').counters?.reused
+    }
+
     def "Exclusions are applied correctly to dependencies that are referenced multiple times"() {
         given: 'A project that depends on spring-boot-starter-remote-shall'
             project.apply plugin: 'io.spring.dependency-management'
@@ -985,6 +1196,83 @@ public class DependencyManagementPluginSpec extends Specification {
             files.collect { it.name }.findAll { it.startsWith 'groovy-all' } .size() == 0
     }
 
+    def "Exclusions can be applied only to the dependencies that reach the excluded modules"() {
+        given: 'A project that imports a bom and applies exclusions to reaching dependencies'
+            project.apply plugin: 'io.spring.dependency-management'
+            project.apply plugin: 'java'
+            project.dependencyManagement {
+                imports {
+                    mavenBom 'io.spring.platform:platform-bom:1.0.1.RELEASE'
+                }
+                exclusionApplicationStrategy = ExclusionApplicationStrategy.REACHING_DEPENDENCIES
+            }
+            project.dependencies {
+                compile 'org.springframework:spring-core'
+                compile 'commons-codec:commons-codec'
+            }
+        when: 'A configuration is resolved'
+            def files = project.configurations.compile.resolve()
+        then: "The bom's exclusions have been applied only to the dependency that reaches them"
+            files.collect { it.name }.contains 'spring-core-4.0.6.RELEASE.jar'
+            !files.collect { it.name }.any { it.startsWith 'commons-logging' }
+            def dependencies = project.configurations.compile.dependencies
+            dependencies.find { it.name == 'spring-core' }.excludeRules*.module ==
+                    ['commons-logging']
+            dependencies.find { it.name == 'commons-codec' }.excludeRules.empty
+    }
+
+    def "Exclusions are applied correctly when poms are processed concurrently"() {
+        given: 'A project that processes poms concurrently and depends on spring-boot-starter-remote-shell'
+            project.apply plugin: 'io.spring.dependency-management'
+            project.apply plugin: 'java'
+            project.dependencyManagement {
+                pomProcessingParallelism = 4
+            }
+            project.dependencies {
+                compile 'org.springframework.boot:spring-boot-starter-remote-shell:1.2.0.RELEASE'
+            }
+        when: "its compile configuration is resolved"
+            def files = project.configurations.compile.resolve()
+        then: "groovy-all has been excluded"
+            files.collect { it.name }.findAll { it.startsWith 'groovy-all' } .size() == 0
+    }
+
+    def "A pom whose parent has not been prefetched is processed again on the calling thread"() {
+        given: 'A pom with a parent whose cached effective pom is stale for a child project'
+            project.ext['dependencyManagement.instrumentation'] = 'true'
+            File repository = new File(project.projectDir, 'repository')
+            writePom(repository, 'parent', null, [])
+            writePom(repository, 'alpha', 'parent', ['bravo:charlie'])
+            writePom(repository, 'bravo', null, ['charlie'])
+            writePom(repository, 'charlie', null, [])
+            def child = new ProjectBuilder().withName('child').withParent(project).build()
+            [project, child].each { Project p ->
+                p.apply plugin: 'io.spring.dependency-management'
+                p.repositories {
+                    maven { url repository.toURI().toURL().toString() }
+                }
+                p.dependencyManagement {
+                    pomProcessingParallelism = 4
+                }
+                p.configurations.create('poms')
+                p.dependencies.add('poms', 'test:alpha:1.0')
+            }
+            project.ext['pomName'] = 'root'
+            child.ext['pomName'] = 'child'
+        when: "The parent project's and then the child project's configurations are resolved"
+            project.configurations.poms.incoming.resolutionResult.allComponents
+            def components = child.configurations.poms.incoming.resolutionResult.allComponents
+            def phases = writeInstrumentationReport()
+        then: "The exclusion in the pom has been applied"
+            components.collect { it.moduleVersion.name }.sort() == ['alpha', 'bravo', 'child']
+        and: "The child project resolved the pom's parent on the calling thread"
+            def parentPomResolution = phases.find {
+                it.phase == 'parentPomResolution' && it.project == ':child'
+            }
+            parentPomResolution.count == 1
+            !parentPomResolution.counters?.prefetched
+    }
+
     def "Transitive dependencies with a circular reference are tolerated (see gh-33)"() {
         given: 'A project that depends on org.apache.xmlgraphics:batik-rasterizer'
             project.apply plugin: 'io.spring.dependency-management'
@@ -1055,6 +1343,30 @@ public class DependencyManagementPluginSpec extends Specification {
             '4.2.3.RELEASE' == project.dependencyManagement.managedVersions['org.springframework:spring-core']
     }
 
+    def "The order in which boms are imported is preserved when they are processed concurrently"() {
+        given: 'A project that processes poms concurrently'
+            project.apply plugin: 'io.spring.dependency-management'
+            project.apply plugin: 'java'
+            project.dependencyManagement {
+                pomProcessingParallelism = 4
+            }
+            project.repositories {
+                maven { url new File("src/test/resources/maven-repo").toURI().toURL().toString() }
+            }
+        when: 'Multiple boms are imported'
+            project.dependencyManagement {
+                imports {
+                    mavenBom 'org.springframework.boot:spring-boot-dependencies:1.2.7.RELEASE'
+                    mavenBom 'io.spring.platform:platform-bom:2.0.0.RELEASE'
+                    mavenBom 'test:no-dependency-management-bom:1.0'
+                }
+            }
+        then: 'The versions and properties from later boms override those from earlier boms'
+            '4.2.3.RELEASE' == project.dependencyManagement.managedVersions['org.springframework:spring-core']
+            '4.2.3.RELEASE' == project.dependencyManagement.importedProperties['spring.version']
+            'alpha' == project.dependencyManagement.importedProperties['a']
+    }
+
     def "A configuration's own managed versions can be accessed"() {
         given: 'A project that has the plugin applied'
             project.apply plugin: 'io.spring.dependency-management'
@@ -1072,6 +1384,83 @@ public class DependencyManagementPluginSpec extends Specification {
             null == project.dependencyManagement.runtime.ownManagedVersions['org.springframework:spring-core']
     }
 
+    def "Managed versions that have been accessed can be modified without affecting dependency management"() {
+        given: 'A project with dependency management'
+            project.apply plugin: 'io.spring.dependency-management'
+            project.apply plugin: 'java'
+            project.dependencyManagement {
+                dependencies {
+                    dependency 'com.alpha:bravo:1.0'
+                }
+            }
+        when: 'The accessed managed versions are modified'
+            project.dependencyManagement.managedVersions['com.alpha:bravo'] = '2.0'
+            project.dependencyManagement.compile.managedVersions['com.alpha:bravo'] = '2.0'
+            project.dependencyManagement.compile.ownManagedVersions['com.alpha:bravo'] = '2.0'
+        then: 'The dependency management is unchanged'
+            '1.0' == project.dependencyManagement.managedVersions['com.alpha:bravo']
+            '1.0' == project.dependencyManagement.compile.managedVersions['com.alpha:bravo']
+    }
+
+    def "Dependency management that is declared after managed versions have been accessed is used"() {
+        given: 'A project with dependency management whose managed versions have been accessed'
+            project.apply plugin: 'io.spring.dependency-management'
+            project.apply plugin: 'java'
+            project.dependencyManagement {
+                dependencies {
+                    dependency 'com.alpha:bravo:1.0'
+                }
+            }
+            assert '1.0' == project.dependencyManagement.compile.managedVersions['com.alpha:bravo']
+        when: 'Further dependency management is declared'
+            project.dependencyManagement {
+                compile {
+                    dependencies {
+                        dependency 'com.alpha:bravo:2.0'
+                    }
+                }
+                dependencies {
+                    dependency 'com.alpha:charlie:1.0'
+                }
+            }
+        then: 'The managed versions reflect the new dependency management'
+            '2.0' == project.dependencyManagement.compile.managedVersions['com.alpha:bravo']
+            '1.0' == project.dependencyManagement.compile.managedVersions['com.alpha:charlie']
+            '1.0' == project.dependencyManagement.managedVersions['com.alpha:bravo']
+    }
+
+    def "A bom that is imported after managed versions have been accessed is used"() {
+        given: 'A project with an imported bom whose managed versions have been accessed'
+            project.apply plugin: 'io.spring.dependency-management'
+            project.apply plugin: 'java'
+            project.dependencyManagement {
+                imports {
+                    mavenBom 'org.springframework.boot:spring-boot-dependencies:1.2.7.RELEASE'
+                }
+                dependencies {
+                    dependency 'org.springframework:spring-tx:4.0.0.RELEASE'
+                }
+            }
+            assert '4.1.8.RELEASE' == project.dependencyManagement.compile
+                    .managedVersions['org.springframework:spring-core']
+        when: 'Another bom is imported'
+            project.dependencyManagement {
+                imports {
+                    mavenBom 'io.spring.platform:platform-bom:2.0.0.RELEASE'
+                }
+            }
+        then: 'The later bom takes precedence over the earlier bom but not over explicit dependency management'
+            '4.2.3.RELEASE' == project.dependencyManagement.compile
+                    .managedVersions['org.springframework:spring-core']
+            '4.2.3.RELEASE' == project.dependencyManagement.importedProperties['spring.version']
+            '4.0.0.RELEASE' == project.dependencyManagement
+                    .managedVersions['org.springframework:spring-tx']
+            ['org.springframework.boot:spring-boot-dependencies:1.2.7.RELEASE',
+                    'io.spring.platform:platform-bom:2.0.0.RELEASE'] ==
+                    project.dependencyManagement.dependencyManagementContainer
+                            .globalDependencyManagement.importedBoms.keySet() as List
+    }
+
     def "A dependency with a missing component in its string identifier produces a helpful error" () {
         given: 'A project that has the plugin applied'
             project.apply plugin: 'io.spring.dependency-management'
@@ -1168,6 +1557,158 @@ public class DependencyManagementPluginSpec extends Specification {
             project.dependencyManagement.managedVersions['org.springframework:spring-core'] == '4.3.0.RELEASE'
     }
 
+    def "Imported boms can be loaded from a lock file"() {
+        given: 'A project that imports a bom and has written a lock file'
+            project.apply plugin: 'io.spring.dependency-management'
+            project.dependencyManagement {
+                imports {
+                    mavenBom 'io.spring.platform:platform-bom:1.0.1.RELEASE'
+                }
+            }
+            project.tasks.writeDependencyManagementLock.writeLock()
+        when: 'A project in the same directory with no repositories uses the lock file'
+            def locked = new ProjectBuilder().withProjectDir(project.projectDir).build()
+            locked.apply plugin: 'io.spring.dependency-management'
+            locked.dependencyManagement {
+                lockMode = 'strict'
+                imports {
+                    mavenBom 'io.spring.platform:platform-bom:1.0.1.RELEASE'
+                }
+            }
+        then: "The bom's managed versions and properties are available"
+            new File(project.projectDir, 'dependency-management.lock').file
+            locked.dependencyManagement.managedVersions['org.springframework:spring-core'] == '4.0.6.RELEASE'
+            locked.dependencyManagement.importedProperties['spring.version'] == '4.0.6.RELEASE'
+    }
+
+    def "A stale lock file causes resolution to fail in strict lock mode"() {
+        given: 'A project that imports a bom and has written a lock file'
+            project.apply plugin: 'io.spring.dependency-management'
+            project.dependencyManagement {
+                imports {
+                    mavenBom 'io.spring.platform:platform-bom:1.0.1.RELEASE'
+                }
+            }
+            project.tasks.writeDependencyManagementLock.writeLock()
+        when: 'A project in the same directory overrides one of the bom\'s properties'
+            def locked = new ProjectBuilder().withProjectDir(project.projectDir).build()
+            locked.ext['spring.version'] = '4.0.5.RELEASE'
+            locked.apply plugin: 'io.spring.dependency-management'
+            locked.dependencyManagement {
+                lockMode = 'strict'
+                imports {
+                    mavenBom 'io.spring.platform:platform-bom:1.0.1.RELEASE'
+                }
+            }
+            locked.dependencyManagement.managedVersions
+        then: 'Resolution fails as the lock file is out of date'
+            def ex = thrown(GradleException)
+            ex.message.contains('is out of date')
+    }
+
+    def "A lock file is stale when a property that a bom uses but does not define changes"() {
+        given: 'A project that imports a bom that uses a property that it does not define and has written a lock file'
+            project.ext['external.spring.version'] = '4.0.6.RELEASE'
+            project.apply plugin: 'io.spring.dependency-management'
+            project.repositories {
+                maven { url new File("src/test/resources/maven-repo").toURI().toURL().toString() }
+            }
+            project.dependencyManagement {
+                imports {
+                    mavenBom 'test:external-property-bom:1.0'
+                }
+            }
+            project.tasks.writeDependencyManagementLock.writeLock()
+        when: 'A project in the same directory has a different value for the property'
+            def locked = new ProjectBuilder().withProjectDir(project.projectDir).build()
+            locked.ext['external.spring.version'] = '4.0.5.RELEASE'
+            locked.apply plugin: 'io.spring.dependency-management'
+            locked.dependencyManagement {
+                lockMode = 'strict'
+                imports {
+                    mavenBom 'test:external-property-bom:1.0'
+                }
+            }
+            locked.dependencyManagement.managedVersions
+        then: 'Resolution fails as the lock file is out of date'
+            def ex = thrown(GradleException)
+            ex.message.contains('is out of date')
+    }
+
+    def "Projects that import the same boms share their resolved imports"() {
+        given: 'Three child projects that import the same bom, one of which overrides one of its properties'
+            List<Project> children = ['alpha', 'bravo', 'charlie'].collect {
+                Project child = new ProjectBuilder().withName(it).withParent(project).build()
+                child.apply plugin: 'io.spring.dependency-management'
+                child.repositories {
+                    mavenCentral()
+                }
+                child.dependencyManagement {
+                    imports {
+                        mavenBom 'org.springframework.boot:spring-boot-dependencies:1.2.7.RELEASE'
+                    }
+                }
+                child
+            }
+            children[2].ext['spring.version'] = '4.1.0.RELEASE'
+        when: 'The managed versions of each child project are retrieved'
+            List<Map> managedVersions = children.collect { it.dependencyManagement.managedVersions }
+        then: 'The imports were resolved once for the two projects with the same property values'
+            ImportsRegistry registry = ImportsRegistry.forProject(project)
+            registry.misses == 2
+            registry.hits == 1
+            managedVersions[0] == managedVersions[1]
+            managedVersions[1]['org.springframework:spring-core'] == '4.1.8.RELEASE'
+            managedVersions[2]['org.springframework:spring-core'] == '4.1.0.RELEASE'
+    }
+
+    def "The dependency management of many configurations can be resolved concurrently"() {
+        given: 'A project that imports a bom with exclusions and has dependency management for 32 configurations'
+            project.apply plugin: 'io.spring.dependency-management'
+            project.repositories {
+                maven { url new File("src/test/resources/maven-repo").toURI().toURL().toString() }
+            }
+            project.dependencyManagement {
+                imports {
+                    mavenBom 'test:direct-exclude-bom:1.0'
+                }
+            }
+            List<Configuration> configurations = (0..<32).collect { int i ->
+                Configuration configuration = project.configurations.create("stress$i")
+                project.dependencyManagement."stress$i" {
+                    dependencies {
+                        dependency "org.springframework:spring-beans:4.1.${i % 2 + 1}.RELEASE"
+                    }
+                }
+                project.dependencies.add("stress$i", 'test:direct-exclude:1.0')
+                configuration
+            }
+        when: 'Every configuration is resolved at the same time'
+            CountDownLatch start = new CountDownLatch(1)
+            ExecutorService executor = Executors.newFixedThreadPool(8)
+            List<Future<List<String>>> futures = configurations.collect { Configuration configuration ->
+                executor.submit({
+                    start.await()
+                    configuration.resolve().collect { it.name }.sort()
+                } as Callable<List<String>>)
+            }
+            start.countDown()
+            List<List<String>> results = futures.collect { it.get(120, TimeUnit.SECONDS) }
+            executor.shutdown()
+        then: "Each configuration's managed versions and the bom's exclusions have been applied"
+            results.eachWithIndex { List<String> files, int i ->
+                assert files == ['direct-exclude-1.0.jar', "spring-beans-4.1.${i % 2 + 1}.RELEASE.jar" as String,
+                        'spring-core-4.1.2.RELEASE.jar', 'spring-tx-4.1.2.RELEASE.jar']
+            }
+        and: 'The versions of the declared dependencies have become managed versions'
+            DependencyManagementContainer container =
+                    project.dependencyManagement.dependencyManagementContainer
+            configurations.every { container.getManagedVersion(it, 'test', 'direct-exclude') == '1.0' }
+        and: 'The bom was only resolved once'
+            ImportsRegistry.forProject(project).misses == 1
+            ImportsRegistry.forProject(project).hits == 0
+    }
+
     def "When overriding a bom property, a property on an import takes precedence over a project property"() {
         given: 'A project with a spring.version property'
             project.apply plugin: 'io.spring.dependency-management'
@@ -1267,4 +1808,58 @@ public class DependencyManagementPluginSpec extends Specification {
                     'spring-core-4.0.3.RELEASE.jar',
                     'unresolvable-transitive-dependency-1.0.jar'])
     }
+
+    private List<Map> writeInstrumentationReport() {
+        def report = new File(project.buildDir, 'instrumentation.json')
+        Instrumentation.forProject(project).writeReport(report)
+        new JsonSlurper().parseText(report.text).phases
+    }
+
+    private Map exclusionGraphResolution(List<Map> phases, String configuration) {
+        phases.find {
+            it.phase == 'exclusionGraphResolution' && it.configuration == configuration
+        }
+    }
+
+    private File writePom(File repository, String artifactId, String parentArtifactId,
+            List<String> dependencies) {
+        File pom = new File(repository, "test/$artifactId/1.0/$artifactId-1.0.pom")
+        pom.parentFile.mkdirs()
+        String parent = parentArtifactId ? """
+    <parent>
+        <groupId>test</groupId>
+        <artifactId>$parentArtifactId</artifactId>
+        <version>1.0</version>
+    </parent>""" : ''
+        String dependencyElements = dependencies.collect { String dependency ->
+            def (String dependencyArtifactId, String excluded) = dependency.tokenize(':')
+            String exclusions = excluded ? """
+            <exclusions>
+                <exclusion>
+                    <groupId>test</groupId>
+                    <artifactId>$excluded</artifactId>
+                </exclusion>
+            </exclusions>""" : ''
+            """
+        <dependency>
+            <groupId>test</groupId>
+            <artifactId>$dependencyArtifactId</artifactId>
+            <version>1.0</version>$exclusions
+        </dependency>"""
+        }.join('')
+        pom.text = """<?xml version="1.0" encoding="UTF-8"?>
+<project xmlns="http://maven.apache.org/POM/4.0.0">
+    <modelVersion>4.0.0</modelVersion>$parent
+    <groupId>test</groupId>
+    <artifactId>$artifactId</artifactId>
+    <version>1.0</version>
+    <packaging>pom</packaging>
+    <name>\${pomName}</name>
+    <dependencies>$dependencyElements
+    </dependencies>
+</project>
+"""
+        pom
+    }
+
 }
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.dependencymanagement
+
+import org.gradle.api.Project
+import org.gradle.testfixtures.ProjectBuilder
+import spock.lang.Specification
+
+/**
+ * Tests for {@link LocalProjectCoordinates}
+ *
+ * @author Andy Wilkinson
+ */
+class LocalProjectCoordinatesSpec extends Specification {
+
+    Project project
+
+    def setup() {
+        project = new ProjectBuilder().withName('root').build()
+        project.group = 'test'
+        ['alpha', 'bravo', 'charlie'].each { name ->
+            def child = new ProjectBuilder().withName(name).withParent(project).build()
+            child.group = name == 'charlie' ? 'test-other' : 'test'
+        }
+    }
+
+    def cleanup() {
+        project.projectDir.deleteDir()
+    }
+
+    def "The index is shared by every project in the build"() {
+        expect:
+            LocalProjectCoordinates.forProject(project).is(
+                    LocalProjectCoordinates.forProject(project.project(':alpha')))
+    }
+
+    def "The index matches a search of every project in the build"() {
+        given:
+            def coordinates = LocalProjectCoordinates.forProject(project)
+        expect:
+            coordinates.contains(group, name) == containedInAllProjects(group, name)
+        where:
+            group        | name
+            'test'       | 'root'
+            'test'       | 'alpha'
+            'test'       | 'bravo'
+            'test'       | 'charlie'
+            'test-other' | 'charlie'
+            'test-other' | 'alpha'
+            'other'      | 'alpha'
+            'test'       | 'delta'
+            ''           | 'alpha'
+    }
+
+    def "Changes to a project's group are picked up once the project has been evaluated"() {
+        given:
+            def coordinates = LocalProjectCoordinates.forProject(project)
+            def alpha = project.project(':alpha')
+            coordinates.contains('test', 'alpha')
+        when:
+            alpha.group = 'changed'
+            alpha.evaluate()
+        then:
+            coordinates.contains('changed', 'alpha') == containedInAllProjects('changed', 'alpha')
+            coordinates.contains('test', 'alpha') == containedInAllProjects('test', 'alpha')
+    }
+
+    def "Changes to a project's group are picked up once every project has been evaluated"() {
+        given:
+            def coordinates = LocalProjectCoordinates.forProject(project)
+            def alpha = project.project(':alpha')
+            coordinates.contains('test', 'alpha')
+        when:
+            alpha.group = 'changed'
+            project.gradle.buildListenerBroadcaster.projectsEvaluated(project.gradle)
+        then:
+            coordinates.contains('changed', 'alpha') == containedInAllProjects('changed', 'alpha')
+            coordinates.contains('test', 'alpha') == containedInAllProjects('test', 'alpha')
+    }
+
+    private boolean containedInAllProjects(String group, String name) {
+        project.rootProject.allprojects
+                .collect { "$it.group:$it.name" as String }
+                .contains("$group:$name" as String)
+    }
+
+}
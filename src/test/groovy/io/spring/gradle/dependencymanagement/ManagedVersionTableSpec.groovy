@@ -0,0 +1,157 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.spring.gradle.dependencymanagement
+
+import io.spring.gradle.dependencymanagement.exclusions.CoordinateInterner
+import org.gradle.api.Project
+import org.gradle.testfixtures.ProjectBuilder
+import spock.lang.Specification
+
+import java.lang.reflect.Array
+import java.lang.reflect.Field
+import java.lang.reflect.Modifier
+
+/**
+ * Tests for {@link ManagedVersionTable}
+ *
+ * @author Andy Wilkinson
+ */
+class ManagedVersionTableSpec extends Specification {
+
+    Project project
+
+    CoordinateInterner interner
+
+    Map<String, String> bomVersions = [:] as LinkedHashMap
+
+    def setup() {
+        project = new ProjectBuilder().build()
+        interner = CoordinateInterner.forProject(project)
+        1000.times { bomVersions["com.example.group${it % 20}:artifact-$it" as String] = "1.${it % 5}.0" as String }
+    }
+
+    def cleanup() {
+        project.projectDir.deleteDir()
+    }
+
+    def "A table layered on top of another overrides its versions"() {
+        given:
+            ManagedVersionTable bom = ManagedVersionTable.empty(interner).withOverrides(bomVersions)
+        when:
+            ManagedVersionTable table = bom.withOverrides(['com.example.group1:artifact-1': '2.0.0',
+                    'com.example:other': '3.0.0'])
+        then:
+            table.get('com.example.group1', 'artifact-1') == '2.0.0'
+            table.get('com.example.group2', 'artifact-2') == '1.2.0'
+            table.get('com.example', 'other') == '3.0.0'
+            table.get('com.example', 'unknown') == null
+            bom.get('com.example.group1', 'artifact-1') == '1.1.0'
+            table.asMap() == new LinkedHashMap(bomVersions) + ['com.example.group1:artifact-1': '2.0.0',
+                    'com.example:other': '3.0.0']
+            table.asMap().size() == 1001
+    }
+
+    def "A table without any overrides is shared rather than copied"() {
+        given:
+            ManagedVersionTable bom = ManagedVersionTable.empty(interner).withOverrides(bomVersions)
+        expect:
+            bom.withOverrides([:]).is(bom)
+            bom.withOverrides(['com.example.group1:artifact-1': '1.1.0']).is(bom)
+    }
+
+    def "Layered tables retain far less heap than a flattened copy for each configuration"() {
+        given: 'The managed versions of 20 projects that import the same bom and each have 10 configurations'
+            List<Map<String, String>> flattened = []
+            List<ManagedVersionTable> layered = []
+            ManagedVersionTable bom = ManagedVersionTable.empty(interner).withOverrides(bomVersions)
+            20.times { index ->
+                Map<String, String> own = ["com.example:project-$index" as String: '1.0.0']
+                Map<String, String> global = new LinkedHashMap(bomVersions) + own
+                ManagedVersionTable globalTable = bom.withOverrides(own)
+                10.times { configuration ->
+                    Map<String, String> configurationVersions = configuration == 0 ?
+                            ['com.example.group0:artifact-0': '2.0.0'] : [:]
+                    flattened << new LinkedHashMap(global + configurationVersions)
+                    layered << globalTable.withOverrides(configurationVersions)
+                }
+            }
+        when: 'The heap retained by each representation is measured'
+            long flattenedSize = retainedSize(flattened)
+            long layeredSize = retainedSize(layered)
+        then: 'The layered tables retain less than a tenth of the heap of the flattened copies'
+            layered.every { it.asMap().size() == 1001 }
+            layeredSize * 10 < flattenedSize
+    }
+
+    /**
+     * Estimates the heap retained by the object graph reachable from the given
+     * {@code root}, assuming compressed references and 8-byte alignment
+     */
+    private long retainedSize(Object root) {
+        Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap())
+        List<Object> pending = [root]
+        long size = 0
+        while (pending) {
+            Object object = pending.remove(pending.size() - 1)
+            if (object == null || object instanceof Class || object instanceof Project ||
+                    !visited.add(object)) {
+                continue
+            }
+            Class<?> type = object.getClass()
+            if (type.array) {
+                int length = Array.getLength(object)
+                size += align(16 + length * fieldSize(type.componentType))
+                if (!type.componentType.primitive) {
+                    length.times { pending << Array.get(object, it) }
+                }
+            }
+            else {
+                long shallow = 12
+                for (Class<?> current = type; current != null; current = current.superclass) {
+                    current.declaredFields.findAll { !Modifier.isStatic(it.modifiers) }.each { Field field ->
+                        shallow += fieldSize(field.type)
+                        if (!field.type.primitive) {
+                            field.accessible = true
+                            pending << field.get(object)
+                        }
+                    }
+                }
+                size += align(shallow)
+            }
+        }
+        size
+    }
+
+    private int fieldSize(Class<?> type) {
+        if (type == Long.TYPE || type == Double.TYPE) {
+            return 8
+        }
+        if (type == Short.TYPE || type == Character.TYPE) {
+            return 2
+        }
+        if (type == Byte.TYPE || type == Boolean.TYPE) {
+            return 1
+        }
+        return 4
+    }
+
+    private long align(long size) {
+        (size + 7) & ~7L
+    }
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.spring.gradle.dependencymanagement.maven
+
+import io.spring.gradle.dependencymanagement.org.apache.maven.model.Dependency
+import io.spring.gradle.dependencymanagement.org.apache.maven.model.DependencyManagement
+import io.spring.gradle.dependencymanagement.org.apache.maven.model.Exclusion
+import io.spring.gradle.dependencymanagement.org.apache.maven.model.Model
+import spock.lang.Specification
+
+/**
+ * Tests for {@link EffectivePom}
+ *
+ * @author Andy Wilkinson
+ */
+class EffectivePomSpec extends Specification {
+
+    def "The dependencies of a bom are not treated as managed dependencies"() {
+        given: 'A bom with both dependency management and dependencies'
+            Dependency managed = new Dependency(groupId: 'org.springframework',
+                    artifactId: 'spring-core', version: '4.0.5.RELEASE')
+            Dependency dependency = new Dependency(groupId: 'org.slf4j',
+                    artifactId: 'slf4j-api', version: '1.7.7')
+            dependency.addExclusion(new Exclusion(groupId: 'commons-logging',
+                    artifactId: 'commons-logging'))
+            Model model = new Model(groupId: 'test', artifactId: 'bom', version: '1.0',
+                    dependencyManagement: new DependencyManagement(dependencies: [managed]),
+                    dependencies: [dependency])
+        when: 'Its effective pom is created'
+            EffectivePom pom = new EffectivePom(model)
+        then: 'Only the dependency management provides managed versions'
+            pom.managedVersions == ['org.springframework:spring-core': '4.0.5.RELEASE']
+            pom.managedDependencies*.artifactId == ['spring-core']
+            model.dependencyManagement.dependencies == [managed]
+        and: 'The exclusions of the dependencies are still collected'
+            pom.exclusions.exclusionsForDependency('org.slf4j:slf4j-api') ==
+                    ['commons-logging:commons-logging'] as Set
+    }
+
+}
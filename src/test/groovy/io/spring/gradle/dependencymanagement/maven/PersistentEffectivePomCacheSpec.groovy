@@ -0,0 +1,189 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.dependencymanagement.maven
+
+import io.spring.gradle.dependencymanagement.exclusions.Exclusions
+import io.spring.gradle.dependencymanagement.org.apache.maven.model.Dependency
+import io.spring.gradle.dependencymanagement.org.apache.maven.model.Exclusion
+import io.spring.gradle.dependencymanagement.org.apache.maven.model.building.FileModelSource
+import io.spring.gradle.dependencymanagement.org.apache.maven.model.resolution.ModelResolver
+import org.gradle.api.Project
+import org.gradle.testfixtures.ProjectBuilder
+import spock.lang.Specification
+
+/**
+ * Tests for {@link PersistentEffectivePomCache}
+ *
+ * @author Andy Wilkinson
+ */
+class PersistentEffectivePomCacheSpec extends Specification {
+
+    File directory
+
+    PersistentEffectivePomCache cache
+
+    def setup() {
+        directory = File.createTempFile('pom-cache', '')
+        directory.delete()
+        cache = new PersistentEffectivePomCache(directory, true)
+    }
+
+    def cleanup() {
+        directory.deleteDir()
+    }
+
+    def "A pom can be stored and read back"() {
+        given:
+            cache.put('abc123', ['spring.version': '4.0.5.RELEASE', 'other': null], effectivePom())
+        when:
+            def entry = cache.get('abc123', properties('spring.version': '4.0.5.RELEASE'))
+        then:
+            entry.interpolationInputs == ['spring.version': '4.0.5.RELEASE', 'other': null]
+            entry.pom.coordinates == 'test:bom:1.0'
+            entry.pom.managedVersions == ['org.springframework:spring-core': '4.0.5.RELEASE']
+            entry.pom.managedDependencies[0].scope == 'compile'
+            entry.pom.managedDependencies[0].classifier == null
+            entry.pom.managedDependencies[0].exclusions[0].artifactId == 'commons-logging'
+            entry.pom.exclusions.exclusionsForDependency('org.springframework:spring-core') ==
+                    ['commons-logging:commons-logging'] as Set
+            entry.pom.properties.getProperty('spring.version') == '4.0.5.RELEASE'
+            cache.hits == 1
+    }
+
+    def "A pom is not used when its interpolation inputs do not match"() {
+        given:
+            cache.put('abc123', ['spring.version': '4.0.5.RELEASE'], effectivePom())
+        expect:
+            cache.get('abc123', properties('spring.version': '4.0.6.RELEASE')) == null
+            cache.get('def456', properties([:])) == null
+            cache.misses == 2
+    }
+
+    def "Multiple variants of a pom can be stored"() {
+        given:
+            cache.put('abc123', ['spring.version': '4.0.5.RELEASE'], effectivePom())
+            cache.put('abc123', ['spring.version': '4.0.6.RELEASE'], effectivePom())
+        expect:
+            cache.get('abc123', properties('spring.version': '4.0.5.RELEASE')) != null
+            cache.get('abc123', properties('spring.version': '4.0.6.RELEASE')) != null
+    }
+
+    def "Invalid files are deleted by verification and every file is deleted by clearing"() {
+        given:
+            cache.put('abc123', [:], effectivePom())
+            new File(directory, 'def456.bin').text = 'invalid'
+        when:
+            int invalid = cache.verify()
+        then:
+            invalid == 1
+            cache.listFiles()*.name == ['abc123.bin']
+        when:
+            int cleared = cache.clear()
+        then:
+            cleared == 1
+            cache.listFiles().empty
+    }
+
+    def "A bom that imports a snapshot bom is not cached"() {
+        given: 'A release bom that imports a snapshot bom and another release bom'
+            File repository = new File(directory, 'repository')
+            writePom(repository, 'snapshot-bom', '1.0-SNAPSHOT', managedDependency('1.0', null))
+            writePom(repository, 'imports-snapshot', '1.0',
+                    managedDependency('1.0-SNAPSHOT', 'snapshot-bom'))
+            writePom(repository, 'release-bom', '1.0', managedDependency('1.0', null))
+            Project project = new ProjectBuilder().build()
+            project.ext[PersistentEffectivePomCache.ENABLED_PROPERTY] = 'true'
+            ModelResolver modelResolver = [
+                    resolveModel: { String groupId, String artifactId, String version ->
+                        new FileModelSource(pomFile(repository, artifactId, version))
+                    },
+                    addRepository: { },
+                    newCopy: { delegate }
+            ] as ModelResolver
+            EffectiveModelBuilder modelBuilder = new EffectiveModelBuilder(project, modelResolver)
+            PersistentEffectivePomCache persistentCache =
+                    PersistentEffectivePomCache.forProject(project)
+        when: 'The effective poms of the release boms are built'
+            EffectivePom importing = modelBuilder.buildEffectivePom('test:imports-snapshot:1.0',
+                    pomFile(repository, 'imports-snapshot', '1.0'), [:])
+            modelBuilder.buildEffectivePom('test:release-bom:1.0',
+                    pomFile(repository, 'release-bom', '1.0'), [:])
+        then: 'Only the bom that does not import a snapshot has been cached'
+            importing.managedVersions == ['org.springframework:spring-core': '1.0']
+            persistentCache.listFiles().size() == 1
+            persistentCache.contains(persistentCache.hash(pomFile(repository, 'release-bom',
+                    '1.0')))
+        cleanup:
+            persistentCache.clear()
+    }
+
+    private String managedDependency(String version, String importedBom) {
+        importedBom ? """
+            <dependency>
+                <groupId>test</groupId>
+                <artifactId>$importedBom</artifactId>
+                <version>$version</version>
+                <type>pom</type>
+                <scope>import</scope>
+            </dependency>""" : """
+            <dependency>
+                <groupId>org.springframework</groupId>
+                <artifactId>spring-core</artifactId>
+                <version>$version</version>
+            </dependency>"""
+    }
+
+    private File pomFile(File repository, String artifactId, String version) {
+        new File(repository, "test/$artifactId/$version/$artifactId-${version}.pom")
+    }
+
+    private void writePom(File repository, String artifactId, String version,
+            String managedDependencies) {
+        File pom = pomFile(repository, artifactId, version)
+        pom.parentFile.mkdirs()
+        pom.text = """<?xml version="1.0" encoding="UTF-8"?>
+<project xmlns="http://maven.apache.org/POM/4.0.0">
+    <modelVersion>4.0.0</modelVersion>
+    <groupId>test</groupId>
+    <artifactId>$artifactId</artifactId>
+    <version>$version</version>
+    <packaging>pom</packaging>
+    <dependencyManagement>
+        <dependencies>$managedDependencies
+        </dependencies>
+    </dependencyManagement>
+</project>
+"""
+    }
+
+    private EffectivePom effectivePom() {
+        Dependency dependency = new Dependency(groupId: 'org.springframework',
+                artifactId: 'spring-core', version: '4.0.5.RELEASE', scope: 'compile')
+        dependency.addExclusion(new Exclusion(groupId: 'commons-logging',
+                artifactId: 'commons-logging'))
+        Exclusions exclusions = new Exclusions()
+        exclusions.add('org.springframework:spring-core', ['commons-logging:commons-logging'])
+        Properties properties = new Properties()
+        properties.setProperty('spring.version', '4.0.5.RELEASE')
+        new EffectivePom('test:bom:1.0', [dependency], exclusions, properties)
+    }
+
+    private EffectivePomCache.PropertySource properties(Map<String, String> values) {
+        return { String name -> values[name] } as EffectivePomCache.PropertySource
+    }
+
+}
@@ -19,9 +19,13 @@ package io.spring.gradle.dependencymanagement.maven
 import io.spring.gradle.dependencymanagement.DependencyManagement
 import io.spring.gradle.dependencymanagement.DependencyManagementConfigurationContainer
 import io.spring.gradle.dependencymanagement.DependencyManagementExtension.PomCustomizationConfiguration
+import io.spring.gradle.dependencymanagement.org.apache.maven.model.Dependency
+import io.spring.gradle.dependencymanagement.org.apache.maven.model.Model
+import io.spring.gradle.dependencymanagement.org.apache.maven.model.io.xpp3.MavenXpp3Writer
 import org.gradle.api.Project
 import org.gradle.testfixtures.ProjectBuilder
 import spock.lang.Specification
+import spock.lang.Unroll
 
 /**
  * Tests for {@link PomDependencyManagementConfigurer}
@@ -225,4 +229,114 @@ class PomDependencyManagementConfigurerSpec extends Specification {
             exclusions.contains("commons-logging:commons-logging")
             exclusions.contains("foo:bar")
     }
+
+    @Unroll
+    def "Dependency management spliced into a pom is identical to that added to its nodes when boms are #action"() {
+        given: 'Dependency management that imports boms and manages a dependency'
+            project.repositories {
+                maven { url new File("src/test/resources/maven-repo").toURI().toURL().toString() }
+            }
+            DependencyManagement dependencyManagement = new DependencyManagement(project,
+                    project.configurations.detachedConfiguration(), effectiveModelBuilder)
+            dependencyManagement.importBom('test:bravo-pom-customization-bom:1.0', [:])
+            dependencyManagement.importBom('test:alpha-pom-customization-bom:1.0', [:])
+            dependencyManagement.addExplicitManagedVersion('org.springframework', 'spring-core',
+                    '4.1.3.RELEASE', ['commons-logging:commons-logging', 'foo:bar'])
+            PomCustomizationConfiguration configuration = new PomCustomizationConfiguration()
+            configuration.importedBomAction = action
+            PomDependencyManagementConfigurer configurer = new PomDependencyManagementConfigurer(
+                    dependencyManagement, configuration)
+            String pom = print(new XmlParser().parseText('<project xmlns="http://maven.apache.org/POM/4.0.0">' +
+                    '<modelVersion>4.0.0</modelVersion><dependencies><dependency>' +
+                    '<groupId>test</groupId><artifactId>test</artifactId><version>1.0</version>' +
+                    '</dependency></dependencies></project>'))
+        when: 'The pom is configured by splicing and by adding nodes'
+            StringBuilder spliced = new StringBuilder(pom)
+            boolean splicedSuccessfully = configurer.spliceDependencyManagement(spliced)
+            Node nodes = new XmlParser().parseText(pom)
+            configurer.configurePom(nodes)
+        then: 'The poms are byte-for-byte identical'
+            splicedSuccessfully
+            spliced.toString().getBytes('UTF-8') == print(nodes).getBytes('UTF-8')
+        where:
+            action << PomCustomizationConfiguration.ImportedBomAction.values()
+    }
+
+    @Unroll
+    def "Dependency management spliced into a pom written by Maven's writer matches that added to its nodes when boms are #action"() {
+        given: 'Dependency management that imports boms and manages a dependency'
+            project.repositories {
+                maven { url new File("src/test/resources/maven-repo").toURI().toURL().toString() }
+            }
+            DependencyManagement dependencyManagement = new DependencyManagement(project,
+                    project.configurations.detachedConfiguration(), effectiveModelBuilder)
+            dependencyManagement.importBom('test:bravo-pom-customization-bom:1.0', [:])
+            dependencyManagement.addExplicitManagedVersion('org.springframework', 'spring-core',
+                    '4.1.3.RELEASE', ['commons-logging:commons-logging'])
+            PomCustomizationConfiguration configuration = new PomCustomizationConfiguration()
+            configuration.importedBomAction = action
+            PomDependencyManagementConfigurer configurer = new PomDependencyManagementConfigurer(
+                    dependencyManagement, configuration)
+        and: 'A pom as written by Maven for a publication or upload'
+            String pom = writePom()
+            int projectEnd = pom.lastIndexOf('</project>')
+        when: 'The pom is configured by splicing and by adding nodes'
+            StringBuilder spliced = new StringBuilder(pom)
+            boolean splicedSuccessfully = configurer.spliceDependencyManagement(spliced)
+            Node nodes = new XmlParser().parseText(pom)
+            configurer.configurePom(nodes)
+        then: 'The rest of the pom is unchanged'
+            splicedSuccessfully
+            spliced.toString().startsWith(pom.substring(0, projectEnd))
+            spliced.toString().endsWith(pom.substring(projectEnd))
+        and: 'The section is indented like the rest of the pom'
+            spliced.toString().contains('\n  <dependencyManagement>\n    <dependencies>\n' +
+                    '      <dependency>\n')
+        and: 'The spliced pom has the same content as the pom configured through its nodes'
+            print(new XmlParser().parseText(spliced.toString())) == print(nodes)
+        where:
+            action << PomCustomizationConfiguration.ImportedBomAction.values()
+    }
+
+    def "Dependency management is not spliced into a pom with existing dependency management"() {
+        given: 'Dependency management that manages a dependency'
+            DependencyManagement dependencyManagement = new DependencyManagement(project,
+                    project.configurations.detachedConfiguration(), effectiveModelBuilder)
+            dependencyManagement.addExplicitManagedVersion('org.springframework', 'spring-core',
+                    '4.1.3.RELEASE', [])
+        when: 'A pom with existing dependency management is configured by splicing'
+            StringBuilder pom = new StringBuilder(print(new XmlParser().parseText(
+                    "<project><dependencyManagement><dependencies></dependencies></dependencyManagement></project>")))
+            String original = pom.toString()
+            boolean spliced = new PomDependencyManagementConfigurer(dependencyManagement,
+                    new PomCustomizationConfiguration()).spliceDependencyManagement(pom)
+        then: 'The pom is left for its nodes to be configured'
+            !spliced
+            pom.toString() == original
+    }
+
+    private String writePom() {
+        Model model = new Model()
+        model.modelVersion = '4.0.0'
+        model.groupId = 'test'
+        model.artifactId = 'test'
+        model.version = '1.0'
+        Dependency dependency = new Dependency()
+        dependency.groupId = 'org.springframework'
+        dependency.artifactId = 'spring-core'
+        dependency.version = '4.1.3.RELEASE'
+        model.addDependency(dependency)
+        StringWriter writer = new StringWriter()
+        new MavenXpp3Writer().write(writer, model)
+        writer.toString()
+    }
+
+    private String print(Node pom) {
+        StringWriter writer = new StringWriter()
+        XmlNodePrinter printer = new XmlNodePrinter(new PrintWriter(writer), '  ')
+        printer.preserveWhitespace = true
+        printer.print(pom)
+        writer.toString()
+    }
+
 }
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.dependencymanagement.maven
+
+import groovy.json.JsonSlurper
+import io.spring.gradle.dependencymanagement.DependencyManagementConfigurationContainer
+import io.spring.gradle.dependencymanagement.instrumentation.Instrumentation
+import io.spring.gradle.dependencymanagement.org.apache.maven.model.resolution.ModelResolver
+import org.gradle.api.Project
+import org.gradle.api.artifacts.ResolveException
+import org.gradle.testfixtures.ProjectBuilder
+import spock.lang.Specification
+
+/**
+ * Tests for {@link PomDependencyModelResolver}
+ *
+ * @author Andy Wilkinson
+ */
+class PomDependencyModelResolverSpec extends Specification {
+
+    Project project
+
+    File repository
+
+    PomDependencyModelResolver resolver
+
+    def setup() {
+        project = new ProjectBuilder().build()
+        project.ext[Instrumentation.ENABLED_PROPERTY] = 'true'
+        repository = new File(project.projectDir, 'repository')
+        project.repositories {
+            maven { url repository.toURI().toURL().toString() }
+        }
+        writePom(repository, 'grandparent', '1.0', null)
+        writePom(repository, 'parent', '1.0', 'grandparent')
+        writePom(repository, 'parent', '2.0', null)
+        resolver = new PomDependencyModelResolver(project,
+                new DependencyManagementConfigurationContainer(project))
+    }
+
+    def cleanup() {
+        project.projectDir.deleteDir()
+    }
+
+    def "Parents that are different versions of the same module are prefetched in separate batches"() {
+        given: 'Poms whose parents are different versions of the same module'
+            File alpha = writePom(project.projectDir, 'alpha', '1.0', 'parent', '1.0')
+            File bravo = writePom(project.projectDir, 'bravo', '1.0', 'parent', '2.0')
+        when: 'Their parents are prefetched'
+            resolver.prefetchReferencedPoms([alpha, bravo])
+        then: 'Both versions of the parent and the parent of the parent have been prefetched'
+            def resolution = parentPomResolution()
+            resolution.counters.prefetched == 3
+            resolution.count == 3
+        when: 'The parents are resolved'
+            def parentOne = resolver.resolveModel('test', 'parent', '1.0')
+            def parentTwo = resolver.resolveModel('test', 'parent', '2.0')
+            def grandparent = resolver.resolveModel('test', 'grandparent', '1.0')
+        then: 'Each requested version is resolved without any further resolution'
+            parentOne.location.endsWith('parent-1.0.pom')
+            parentTwo.location.endsWith('parent-2.0.pom')
+            grandparent.location.endsWith('grandparent-1.0.pom')
+            parentPomResolution().count == 3
+    }
+
+    def "A parent that cannot be resolved does not prevent the others from being prefetched"() {
+        given: 'Poms with a parent that cannot be resolved and a parent that can'
+            File alpha = writePom(project.projectDir, 'alpha', '1.0', 'parent', '2.0')
+            File bravo = writePom(project.projectDir, 'bravo', '1.0', 'missing', '1.0')
+        when: 'Their parents are prefetched'
+            resolver.prefetchReferencedPoms([alpha, bravo])
+        then: 'The parent that can be resolved has been prefetched'
+            parentPomResolution().counters.prefetched == 1
+            resolver.resolveModel('test', 'parent', '2.0').location.endsWith('parent-2.0.pom')
+        when: 'The parent that cannot be resolved is requested'
+            resolver.resolveModel('test', 'missing', '1.0')
+        then: 'Its failure is reported'
+            thrown(ResolveException)
+    }
+
+    def "The boms imported by the dependency management of poms are prefetched"() {
+        given: 'Poms that import boms with literal coordinates, their own properties, and an unknown property'
+            File alpha = writeImportingPom('alpha', 'parent', '2.0')
+            File bravo = writeImportingPom('bravo', 'grandparent', '\${grandparent.version}')
+            File charlie = writeImportingPom('charlie', 'parent', '\${unknown.version}')
+        when: 'The poms that they reference are prefetched'
+            resolver.prefetchReferencedPoms([alpha, bravo, charlie])
+        then: 'The boms whose coordinates are known have been prefetched'
+            parentPomResolution().counters.prefetched == 2
+            ModelResolver prefetched = resolver.prefetchedOnly()
+            prefetched.resolveModel('test', 'parent', '2.0').location.endsWith('parent-2.0.pom')
+            prefetched.resolveModel('test', 'grandparent', '1.0').location
+                    .endsWith('grandparent-1.0.pom')
+        when: 'A bom whose coordinates were not known is requested from the prefetched poms'
+            prefetched.resolveModel('test', 'parent', '1.0')
+        then: 'It has not been prefetched'
+            thrown(ModelNotPrefetchedException)
+    }
+
+    private Map parentPomResolution() {
+        File report = new File(project.buildDir, 'instrumentation.json')
+        Instrumentation.forProject(project).writeReport(report)
+        new JsonSlurper().parseText(report.text).phases.find {
+            it.phase == 'parentPomResolution'
+        }
+    }
+
+    private File pomFile(File repository, String artifactId, String version) {
+        new File(repository, "test/$artifactId/$version/$artifactId-${version}.pom")
+    }
+
+    private File writePom(File repository, String artifactId, String version,
+            String parentArtifactId, String parentVersion = '1.0') {
+        File pom = pomFile(repository, artifactId, version)
+        pom.parentFile.mkdirs()
+        String parent = parentArtifactId ? """
+    <parent>
+        <groupId>test</groupId>
+        <artifactId>$parentArtifactId</artifactId>
+        <version>$parentVersion</version>
+    </parent>""" : ''
+        pom.text = """<?xml version="1.0" encoding="UTF-8"?>
+<project xmlns="http://maven.apache.org/POM/4.0.0">
+    <modelVersion>4.0.0</modelVersion>$parent
+    <groupId>test</groupId>
+    <artifactId>$artifactId</artifactId>
+    <version>$version</version>
+    <packaging>pom</packaging>
+</project>
+"""
+        pom
+    }
+
+    private File writeImportingPom(String artifactId, String importedArtifactId,
+            String importedVersion) {
+        File pom = pomFile(project.projectDir, artifactId, '1.0')
+        pom.parentFile.mkdirs()
+        pom.text = """<?xml version="1.0" encoding="UTF-8"?>
+<project xmlns="http://maven.apache.org/POM/4.0.0">
+    <modelVersion>4.0.0</modelVersion>
+    <groupId>test</groupId>
+    <artifactId>$artifactId</artifactId>
+    <version>1.0</version>
+    <packaging>pom</packaging>
+    <properties>
+        <grandparent.version>1.0</grandparent.version>
+    </properties>
+    <dependencyManagement>
+        <dependencies>
+            <dependency>
+                <groupId>test</groupId>
+                <artifactId>$importedArtifactId</artifactId>
+                <version>$importedVersion</version>
+                <type>pom</type>
+                <scope>import</scope>
+            </dependency>
+        </dependencies>
+    </dependencyManagement>
+</project>
+"""
+        pom
+    }
+
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.dependencymanagement.maven
+
+import io.spring.gradle.dependencymanagement.org.apache.maven.model.Model
+import io.spring.gradle.dependencymanagement.org.apache.maven.model.building.DefaultModelBuildingRequest
+import io.spring.gradle.dependencymanagement.org.codehaus.plexus.interpolation.MapBasedValueSource
+import io.spring.gradle.dependencymanagement.org.codehaus.plexus.interpolation.ValueSource
+import org.gradle.api.Project
+import org.gradle.testfixtures.ProjectBuilder
+import spock.lang.Specification
+import spock.lang.Unroll
+
+/**
+ * Tests for {@link ProjectPropertiesModelInterpolator}
+ *
+ * @author Andy Wilkinson
+ */
+class ProjectPropertiesModelInterpolatorSpec extends Specification {
+
+    Project project
+
+    def setup() {
+        project = new ProjectBuilder().build()
+        project.ext['spring.version'] = '4.0.6.RELEASE'
+        project.ext['nullProperty'] = null
+        project.extensions.add('customExtension', new CustomExtension())
+    }
+
+    def cleanup() {
+        project.projectDir.deleteDir()
+    }
+
+    @Unroll
+    def "The value of '#name' is the same as when it is looked up in a map of the project's properties"() {
+        given: 'The value source of an interpolator and a map of the project properties'
+            ValueSource valueSource = new ProjectPropertiesModelInterpolator(project, [:])
+                    .createValueSources(new Model(), project.projectDir,
+                    new DefaultModelBuildingRequest(), null)[0]
+            MapBasedValueSource mapValueSource = new MapBasedValueSource(project.properties)
+        expect: 'The values are the same'
+            valueSource.getValue(name) == mapValueSource.getValue(name)
+        where:
+            name << ['spring.version', 'customExtension', 'nullProperty', 'version',
+                     'unknown.property']
+    }
+
+    static class CustomExtension {
+
+    }
+
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.gradle.dependencymanagement.maven
+
+import io.spring.gradle.dependencymanagement.org.apache.maven.model.building.FileModelSource
+import io.spring.gradle.dependencymanagement.org.apache.maven.model.resolution.ModelResolver
+import org.gradle.api.Project
+import org.gradle.testfixtures.ProjectBuilder
+import spock.lang.Shared
+import spock.lang.Specification
+import spock.lang.Unroll
+
+/**
+ * Tests for {@link StreamingPomReader} that compare the effective poms that it reads with
+ * those produced by Maven's model builder
+ *
+ * @author Andy Wilkinson
+ */
+class StreamingPomReaderSpec extends Specification {
+
+    @Shared
+    File testRepository = new File('src/test/resources/maven-repo')
+
+    @Shared
+    File syntheticRepository
+
+    Project project
+
+    EffectiveModelBuilder modelBuilder
+
+    StreamingPomReader reader
+
+    def setupSpec() {
+        syntheticRepository = File.createTempFile('streaming-pom-reader', '')
+        syntheticRepository.delete()
+        writePom('parent', '''
+    <groupId>com.example</groupId>
+    <artifactId>parent</artifactId>
+    <version>1.0</version>
+    <packaging>pom</packaging>
+    <properties>
+        <spring.version>4.1.2.RELEASE</spring.version>
+        <derived.version>${spring.version}.1</derived.version>
+    </properties>
+    <build>
+        <plugins>
+            <plugin>
+                <artifactId>example-plugin</artifactId>
+                <dependencies>
+                    <dependency>
+                        <groupId>org.example</groupId>
+                        <artifactId>plugin-dependency</artifactId>
+                    </dependency>
+                </dependencies>
+            </plugin>
+        </plugins>
+    </build>
+    <dependencyManagement>
+        <dependencies>
+            <dependency>
+                <groupId>org.springframework</groupId>
+                <artifactId>spring-core</artifactId>
+                <version>${spring.version}</version>
+                <exclusions>
+                    <exclusion>
+                        <groupId>commons-logging</groupId>
+                        <artifactId>commons-logging</artifactId>
+                    </exclusion>
+                </exclusions>
+            </dependency>
+            <dependency>
+                <groupId>org.springframework</groupId>
+                <artifactId>spring-tx</artifactId>
+                <version>${derived.version}</version>
+            </dependency>
+        </dependencies>
+    </dependencyManagement>''')
+        writePom('child', '''
+    <parent>
+        <groupId>com.example</groupId>
+        <artifactId>parent</artifactId>
+        <version>1.0</version>
+    </parent>
+    <artifactId>child</artifactId>
+    <properties>
+        <spring.version>4.2.0.RELEASE</spring.version>
+    </properties>
+    <dependencyManagement>
+        <dependencies>
+            <dependency>
+                <groupId>${project.groupId}</groupId>
+                <artifactId>sibling</artifactId>
+                <version>${project.version}</version>
+            </dependency>
+            <dependency>
+                <groupId>org.springframework</groupId>
+                <artifactId>spring-tx</artifactId>
+                <version>4.0.0.RELEASE</version>
+                <scope>test</scope>
+            </dependency>
+        </dependencies>
+    </dependencyManagement>
+    <dependencies>
+        <dependency>
+            <groupId>org.springframework</groupId>
+            <artifactId>spring-core</artifactId>
+        </dependency>
+        <dependency>
+            <groupId>org.springframework</groupId>
+            <artifactId>spring-beans</artifactId>
+            <version>${spring.version}</version>
+            <optional>true</optional>
+            <exclusions>
+                <exclusion>
+                    <groupId>commons-logging</groupId>
+                    <artifactId>commons-logging</artifactId>
+                </exclusion>
+            </exclusions>
+        </dependency>
+    </dependencies>''')
+        writePom('profiles', '''
+    <groupId>com.example</groupId>
+    <artifactId>profiles</artifactId>
+    <version>1.0</version>
+    <profiles>
+        <profile>
+            <id>example</id>
+        </profile>
+    </profiles>''')
+    }
+
+    def cleanupSpec() {
+        syntheticRepository.deleteDir()
+    }
+
+    def setup() {
+        project = new ProjectBuilder().build()
+        ModelResolver modelResolver = [
+                resolveModel: { String groupId, String artifactId, String version ->
+                    new FileModelSource(pomFile(groupId, artifactId, version))
+                },
+                addRepository: { },
+                newCopy: { delegate }
+        ] as ModelResolver
+        modelBuilder = new EffectiveModelBuilder(project, modelResolver)
+        reader = new StreamingPomReader(modelResolver)
+    }
+
+    @Unroll
+    def "The effective pom of #pom.name matches the one built by Maven's model builder"() {
+        when:
+            StreamingPomReader.Result result = reader.read(pom, propertySource())
+        then:
+            result != null
+            describe(result.pom) == describe(new EffectivePom(modelBuilder.buildModel(pom)))
+        where:
+            pom << poms()
+    }
+
+    def "A project property is used during interpolation and recorded as an input"() {
+        given:
+            project.ext['spring.version'] = '4.3.0.RELEASE'
+        when:
+            StreamingPomReader.Result result = reader.read(pomFile('com.example', 'child', '1.0'),
+                    propertySource())
+        then:
+            result.pom.managedVersions['org.springframework:spring-core'] == '4.3.0.RELEASE'
+            result.interpolationInputs['spring.version'] == '4.3.0.RELEASE'
+            result.modelIds == ['com.example:child:1.0', 'com.example:parent:1.0']
+            describe(result.pom) == describe(new EffectivePom(modelBuilder.buildModel(
+                    pomFile('com.example', 'child', '1.0'))))
+    }
+
+    def "A pom with profiles is not read and is handled by Maven's model builder instead"() {
+        given:
+            File pom = pomFile('com.example', 'profiles', '1.0')
+        expect:
+            reader.read(pom, propertySource()) == null
+            modelBuilder.buildEffectivePom('com.example:profiles:1.0', pom, [:]).coordinates ==
+                    'com.example:profiles:1.0'
+    }
+
+    private List<File> poms() {
+        List<File> poms = []
+        testRepository.eachFileRecurse { if (it.name.endsWith('.pom')) { poms << it } }
+        poms << pomFile('com.example', 'parent', '1.0')
+        poms << pomFile('com.example', 'child', '1.0')
+        poms.sort { it.path }
+    }
+
+    private File pomFile(String groupId, String artifactId, String version) {
+        String path = "${groupId.replace('.', '/')}/$artifactId/$version/$artifactId-${version}.pom"
+        File pom = new File(testRepository, path)
+        pom.file ? pom : new File(syntheticRepository, path)
+    }
+
+    private void writePom(String artifactId, String content) {
+        File pom = pomFile('com.example', artifactId, '1.0')
+        pom.parentFile.mkdirs()
+        pom.text = """<?xml version="1.0" encoding="UTF-8"?>
+<project xmlns="http://maven.apache.org/POM/4.0.0">
+    <modelVersion>4.0.0</modelVersion>$content
+</project>
+"""
+    }
+
+    private EffectivePomCache.PropertySource propertySource() {
+        return { String name ->
+            project.hasProperty(name) ? String.valueOf(project.property(name)) :
+                    System.getProperty(name)
+        } as EffectivePomCache.PropertySource
+    }
+
+    private Map describe(EffectivePom pom) {
+        [coordinates: pom.coordinates,
+         managedDependencies: pom.managedDependencies.collect {
+             "$it.managementKey:$it.version:$it.scope:$it.optional:" +
+                     it.exclusions.collect { "$it.groupId:$it.artifactId" }
+         },
+         exclusions: pom.exclusions.all(),
+         properties: pom.properties]
+    }
+
+}
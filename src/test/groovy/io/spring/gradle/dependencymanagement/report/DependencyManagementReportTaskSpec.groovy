@@ -65,4 +65,87 @@ class DependencyManagementReportTaskSpec extends Specification {
         then: 0 * renderer._
     }
 
+    def "Report in JSON is written to the output file"() {
+        given:
+            def configuration = project.configurations.create("foo")
+            task.dependencyManagement.addExplicitManagedVersion(null, 'com.example', 'bravo',
+                    '1.0', [])
+            task.dependencyManagement.addExplicitManagedVersion(null, 'com.example', 'alpha',
+                    '2.0', [])
+            task.dependencyManagement.addExplicitManagedVersion(configuration, 'com.example',
+                    'charlie', '3.0', [])
+            task.format = 'json'
+        when:
+            task.report()
+        then:
+            0 * renderer._
+            task.outputFile == new File(project.buildDir,
+                    'reports/dependency-management/dependency-management.json')
+            task.outputFile.text == """{
+  "project": ":",
+  "global": {
+    "com.example:alpha": "2.0",
+    "com.example:bravo": "1.0"
+  },
+  "configurations": {
+    "foo": {
+      "com.example:alpha": "2.0",
+      "com.example:bravo": "1.0",
+      "com.example:charlie": "3.0"
+    }
+  }
+}
+"""
+    }
+
+    def "Report in CSV is written to the output file"() {
+        given:
+            project.configurations.create("foo")
+            task.dependencyManagement.addExplicitManagedVersion(null, 'com.example', 'alpha',
+                    '1.0', [])
+            task.format = ReportFormat.CSV
+            task.outputFile = 'managed-versions.csv'
+        when:
+            task.report()
+        then:
+            task.outputFile == project.file('managed-versions.csv')
+            task.outputFile.readLines() == [
+                    'project,configuration,group,module,version',
+                    ':,,com.example,alpha,1.0',
+                    ':,foo,com.example,alpha,1.0'
+            ]
+    }
+
+    def "Fingerprint of a machine-readable report changes when dependency management changes"() {
+        given:
+            task.format = ReportFormat.JSON
+            task.dependencyManagement.addExplicitManagedVersion(null, 'com.example', 'alpha',
+                    '1.0', [])
+            String fingerprint = task.managedVersionsFingerprint
+        when:
+            task.dependencyManagement.addExplicitManagedVersion(null, 'com.example', 'alpha',
+                    '2.0', [])
+        then:
+            task.managedVersionsFingerprint != fingerprint
+    }
+
+    def "A later report does not use the managed versions of an earlier fingerprint"() {
+        given:
+            task.format = ReportFormat.CSV
+            task.outputFile = 'managed-versions.csv'
+            task.dependencyManagement.addExplicitManagedVersion(null, 'com.example', 'alpha',
+                    '1.0', [])
+            task.managedVersionsFingerprint
+            task.report()
+        when:
+            task.dependencyManagement.addExplicitManagedVersion(null, 'com.example', 'alpha',
+                    '2.0', [])
+            task.report()
+        then:
+            task.outputFile.readLines() == [
+                    'project,configuration,group,module,version',
+                    ':,,com.example,alpha,2.0'
+            ]
+    }
+
 }